@@ -0,0 +1,29 @@
+package slogo;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with the bytes allocated per
+ * operation and the allocation rate.
+ * <p>
+ * Takes the same arguments as JMH, such as a regular expression of the benchmarks to run.
+ * <pre>
+ *   mvn -P bench -DskipTests package
+ *   java --enable-preview -jar target/benchmarks.jar Parser -rf json -rff before.json
+ * </pre>
+ */
+public class BenchmarkMain {
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    new Runner(new OptionsBuilder()
+        .parent(commandLine)
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
@@ -0,0 +1,73 @@
+package slogo.model;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import slogo.model.ASTNodes.ASTNode;
+import slogo.model.parser.Parser;
+import slogo.model.parser.ProgramParser;
+
+/**
+ * Evaluates trees that were parsed once, so only the interpreter is measured.
+ * <p>
+ * The loop runs a body of variable and turtle commands many times. The recursions are a
+ * tail-recursive walk and a tree-recursive fibonacci. Each runs interpreted, and compiled once its
+ * bodies are hot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class InterpreterBenchmark {
+
+  private static final String LOOP =
+      "make :total 0 dotimes [ :i 5000 ] [ make :total + :total :i fd 1 rt 1 ]";
+  private static final String WALK = "to walk [ :n ] [ if less? 0 :n [ fd 1 rt 1 walk - :n 1 ] ]";
+  private static final String FIB =
+      "to fib [ :n ] [ ifelse less? :n 2 [ :n ] [ + fib - :n 1 fib - :n 2 ] ]";
+
+  @Param({"loop", "tailRecursion", "treeRecursion"})
+  public String program;
+
+  @Param({"false", "true"})
+  public boolean compiled;
+
+  private ExecutionScope scope;
+  private ASTNode tree;
+
+  @Setup
+  public void setUp() {
+    scope = Scopes.newScope();
+    if (!compiled) {
+      scope.setCompileThreshold(0);
+    }
+    Parser parser = new ProgramParser("English", scope);
+    tree = switch (program) {
+      case "loop" -> parser.parseCommand(LOOP);
+      case "tailRecursion" -> define(parser, WALK, "walk 5000");
+      case "treeRecursion" -> define(parser, FIB, "fib 15");
+      default -> throw new IllegalArgumentException(program);
+    };
+  }
+
+  private ASTNode define(Parser parser, String definition, String call) {
+    parser.parseCommand(definition).evaluate(scope);
+    return parser.parseCommand(call);
+  }
+
+  @Benchmark
+  public double evaluate() {
+    return tree.evaluate(scope);
+  }
+}
@@ -0,0 +1,34 @@
+package slogo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import slogo.model.notifiers.Delegate;
+import slogo.model.notifiers.TurtleNotifier;
+
+/**
+ * Builds execution scopes for the benchmarks, with one turtle and no view listening.
+ */
+public final class Scopes {
+
+  /**
+   * A notifier that drops every update, so benchmarks measure the model and not its listeners
+   */
+  public static final TurtleNotifier NO_OP = info -> {
+  };
+
+  private Scopes() {
+  }
+
+  /**
+   * Create a scope the way an environment does, with turtle updates going nowhere
+   */
+  public static ExecutionScope newScope() {
+    List<Turtle> turtles = new TurtleStore();
+    List<Integer> currTurtles = new ArrayList<>();
+    turtles.add(new Turtle(0, NO_OP));
+    currTurtles.add(0);
+    ExecutionScope scope = new ExecutionScope(turtles, currTurtles, new Delegate(), NO_OP);
+    scope.getControl().begin();
+    return scope;
+  }
+}
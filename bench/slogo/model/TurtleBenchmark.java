@@ -0,0 +1,46 @@
+package slogo.model;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Moves and turns a turtle whose notifier drops every update, so what is measured is the turtle
+ * and the record it builds for each change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TurtleBenchmark {
+
+  private Turtle turtle;
+
+  @Setup
+  public void setUp() {
+    turtle = new Turtle(0, Scopes.NO_OP);
+  }
+
+  @Benchmark
+  public double move() {
+    turtle.move(1);
+    return turtle.getX();
+  }
+
+  @Benchmark
+  public double moveAndTurn() {
+    turtle.move(1);
+    turtle.rotate(1);
+    return turtle.getY();
+  }
+}
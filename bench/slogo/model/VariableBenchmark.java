@@ -0,0 +1,61 @@
+package slogo.model;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import slogo.model.ASTNodes.ASTNumberLiteral;
+
+/**
+ * Gets and sets a variable of an execution scope, by the slot the parser resolves it to and by
+ * name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class VariableBenchmark {
+
+  private static final String NAME = ":total";
+
+  private ExecutionScope scope;
+  private int slot;
+  private double value = 0;
+  private final ASTNumberLiteral literal = new ASTNumberLiteral(1);
+
+  @Setup
+  public void setUp() {
+    scope = Scopes.newScope();
+    slot = scope.getVariableSlot(NAME);
+    scope.setVariable(slot, value);
+  }
+
+  @Benchmark
+  public double getBySlot() {
+    return scope.getVariable(slot);
+  }
+
+  @Benchmark
+  public boolean setBySlot() {
+    return scope.setVariable(slot, ++value);
+  }
+
+  @Benchmark
+  public ASTNumberLiteral getByName() {
+    return scope.getVariable(NAME);
+  }
+
+  @Benchmark
+  public boolean setByName() {
+    return scope.setVariable(NAME, literal);
+  }
+}
@@ -0,0 +1,66 @@
+package slogo.model.notifiers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+
+/**
+ * Sends turtle updates through a delegate to its callbacks and to a number of other subscribers
+ * of its event bus, all inline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class DelegateBenchmark {
+
+  private static final int DELTA_SIZE = 64;
+
+  @Param({"0", "1", "4", "16"})
+  public int subscribers;
+
+  private Delegate delegate;
+  private TurtleRecord record;
+  private TurtlesDeltaRecord delta;
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    delegate = new Delegate();
+    delegate.setOnTurtleUpdate(blackhole::consume);
+    for (int i = 0; i < subscribers; ++i) {
+      delegate.getEventBus().subscribe((type, event, sequence, end) -> blackhole.consume(event));
+    }
+    record = new TurtleRecord(0, 1, 2, 90, true, true);
+    List<TurtleRecord> changes = new ArrayList<>();
+    for (int i = 0; i < DELTA_SIZE; ++i) {
+      changes.add(new TurtleRecord(i, i, i, 0, true, true));
+    }
+    delta = new TurtlesDeltaRecord(changes);
+  }
+
+  @Benchmark
+  public void notifyTurtleUpdate() {
+    delegate.notifyTurtleUpdate(record);
+  }
+
+  @Benchmark
+  public void notifyTurtleDelta() {
+    delegate.notifyTurtleDelta(delta);
+  }
+}
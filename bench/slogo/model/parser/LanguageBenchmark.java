@@ -0,0 +1,64 @@
+package slogo.model.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import slogo.model.ASTNodes.ASTNode;
+import slogo.model.Scopes;
+
+/**
+ * Parses the example of data/examples/languages written in each language, with the bundle of that
+ * language, and builds a parser for a language from nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class LanguageBenchmark {
+
+  // the Russian example mixes in words of no bundle, so it does not parse
+  @Param({"Chinese", "French", "German", "Italian", "Portuguese", "Spanish"})
+  public String language;
+
+  private Parser parser;
+  private String program;
+
+  @Setup
+  public void setUp() throws IOException {
+    parser = new ProgramParser(language, Scopes.newScope());
+    String suffix = "_" + language.toLowerCase() + ".slogo";
+    try (Stream<Path> files = Files.list(ParserBenchmark.EXAMPLES.resolve("languages"))) {
+      Path file = files.filter(path -> path.getFileName().toString().endsWith(suffix))
+          .findFirst()
+          .orElseThrow(() -> new IllegalStateException("no example in " + language));
+      program = Files.readString(file);
+    }
+    parser.parseCommand(program);
+  }
+
+  @Benchmark
+  public ASTNode parse() {
+    return parser.parseCommand(program);
+  }
+
+  @Benchmark
+  public ASTNode loadBundleAndParse() {
+    // a parser loads its bundle the first time it parses
+    return new ProgramParser(language, Scopes.newScope()).parseCommand(program);
+  }
+}
@@ -0,0 +1,83 @@
+package slogo.model.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import slogo.model.Scopes;
+
+/**
+ * Parses every example program of a category of data/examples, in English.
+ * <p>
+ * Programs that do not parse on their own, such as ones written in another language, are left
+ * out. The benchmarks read data/examples from the working directory, so run them from the root of
+ * the project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ParserBenchmark {
+
+  static final Path EXAMPLES = Path.of("data", "examples");
+
+  @Param({"simple", "loops", "loops_with_variables", "variables", "procedures",
+      "procedures_with_parameters", "recursion", "multiple_turtles", "unlimited_parameters"})
+  public String category;
+
+  private Parser parser;
+  private List<String> programs;
+
+  @Setup
+  public void setUp() throws IOException {
+    parser = new ProgramParser("English", Scopes.newScope());
+    programs = readPrograms(parser, EXAMPLES.resolve(category));
+  }
+
+  @Benchmark
+  public void parseCategory(Blackhole blackhole) {
+    for (String program : programs) {
+      blackhole.consume(parser.parseCommand(program));
+    }
+  }
+
+  /**
+   * Read the programs in a directory that the parser can parse
+   */
+  static List<String> readPrograms(Parser parser, Path directory) throws IOException {
+    List<String> programs = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.sorted().collect(Collectors.toList())) {
+        String program = Files.readString(file);
+        try {
+          parser.parseCommand(program);
+          programs.add(program);
+        } catch (RuntimeException e) {
+          // not a program this parser understands
+        }
+      }
+    }
+    if (programs.isEmpty()) {
+      throw new IllegalStateException("no programs to parse in " + directory);
+    }
+    return programs;
+  }
+}
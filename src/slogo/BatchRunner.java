@@ -0,0 +1,271 @@
+package slogo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import slogo.exceptions.ModelException;
+import slogo.model.Color;
+import slogo.model.EnvironmentFactory;
+import slogo.model.TrackableEnvironment;
+import slogo.model.notifiers.Subscription;
+import slogo.records.RunRecord;
+import slogo.render.HeadlessRenderer;
+import slogo.render.Renderer;
+
+/**
+ * Runs SLogo programs from the command line, without a view, and reports how long each one took.
+ * <p>
+ * This class assumes that every file is a whole program in one language. Each file runs in a new
+ * environment, so files do not see each other's variables or commands and can run in parallel.
+ * Directories are searched for .slogo and .logo files. For every file it prints the time spent
+ * parsing and running, the number of commands run and the number of lines drawn, then the totals
+ * and the throughput of the whole batch.
+ * <p>
+ * This class depends on the model, the records and the headless renderer, but not on JavaFX
+ * <p>
+ * <pre>
+ *   java slogo.BatchRunner [--lang English] [--parallel 4] [--max-steps 1000000]
+ *       [--max-depth 1000000] data/examples
+ * </pre>
+ */
+public class BatchRunner {
+
+  private static final String USAGE =
+      "usage: BatchRunner [--lang LANGUAGE] [--parallel THREADS] [--max-steps STEPS] "
+          + "[--max-depth CALLS] PATH...";
+  private static final List<String> EXTENSIONS = List.of(".slogo", ".logo");
+  private static final String EXCEPTIONS = "resources.exceptions.English";
+  // turtle updates are sent on at least this often, so a long program is not held in memory
+  private static final int MAX_TURTLE_UPDATES = 4096;
+  private static final double NANOS_PER_MILLI = 1E6;
+  private static final String ROW = "%-48s %10s %10s %12s %10s  %s%n";
+
+  private final String language;
+  private final long maxSteps;
+  private final int maxCallDepth;
+  private final ResourceBundle exceptions = ResourceBundle.getBundle(EXCEPTIONS);
+
+  /**
+   * The outcome of running one file
+   */
+  public record FileResult(File file, RunRecord run, long segments, String error) {
+
+  }
+
+  /**
+   * Create a runner for programs in a language
+   *
+   * @param language the language the programs are written in
+   * @param maxSteps the most steps a program may run, or 0 for no limit
+   */
+  public BatchRunner(String language, long maxSteps) {
+    this(language, maxSteps, 0);
+  }
+
+  /**
+   * Create a runner for programs in a language that may recurse deeper than the environment allows
+   * by default
+   *
+   * @param language     the language the programs are written in
+   * @param maxSteps     the most steps a program may run, or 0 for no limit
+   * @param maxCallDepth the most nested calls a program may make, or 0 for the default
+   */
+  public BatchRunner(String language, long maxSteps, int maxCallDepth) {
+    this.language = language;
+    this.maxSteps = maxSteps;
+    this.maxCallDepth = maxCallDepth;
+  }
+
+  /**
+   * Run one program in a new environment
+   *
+   * @param file the file holding the program
+   * @return how the program ran, with the error message if it failed
+   */
+  public FileResult run(File file) {
+    TrackableEnvironment env = EnvironmentFactory.createEnvironment();
+    env.setLanguage(language);
+    env.setMaxSteps(maxSteps);
+    env.setMaxTurtleUpdates(MAX_TURTLE_UPDATES);
+    if (maxCallDepth > 0) {
+      env.setMaxCallDepth(maxCallDepth);
+    }
+    LineCounter lines = new LineCounter();
+    Subscription subscription = HeadlessRenderer.attach(env.getTracker(), lines);
+    String error = null;
+    try {
+      env.runCommand(Files.readString(file.toPath()));
+    } catch (IOException e) {
+      error = e.toString();
+    } catch (ModelException e) {
+      error = e.buildException(exceptions.getString(e.getMessage()));
+    } catch (RuntimeException e) {
+      // one broken program should not stop the batch
+      error = e.toString();
+    } finally {
+      subscription.cancel();
+    }
+    return new FileResult(file, env.getLastRun(), lines.count, error);
+  }
+
+  /**
+   * Run every program, some at the same time
+   *
+   * @param files   the files holding the programs
+   * @param threads the number of programs to run at the same time
+   * @return the results, in the order of the files
+   */
+  public List<FileResult> runAll(List<File> files, int threads) throws InterruptedException {
+    List<FileResult> results = new ArrayList<>();
+    if (threads <= 1) {
+      for (File file : files) {
+        results.add(run(file));
+      }
+      return results;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<FileResult>> futures = new ArrayList<>();
+      for (File file : files) {
+        futures.add(executor.submit(() -> run(file)));
+      }
+      for (Future<FileResult> future : futures) {
+        results.add(future.get());
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  /**
+   * Find the programs in a list of files and directories
+   *
+   * @param paths the files, which are taken as they are, and the directories to search
+   * @return the programs, with the ones in a directory sorted by path
+   */
+  public static List<File> findPrograms(List<String> paths) {
+    List<File> files = new ArrayList<>();
+    for (String path : paths) {
+      addPrograms(new File(path), files, true);
+    }
+    return files;
+  }
+
+  private static void addPrograms(File file, List<File> files, boolean given) {
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      if (children == null) {
+        return;
+      }
+      Arrays.sort(children);
+      for (File child : children) {
+        addPrograms(child, files, false);
+      }
+    } else if (given || EXTENSIONS.stream().anyMatch(file.getName()::endsWith)) {
+      files.add(file);
+    }
+  }
+
+  /**
+   * Print the results of every file, then the totals and the throughput of the batch
+   *
+   * @param results   the results to print
+   * @param wallNanos how long the whole batch took
+   */
+  public static void report(List<FileResult> results, long wallNanos) {
+    System.out.printf(ROW, "file", "parse ms", "eval ms", "commands", "segments", "status");
+    long parse = 0;
+    long eval = 0;
+    long commands = 0;
+    long segments = 0;
+    int failed = 0;
+    for (FileResult result : results) {
+      RunRecord run = result.run();
+      System.out.printf(ROW, result.file().getPath(), millis(run.parseNanos()),
+          millis(run.evalNanos()), run.commandsRun(), result.segments(),
+          result.error() == null ? "ok" : "error: " + result.error());
+      parse += run.parseNanos();
+      eval += run.evalNanos();
+      commands += run.commandsRun();
+      segments += result.segments();
+      failed += result.error() == null ? 0 : 1;
+    }
+    System.out.printf(ROW, "total (" + results.size() + " files, " + failed + " failed)",
+        millis(parse), millis(eval), commands, segments, "");
+    double seconds = wallNanos / 1E9;
+    System.out.printf("wall %.2f s, %.1f files/s, %.0f commands/s, %.0f segments/s%n", seconds,
+        results.size() / seconds, commands / seconds, segments / seconds);
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.2f", nanos / NANOS_PER_MILLI);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    String language = "English";
+    int threads = 1;
+    long maxSteps = 0;
+    int maxCallDepth = 0;
+    List<String> paths = new ArrayList<>();
+    try {
+      for (int i = 0; i < args.length; ++i) {
+        switch (args[i]) {
+          case "--lang" -> language = args[++i];
+          case "--parallel" -> threads = Integer.parseInt(args[++i]);
+          case "--max-steps" -> maxSteps = Long.parseLong(args[++i]);
+          case "--max-depth" -> maxCallDepth = Integer.parseInt(args[++i]);
+          default -> paths.add(args[i]);
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      paths.clear();
+    }
+    if (paths.isEmpty()) {
+      System.err.println(USAGE);
+      System.exit(2);
+    }
+
+    List<File> files = findPrograms(paths);
+    long start = System.nanoTime();
+    List<FileResult> results = new BatchRunner(language, maxSteps, maxCallDepth)
+        .runAll(files, threads);
+    report(results, System.nanoTime() - start);
+    System.exit(results.stream().allMatch(result -> result.error() == null) ? 0 : 1);
+  }
+
+  /**
+   * Counts the lines drawn instead of drawing them
+   */
+  private static class LineCounter implements Renderer {
+
+    private long count = 0;
+
+    @Override
+    public void drawLine(double x0, double y0, double x1, double y1, Color color, double width) {
+      ++count;
+    }
+
+    @Override
+    public void setBackground(Color color) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package slogo.exceptions;
+
+/**
+ * This exception is thrown when a user-defined command is called while the maximum number of
+ * nested calls is already being used, usually because of recursion that does not stop.
+ */
+public class CallDepthExceededException extends ModelException {
+
+  private String identifier;
+  private int maxDepth;
+  private static final String name = "CallDepthExceededException";
+
+  /**
+   * Create a new instance of this exception
+   *
+   * @param identifier the command that was called
+   * @param maxDepth   the maximum number of nested calls
+   */
+  public CallDepthExceededException(String identifier, int maxDepth) {
+    super(name);
+    this.identifier = identifier;
+    this.maxDepth = maxDepth;
+  }
+
+  @Override
+  public String buildException(String format) {
+    return String.format(format, identifier, maxDepth);
+  }
+
+  /**
+   * Get the command that was called
+   *
+   * @return the command
+   */
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  /**
+   * Get the maximum number of nested calls
+   *
+   * @return the maximum depth
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+}
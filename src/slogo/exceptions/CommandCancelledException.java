@@ -0,0 +1,22 @@
+package slogo.exceptions;
+
+/**
+ * This exception is thrown when a running command is stopped before it is done, for example when
+ * the user presses stop while a long loop runs.
+ */
+public class CommandCancelledException extends ModelException {
+
+  private static final String name = "CommandCancelledException";
+
+  /**
+   * Create a new instance of this exception
+   */
+  public CommandCancelledException() {
+    super(name);
+  }
+
+  @Override
+  public String buildException(String format) {
+    return String.format(format);
+  }
+}
@@ -7,22 +7,32 @@ package slogo.exceptions;
 public class InvalidSyntaxException extends ModelException {
   private String command;
   private String token;
+  private int offset;
   private static final String name = "InvalidSyntaxException";
 
   /**
    * Creates a new instance of this exception
    * @param command that was used
    * @param token that was incorrect
+   * @param offset the index of the token in the command
    */
-  public InvalidSyntaxException(String token, String command) {
+  public InvalidSyntaxException(String token, String command, int offset) {
     super(name);
     this.command = command;
     this.token = token;
+    this.offset = offset;
   }
 
+  /**
+   * Gets the index of the incorrect token in the command
+   * @return the offset of the token
+   */
+  public int getOffset() {
+    return offset;
+  }
 
   @Override
   public String buildException(String format) {
-    return String.format(format, command, token);
+    return String.format(format, command, token, offset + 1);
   }
 }
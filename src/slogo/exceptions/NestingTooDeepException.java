@@ -0,0 +1,22 @@
+package slogo.exceptions;
+
+/**
+ * This exception is thrown when a command nests so deeply that it runs out of stack while it is
+ * evaluated, for example an expression with thousands of nested brackets.
+ */
+public class NestingTooDeepException extends ModelException {
+
+  private static final String name = "NestingTooDeepException";
+
+  /**
+   * Create a new instance of this exception
+   */
+  public NestingTooDeepException() {
+    super(name);
+  }
+
+  @Override
+  public String buildException(String format) {
+    return String.format(format);
+  }
+}
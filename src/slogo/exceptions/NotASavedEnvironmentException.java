@@ -0,0 +1,35 @@
+package slogo.exceptions;
+
+/**
+ * This exception is thrown when a file that is loaded was not saved by an environment, for example
+ * one of the serialized environments older versions wrote.
+ */
+public class NotASavedEnvironmentException extends ModelException {
+
+  private String fileName;
+  private static final String name = "NotASavedEnvironmentException";
+
+  /**
+   * Create a new instance of this exception
+   *
+   * @param fileName the name of the file that was loaded
+   */
+  public NotASavedEnvironmentException(String fileName) {
+    super(name);
+    this.fileName = fileName;
+  }
+
+  @Override
+  public String buildException(String format) {
+    return String.format(format, fileName);
+  }
+
+  /**
+   * Get the name of the file that was loaded
+   *
+   * @return the name of the file
+   */
+  public String getFileName() {
+    return fileName;
+  }
+}
@@ -0,0 +1,35 @@
+package slogo.exceptions;
+
+/**
+ * This exception is thrown when a command runs more steps than it is allowed to, usually because of
+ * a loop that runs far longer than intended.
+ */
+public class StepLimitExceededException extends ModelException {
+
+  private long maxSteps;
+  private static final String name = "StepLimitExceededException";
+
+  /**
+   * Create a new instance of this exception
+   *
+   * @param maxSteps the number of steps a command may run
+   */
+  public StepLimitExceededException(long maxSteps) {
+    super(name);
+    this.maxSteps = maxSteps;
+  }
+
+  @Override
+  public String buildException(String format) {
+    return String.format(format, maxSteps);
+  }
+
+  /**
+   * Get the number of steps a command may run
+   *
+   * @return the maximum number of steps
+   */
+  public long getMaxSteps() {
+    return maxSteps;
+  }
+}
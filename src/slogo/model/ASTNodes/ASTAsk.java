@@ -40,13 +40,12 @@ public class ASTAsk extends ASTCommand {
     ASTCompoundStatement commands = (ASTCompoundStatement) params.get(1);
 
     // run all commands for each turtle index
+    // only contains 1 index, so that ASTTurtleCommand works as intended
+    List<Integer> indices = new ArrayList<>(List.of(0));
     for (ASTNode child : comp.getChildren()) {
-      int idx = (int) child.evaluate(info);
-
-      // only contains 1 index, so that ASTTurtleCommand works as intended
-      ArrayList<Integer> indices = new ArrayList<>();
-      indices.add(idx);
-      info.setCurrTurtle(indices);
+      indices.set(0, (int) child.evaluate(info));
+      // the view only needs to know the active turtles once they are restored
+      info.setCurrTurtleNoNotify(indices);
 
       // run commands
       ret = commands.evaluate(info);
@@ -40,12 +40,16 @@ public class ASTAskWith extends ASTCommand {
     ASTCompoundStatement commands = (ASTCompoundStatement) params.get(1);
 
     // check conditions and run commands for all turtle
-    for (Turtle turtle : info.getAllTurtles()) {
-      // only contains 1 index, so that ASTTurtleCommand works as intended
-      ArrayList<Integer> indices = new ArrayList<>();
-      indices.add(turtle.getId());
-      info.setCurrTurtle(indices);
-      info.setMainTurtle(turtle.getId()); // ASTID doesn't automatically set main turtle
+    // only contains 1 index, so that ASTTurtleCommand works as intended
+    List<Integer> indices = new ArrayList<>(List.of(0));
+    List<Turtle> turtles = info.getAllTurtles();
+    int numTurtles = turtles.size();
+    for (int i = 0; i < numTurtles; ++i) {
+      int id = turtles.get(i).getId();
+      indices.set(0, id);
+      // the view only needs to know the active turtles once they are restored
+      info.setCurrTurtleNoNotify(indices);
+      info.setMainTurtle(id); // ASTID doesn't automatically set main turtle
 
       // check condition commands
       if (condition.evaluate(info) != 0) {
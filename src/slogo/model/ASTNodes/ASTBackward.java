@@ -1,6 +1,5 @@
 package slogo.model.ASTNodes;
 
-import java.util.List;
 import slogo.model.InfoBundle;
 import slogo.model.Turtle;
 
@@ -14,9 +13,14 @@ public class ASTBackward extends ASTTurtleCommand {
   }
 
   @Override
-  protected double evaluateForTurtle(Turtle turtle, List<Double> parameters,
+  protected boolean touchesOnlyTurtle() {
+    return true;
+  }
+
+  @Override
+  protected double evaluateForTurtle(Turtle turtle, double[] parameters,
       InfoBundle info) {
-    double delta = parameters.get(0);
+    double delta = parameters[0];
     turtle.move(-delta);
     return delta;
   }
@@ -18,6 +18,11 @@ public abstract class ASTBinaryOperator extends ASTCommand {
 
   protected abstract double calculate(double ret1, double ret2);
 
+  @Override
+  public boolean isPure() {
+    return true;
+  }
+
   @Override
   protected void preEvaluate(InfoBundle info) {
     super.preEvaluate(info);
@@ -34,4 +39,14 @@ public abstract class ASTBinaryOperator extends ASTCommand {
         params.get(1).evaluate(info)
     );
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != 2) {
+      return super.compile();
+    }
+    CompiledNode left = getChildAt(0).compile();
+    CompiledNode right = getChildAt(1).compile();
+    return info -> calculate(left.run(info), right.run(info));
+  }
 }
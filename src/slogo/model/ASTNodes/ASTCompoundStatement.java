@@ -18,6 +18,7 @@ public class ASTCompoundStatement extends ASTNode {
 
   @Override
   protected double doEvaluate(InfoBundle info, List<ASTNode> params) {
+    info.checkpoint(getNumChildren());
     double ret = 0;
     for (ASTNode node : getChildren()) {
       ret = node.evaluate(info);
@@ -25,6 +26,26 @@ public class ASTCompoundStatement extends ASTNode {
     return ret;
   }
 
+  @Override
+  public CompiledNode compile() {
+    CompiledNode[] statements = compileChildren();
+    return info -> {
+      info.checkpoint(statements.length);
+      double ret = 0;
+      for (CompiledNode statement : statements) {
+        ret = statement.run(info);
+      }
+      return ret;
+    };
+  }
+
+  @Override
+  public void markTailCalls() {
+    if (getNumChildren() > 0) {
+      getChildAt(getNumChildren() - 1).markTailCalls();
+    }
+  }
+
   @Override
   public boolean isDone() {
     for (ASTNode node : getChildren()) {
@@ -17,6 +17,8 @@ public class ASTDoTimes extends ASTCommand {
   private static final int NUM_PARAMS = 2;
   private static final String NAME = "DoTimes";
 
+  private transient HotCode hotBody;
+
   public ASTDoTimes() {
     super(NAME, NUM_PARAMS);
   }
@@ -28,19 +30,49 @@ public class ASTDoTimes extends ASTCommand {
     // TODO: error checking
     ASTCompoundStatement comp1 = (ASTCompoundStatement) params.get(0);
     ASTCompoundStatement comp2 = (ASTCompoundStatement) params.get(1);
+    HotCode body = getBody(comp2);
 
-    String counterName = ((ASTNamed) comp1.getChildAt(0)).getName();
+    int counter = VariableReference.getSlot(comp1.getChildAt(0), info);
     double limit = comp1.getChildAt(1).evaluate(info);
 
-    ASTNumberLiteral variable = new ASTNumberLiteral(1.0);
     for (double i = 1.0; i <= limit; i += 1.0) {
       // counter is set in the lookup table as a variable
-      variable.setValue(i);
-      info.setVariable(counterName, variable);
+      info.setVariable(counter, i);
 
-      ret = comp2.evaluate(info);
+      ret = body.evaluate(info);
     }
 
     return ret;
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != NUM_PARAMS
+        || !(getChildAt(0) instanceof ASTCompoundStatement)
+        || getChildAt(0).getNumChildren() < 2
+        || !(getChildAt(1) instanceof ASTCompoundStatement)) {
+      return super.compile();
+    }
+    ASTNode header = getChildAt(0);
+    ASTNode variable = header.getChildAt(0);
+    CompiledNode limit = header.getChildAt(1).compile();
+    CompiledNode body = getChildAt(1).compile();
+    return info -> {
+      double ret = 0.0;
+      int counter = VariableReference.getSlot(variable, info);
+      double last = limit.run(info);
+      for (double i = 1.0; i <= last; i += 1.0) {
+        info.setVariable(counter, i);
+        ret = body.run(info);
+      }
+      return ret;
+    };
+  }
+
+  private HotCode getBody(ASTNode node) {
+    if (hotBody == null || hotBody.getNode() != node) {
+      hotBody = new HotCode(node);
+    }
+    return hotBody;
+  }
 }
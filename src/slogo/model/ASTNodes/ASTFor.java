@@ -17,6 +17,8 @@ public class ASTFor extends ASTCommand {
   private static final int NUM_PARAMS = 2;
   private static final String NAME = "For";
 
+  private transient HotCode hotBody;
+
   public ASTFor() {
     super(NAME, NUM_PARAMS);
   }
@@ -28,21 +30,55 @@ public class ASTFor extends ASTCommand {
     // TODO: error checking
     ASTCompoundStatement comp1 = (ASTCompoundStatement) params.get(0);
     ASTCompoundStatement comp2 = (ASTCompoundStatement) params.get(1);
+    HotCode body = getBody(comp2);
 
-    String counterName = ((ASTNamed) comp1.getChildAt(0)).getName();
+    int counter = VariableReference.getSlot(comp1.getChildAt(0), info);
     double start = comp1.getChildAt(1).evaluate(info);
     double end = comp1.getChildAt(2).evaluate(info);
     double step = comp1.getChildAt(3).evaluate(info);
 
-    ASTNumberLiteral variable = new ASTNumberLiteral(1.0);
     for (double i = start; i <= end; i += step) {
       // counter is set in the lookup table as a variable
-      variable.setValue(i);
-      info.setVariable(counterName, variable);
+      info.setVariable(counter, i);
 
-      ret = comp2.evaluate(info);
+      ret = body.evaluate(info);
     }
 
     return ret;
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != NUM_PARAMS
+        || !(getChildAt(0) instanceof ASTCompoundStatement)
+        || getChildAt(0).getNumChildren() < 4
+        || !(getChildAt(1) instanceof ASTCompoundStatement)) {
+      return super.compile();
+    }
+    ASTNode header = getChildAt(0);
+    ASTNode variable = header.getChildAt(0);
+    CompiledNode start = header.getChildAt(1).compile();
+    CompiledNode end = header.getChildAt(2).compile();
+    CompiledNode step = header.getChildAt(3).compile();
+    CompiledNode body = getChildAt(1).compile();
+    return info -> {
+      double ret = 0.0;
+      int counter = VariableReference.getSlot(variable, info);
+      double first = start.run(info);
+      double last = end.run(info);
+      double increment = step.run(info);
+      for (double i = first; i <= last; i += increment) {
+        info.setVariable(counter, i);
+        ret = body.run(info);
+      }
+      return ret;
+    };
+  }
+
+  private HotCode getBody(ASTNode node) {
+    if (hotBody == null || hotBody.getNode() != node) {
+      hotBody = new HotCode(node);
+    }
+    return hotBody;
+  }
 }
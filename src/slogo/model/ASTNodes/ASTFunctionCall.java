@@ -1,7 +1,9 @@
 package slogo.model.ASTNodes;
 
+import java.util.ArrayList;
 import java.util.List;
 import slogo.model.InfoBundle;
+import slogo.records.CommandSource;
 
 /**
  * Represents a function call, is stored in the function table
@@ -18,7 +20,9 @@ import slogo.model.InfoBundle;
 public class ASTFunctionCall extends ASTCommand {
 
   private List<String> parameterNames;
-  private ASTNode body;
+  private List<VariableReference> parameters;
+  private HotCode body;
+  private CommandSource source;
 
   /**
    * Constructor
@@ -27,36 +31,146 @@ public class ASTFunctionCall extends ASTCommand {
    * @param parameterNames Parameter names
    */
   public ASTFunctionCall(String identifier, List<String> parameterNames) {
+    this(identifier, parameterNames, null);
+  }
+
+  public ASTFunctionCall(String identifier, List<String> parameterNames, ASTNode body) {
     super(identifier, parameterNames.size());
     this.parameterNames = parameterNames;
+    this.parameters = new ArrayList<>();
+    for (String name : parameterNames) {
+      parameters.add(new VariableReference(name));
+    }
+    setBody(body);
   }
 
-  public ASTFunctionCall(String identifier, List<String> parameterNames, ASTNode body) {
+  private ASTFunctionCall(String identifier, List<String> parameterNames,
+      List<VariableReference> parameters, HotCode body) {
     super(identifier, parameterNames.size());
     this.parameterNames = parameterNames;
+    this.parameters = parameters;
     this.body = body;
   }
 
+  /**
+   * Set the text the function was defined with
+   */
+  public void setSource(CommandSource source) {
+    this.source = source;
+  }
+
+  /**
+   * Get the text the function was defined with
+   *
+   * @return the definition and its language, or null if the function was not parsed from text
+   */
+  public CommandSource getSource() {
+    return source;
+  }
+
   /**
    * Set the commands in function body
    */
   public void setBody(ASTNode body) {
-    this.body = body;
+    this.body = new HotCode(body);
   }
 
   @Override
   protected double doEvaluate(InfoBundle info, List<ASTNode> params) {
-    // insert actual parameters into the lookup table
-    for (int i = 0; i < getNumParams(); ++i) {
-      ASTNumberLiteral value = new ASTNumberLiteral(params.get(i).evaluate(info));
-      info.setVariable(parameterNames.get(i), value);
+    return call(info, params);
+  }
+
+  /**
+   * Call the function in a new frame. The actual parameters are evaluated by the caller before the
+   * frame is pushed, so they cannot see each other's formal parameters.
+   * <p>
+   * Tail calls made by the body are run one after the other in the same frame, so they do not use
+   * any more stack. The variables each call sets stay in that frame, so a tail call still sees the
+   * local variables of its caller. Past a few hundred nested calls, the calls continue on a worker
+   * with a deeper stack.
+   *
+   * @param info      The bundle of the caller
+   * @param arguments The actual parameters
+   * @return The value of the last command in the body
+   */
+  public double call(InfoBundle info, List<ASTNode> arguments) {
+    return call(info, evaluateArguments(info, arguments));
+  }
+
+  /**
+   * Call the function in a new frame with actual parameters that have already been evaluated
+   *
+   * @param info   The bundle of the caller
+   * @param values The values of the actual parameters
+   * @return The value of the last command in the body
+   */
+  public double call(InfoBundle info, double[] values) {
+    if (StackSegment.startsSegment(info.getCallDepth())) {
+      return StackSegment.run(() -> callInFrame(info, values));
+    }
+    return callInFrame(info, values);
+  }
+
+  /**
+   * Evaluate the actual parameters of a call in the bundle of the caller
+   */
+  public double[] evaluateArguments(InfoBundle info, List<ASTNode> arguments) {
+    int numParams = getNumParams();
+    double[] values = new double[numParams];
+    for (int i = 0; i < numParams; ++i) {
+      values[i] = arguments.get(i).evaluate(info);
+    }
+    return values;
+  }
+
+  private double callInFrame(InfoBundle info, double[] values) {
+    ASTFunctionCall function = this;
+    info.pushFrame(getName());
+    try {
+      while (true) {
+        function.bindParameters(info, values);
+        double ret = function.body.evaluate(info);
+
+        TailCall next = info.takeTailCall();
+        if (next == null) {
+          return ret;
+        }
+        // run the tail call in the same frame, so it still sees the variables of the call that
+        // just finished, as it would have if it were nested. They are put back with the frame's.
+        function = next.function();
+        values = next.arguments();
+      }
+    } finally {
+      info.popFrame();
     }
+  }
 
-    return body.evaluate(info);
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != getNumParams()) {
+      return super.compile();
+    }
+    CompiledNode[] arguments = compileChildren();
+    return info -> {
+      double[] values = new double[arguments.length];
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = arguments[i].run(info);
+      }
+      return call(info, values);
+    };
+  }
+
+  private void bindParameters(InfoBundle info, double[] values) {
+    // insert actual parameters into the lookup table
+    for (int i = 0; i < values.length; ++i) {
+      info.setVariable(parameters.get(i).getSlot(info), values[i]);
+    }
   }
 
   public ASTFunctionCall clone() {
-    return new ASTFunctionCall(getName(), parameterNames, body);
+    ASTFunctionCall instance = new ASTFunctionCall(getName(), parameterNames, parameters, body);
+    instance.source = source;
+    return instance;
   }
 
   @Override
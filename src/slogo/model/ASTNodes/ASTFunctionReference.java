@@ -10,16 +10,55 @@ import slogo.model.InfoBundle;
  */
 public class ASTFunctionReference extends ASTCommand {
 
+  private boolean tailCall = false;
+
   public ASTFunctionReference(String identifier, int NUM_PARAMS) {
     super(identifier, NUM_PARAMS);
   }
 
+  @Override
+  public void markTailCalls() {
+    tailCall = true;
+  }
+
+  /**
+   * @return Returns true if this reference is the last thing the function containing it does
+   */
+  public boolean isTailCall() {
+    return tailCall;
+  }
+
   @Override
   protected double doEvaluate(InfoBundle info, List<ASTNode> params) {
-    ASTNode body = info.getCommand(getName()).clone();
-    for (ASTNode child : getChildren()) {
-      body.addChild(child);
+    ASTFunctionCall function = info.getCommand(getName());
+    if (tailCall) {
+      // the running call picks this up once its body returns
+      info.setTailCall(new TailCall(function, function.evaluateArguments(info, params)));
+      return 0;
+    }
+    return function.call(info, params);
+  }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != getNumParams()) {
+      return super.compile();
     }
-    return body.evaluate(info.clone());
+    CompiledNode[] arguments = compileChildren();
+    return info -> {
+      ASTFunctionCall function = info.getCommand(getName());
+      if (function.getNumParams() != arguments.length) {
+        return evaluate(info); // the command was defined again with other parameters
+      }
+      double[] values = new double[arguments.length];
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = arguments[i].run(info);
+      }
+      if (tailCall) {
+        info.setTailCall(new TailCall(function, values));
+        return 0;
+      }
+      return function.call(info, values);
+    };
   }
 }
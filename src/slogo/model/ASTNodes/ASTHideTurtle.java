@@ -1,6 +1,5 @@
 package slogo.model.ASTNodes;
 
-import java.util.List;
 import slogo.model.InfoBundle;
 import slogo.model.Turtle;
 
@@ -14,7 +13,12 @@ public class ASTHideTurtle extends ASTTurtleCommand {
   }
 
   @Override
-  protected double evaluateForTurtle(Turtle turtle, List<Double> parameters,
+  protected boolean touchesOnlyTurtle() {
+    return true;
+  }
+
+  @Override
+  protected double evaluateForTurtle(Turtle turtle, double[] parameters,
       InfoBundle info) {
     turtle.setVisible(false);
     return 0;
@@ -1,6 +1,5 @@
 package slogo.model.ASTNodes;
 
-import java.util.List;
 import slogo.model.InfoBundle;
 import slogo.model.Turtle;
 import slogo.model.Vec2D;
@@ -15,7 +14,12 @@ public class ASTHome extends ASTTurtleCommand {
   }
 
   @Override
-  protected double evaluateForTurtle(Turtle turtle, List<Double> parameters, InfoBundle info) {
+  protected boolean touchesOnlyTurtle() {
+    return true;
+  }
+
+  @Override
+  protected double evaluateForTurtle(Turtle turtle, double[] parameters, InfoBundle info) {
     Vec2D src = new Vec2D(turtle.getX(), turtle.getY());
     turtle.setPosition(0, 0);
     return (new Vec2D(0, 0)).minus(src).magnitude();
@@ -29,4 +29,21 @@ public class ASTIf extends ASTCommand {
     }
     return 0;
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != NUM_PARAMS) {
+      return super.compile();
+    }
+    CompiledNode predicate = getChildAt(0).compile();
+    CompiledNode branch = getChildAt(1).compile();
+    return info -> predicate.run(info) != 0 ? branch.run(info) : 0;
+  }
+
+  @Override
+  public void markTailCalls() {
+    if (getNumChildren() == NUM_PARAMS) {
+      getChildAt(1).markTailCalls();
+    }
+  }
 }
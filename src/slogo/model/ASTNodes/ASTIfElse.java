@@ -28,4 +28,23 @@ public class ASTIfElse extends ASTCommand {
       return params.get(2).evaluate(info);
     }
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != NUM_PARAMS) {
+      return super.compile();
+    }
+    CompiledNode predicate = getChildAt(0).compile();
+    CompiledNode thenBranch = getChildAt(1).compile();
+    CompiledNode elseBranch = getChildAt(2).compile();
+    return info -> predicate.run(info) != 0 ? thenBranch.run(info) : elseBranch.run(info);
+  }
+
+  @Override
+  public void markTailCalls() {
+    if (getNumChildren() == NUM_PARAMS) {
+      getChildAt(1).markTailCalls();
+      getChildAt(2).markTailCalls();
+    }
+  }
 }
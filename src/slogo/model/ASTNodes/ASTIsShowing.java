@@ -1,6 +1,5 @@
 package slogo.model.ASTNodes;
 
-import java.util.List;
 import slogo.model.InfoBundle;
 import slogo.model.Turtle;
 
@@ -14,7 +13,7 @@ public class ASTIsShowing extends ASTTurtleCommand {
   }
 
   @Override
-  protected double evaluateForTurtle(Turtle turtle, List<Double> parameters, InfoBundle info) {
+  protected double evaluateForTurtle(Turtle turtle, double[] parameters, InfoBundle info) {
     return turtle.isVisible() ? 1.0 : 0.0;
   }
 }
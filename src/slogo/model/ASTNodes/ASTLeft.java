@@ -1,6 +1,5 @@
 package slogo.model.ASTNodes;
 
-import java.util.List;
 import slogo.model.InfoBundle;
 import slogo.model.Turtle;
 
@@ -14,8 +13,13 @@ public class ASTLeft extends ASTTurtleCommand {
   }
 
   @Override
-  protected double evaluateForTurtle(Turtle turtle, List<Double> parameters, InfoBundle info) {
-    double deg = -parameters.get(0);
+  protected boolean touchesOnlyTurtle() {
+    return true;
+  }
+
+  @Override
+  protected double evaluateForTurtle(Turtle turtle, double[] parameters, InfoBundle info) {
+    double deg = -parameters[0];
     turtle.rotate(deg);
     return deg;
   }
@@ -3,6 +3,7 @@ package slogo.model.ASTNodes;
 import java.util.ArrayList;
 import java.util.List;
 import slogo.model.InfoBundle;
+import slogo.records.CommandSource;
 
 /**
  * Contains definition of a function, can be used to create new function call
@@ -17,10 +18,24 @@ public class ASTMakeUserInstruction extends ASTDeclaration {
   private ASTNode commands;
   private InfoBundle functionTable;
   private boolean addedCorrectly;
+  private CommandSource source;
 
   public ASTMakeUserInstruction(String identifier, InfoBundle functionTable) {
+    this(identifier, functionTable, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param identifier    Name of the function being defined
+   * @param functionTable The bundle the function is added to
+   * @param source        The text of the definition, kept by the function so it can be saved
+   */
+  public ASTMakeUserInstruction(String identifier, InfoBundle functionTable,
+      CommandSource source) {
     super(NAME, identifier, NUM_PARAMS);
     this.functionTable = functionTable;
+    this.source = source;
   }
 
   /**
@@ -47,10 +62,11 @@ public class ASTMakeUserInstruction extends ASTDeclaration {
     int numChildren = super.addChild(newChild);
     if (numChildren == 1) {
       vars = newChild;
-      addedCorrectly = functionTable.setCommand(getIdentifier(),
-          new ASTFunctionCall(getIdentifier(),
-              getParameterNames()));
+      ASTFunctionCall function = new ASTFunctionCall(getIdentifier(), getParameterNames());
+      function.setSource(source);
+      addedCorrectly = functionTable.setCommand(getIdentifier(), function);
     } else {
+      newChild.markTailCalls();
       if (addedCorrectly) {
         functionTable.getCommand(getIdentifier()).setBody(newChild);
       }
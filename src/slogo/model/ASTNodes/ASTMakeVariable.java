@@ -27,8 +27,23 @@ public class ASTMakeVariable extends ASTDeclaration {
     setIdentifier(name);
 
     double value = params.get(1).evaluate(info);
-    ASTNumberLiteral numberLiteral = new ASTNumberLiteral(value);
-    info.setVariable(name, numberLiteral);
+    info.setVariable(VariableReference.getSlot(params.get(0), info), value);
     return value;
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != NUM_PARAMS || !(getChildAt(0) instanceof ASTNamed)) {
+      return super.compile();
+    }
+    ASTNode variable = getChildAt(0);
+    String name = ((ASTNamed) variable).getName();
+    CompiledNode expression = getChildAt(1).compile();
+    return info -> {
+      setIdentifier(name);
+      double value = expression.run(info);
+      info.setVariable(VariableReference.getSlot(variable, info), value);
+      return value;
+    };
+  }
 }
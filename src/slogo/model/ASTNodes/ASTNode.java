@@ -67,6 +67,20 @@ public abstract class ASTNode implements Serializable {
     return children.get(idx);
   }
 
+  /**
+   * Replace the child node at index `idx`
+   */
+  void setChildAt(int idx, ASTNode newChild) {
+    children.set(idx, newChild);
+  }
+
+  /**
+   * Replace every child of this node
+   */
+  void setChildren(List<ASTNode> newChildren) {
+    children = new ArrayList<>(newChildren);
+  }
+
   /**
    * Get current number of children of this node
    */
@@ -85,6 +99,53 @@ public abstract class ASTNode implements Serializable {
     return doEvaluate(info, children);
   }
 
+  /**
+   * Give every variable in this subtree its slot in the variable table of the bundle, so that it
+   * does not have to be looked up by name when evaluated. Nodes that refer to variables override
+   * this method.
+   */
+  public void resolveVariables(InfoBundle info) {
+    for (ASTNode child : children) {
+      child.resolveVariables(info);
+    }
+  }
+
+  /**
+   * Mark the calls to user-defined commands that are the last thing this node does, when it is
+   * itself the last thing the body of a user-defined command does. Only nodes that return the value
+   * of one of their children as their own override this method.
+   */
+  public void markTailCalls() {
+  }
+
+  /**
+   * Check whether the value of this node depends only on the values of its children, and evaluating
+   * it has no other effect. Pure nodes whose children are all literals can be replaced by their
+   * value before the command runs.
+   */
+  public boolean isPure() {
+    return false;
+  }
+
+  /**
+   * Turn this subtree into closures that give the same result as evaluating it. Nodes that do not
+   * override this method, or that cannot be compiled as they are, run through the tree walker.
+   */
+  public CompiledNode compile() {
+    return this::evaluate;
+  }
+
+  /**
+   * Compile every child of this node
+   */
+  protected CompiledNode[] compileChildren() {
+    CompiledNode[] compiled = new CompiledNode[children.size()];
+    for (int i = 0; i < compiled.length; ++i) {
+      compiled[i] = children.get(i).compile();
+    }
+    return compiled;
+  }
+
   /**
    * Subclass can override this method to do things before actual evaluation. For example, commands
    * can check if the number of parameters is correct here.
@@ -29,6 +29,17 @@ public class ASTNumberLiteral extends ASTNode {
     return this.value;
   }
 
+  @Override
+  public boolean isPure() {
+    return true;
+  }
+
+  @Override
+  public CompiledNode compile() {
+    double constant = value;
+    return info -> constant;
+  }
+
   @Override
   public boolean isDone() {
     return true;
@@ -0,0 +1,109 @@
+package slogo.model.ASTNodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simplifies a parsed tree before it is evaluated, so that work which gives the same result every
+ * time is only done once.
+ * <p>
+ * This class assumes that a node which reports itself as pure only reads the values of its
+ * children. Such a node is replaced by a literal of its value once all of its children are
+ * literals. An if or ifelse whose predicate became a literal is replaced by the branch that would
+ * run, and compound statements nested in another compound statement are merged into it. Random
+ * numbers, variables and anything that reads or moves turtles are never pure, so they are kept.
+ * <p>
+ * This class depends on the ASTNodes package only
+ * <p>
+ * The parser runs the optimizer on every command it builds, unless optimizing has been turned off.
+ * The tree is changed in place, so that user-defined commands declared in it keep their bodies.
+ *
+ * @see ASTNode#isPure()
+ */
+public class ASTOptimizer {
+
+  private static final int PREDICATE = 0;
+  private static final int THEN_BRANCH = 1;
+  private static final int ELSE_BRANCH = 2;
+
+  /**
+   * Simplify a tree
+   *
+   * @param node The root of the tree
+   * @return The node that should be evaluated in place of the root
+   */
+  public ASTNode optimize(ASTNode node) {
+    for (int i = 0; i < node.getNumChildren(); ++i) {
+      node.setChildAt(i, optimize(node.getChildAt(i)));
+    }
+
+    if (node instanceof ASTCompoundStatement) {
+      flatten(node);
+      return node;
+    }
+    if (node instanceof ASTIf || node instanceof ASTIfElse) {
+      return removeDeadBranch(node);
+    }
+    return fold(node);
+  }
+
+  private ASTNode fold(ASTNode node) {
+    if (!node.isPure() || node instanceof ASTNumberLiteral) {
+      return node;
+    }
+    for (ASTNode child : node.getChildren()) {
+      if (!(child instanceof ASTNumberLiteral)) {
+        return node;
+      }
+    }
+
+    try {
+      // a pure node whose children are all literals never looks at the bundle
+      return new ASTNumberLiteral(node.evaluate(null));
+    } catch (RuntimeException e) {
+      // leave it for the evaluation to report, with the command it happened in
+      return node;
+    }
+  }
+
+  private ASTNode removeDeadBranch(ASTNode node) {
+    if (node.getNumChildren() != node.getNumParams()
+        || !(node.getChildAt(PREDICATE) instanceof ASTNumberLiteral)) {
+      return node;
+    }
+
+    boolean holds = ((ASTNumberLiteral) node.getChildAt(PREDICATE)).getValue() != 0;
+    if (holds) {
+      return node.getChildAt(THEN_BRANCH);
+    }
+    if (node instanceof ASTIfElse) {
+      return node.getChildAt(ELSE_BRANCH);
+    }
+    return new ASTNumberLiteral(0);
+  }
+
+  private void flatten(ASTNode node) {
+    boolean nested = false;
+    for (ASTNode child : node.getChildren()) {
+      nested |= isMergeable(child);
+    }
+    if (!nested) {
+      return;
+    }
+
+    List<ASTNode> statements = new ArrayList<>();
+    for (ASTNode child : node.getChildren()) {
+      if (isMergeable(child)) {
+        statements.addAll(child.getChildren());
+      } else {
+        statements.add(child);
+      }
+    }
+    node.setChildren(statements);
+  }
+
+  private boolean isMergeable(ASTNode child) {
+    // an empty statement still gives the value 0, so it is kept
+    return child instanceof ASTCompoundStatement && child.getNumChildren() > 0;
+  }
+}
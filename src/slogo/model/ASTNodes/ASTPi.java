@@ -16,4 +16,9 @@ public class ASTPi extends ASTCommand {
   protected double doEvaluate(InfoBundle info, List<ASTNode> params) {
     return Math.PI;
   }
+
+  @Override
+  public boolean isPure() {
+    return true;
+  }
 }
@@ -16,4 +16,9 @@ public class ASTRandom extends ASTUnaryOperator {
   protected double calculate(double ret1) {
     return rand.nextInt((int) Math.ceil(ret1));
   }
+
+  @Override
+  public boolean isPure() {
+    return false;
+  }
 }
@@ -33,4 +33,19 @@ public abstract class ASTReducibleBinaryOperator extends ASTBinaryOperator {
     }
     return ret;
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() <= 2) {
+      return super.compile();
+    }
+    CompiledNode[] operands = compileChildren();
+    return info -> {
+      double ret = calculate(operands[0].run(info), operands[1].run(info));
+      for (int i = 2; i < operands.length; ++i) {
+        ret = calculate(ret, operands[i].run(info));
+      }
+      return ret;
+    };
+  }
 }
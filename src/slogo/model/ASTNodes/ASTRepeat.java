@@ -16,23 +16,58 @@ public class ASTRepeat extends ASTCommand {
   private static final String NAME = "Repeat";
   private static final String REPCOUNT_NAME = ":repcount";
 
+  private final VariableReference repcount = new VariableReference(REPCOUNT_NAME);
+  private transient HotCode hotBody;
+
   public ASTRepeat() {
     super(NAME, NUM_PARAMS);
   }
 
+  @Override
+  public void resolveVariables(InfoBundle info) {
+    repcount.getSlot(info);
+    super.resolveVariables(info);
+  }
+
   @Override
   protected double doEvaluate(InfoBundle info, List<ASTNode> params) {
     double ret = 0.0;
     int count = (int) params.get(0).evaluate(info);
-    ASTNumberLiteral variable = new ASTNumberLiteral(1.0);
+    int slot = repcount.getSlot(info);
+    HotCode body = getBody(params.get(1));
     for (int i = 0; i < count; ++i) {
       // `:repcount` value is set in the lookup table as a variable
-      variable.setValue(i + 1); // repcount starts at 1
-      info.setVariable(REPCOUNT_NAME, variable);
+      info.setVariable(slot, i + 1); // repcount starts at 1
 
-      ret = params.get(1).evaluate(info);
+      ret = body.evaluate(info);
     }
 
     return ret;
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != NUM_PARAMS) {
+      return super.compile();
+    }
+    CompiledNode countNode = getChildAt(0).compile();
+    CompiledNode bodyNode = getChildAt(1).compile();
+    return info -> {
+      double ret = 0.0;
+      int count = (int) countNode.run(info);
+      int slot = repcount.getSlot(info);
+      for (int i = 0; i < count; ++i) {
+        info.setVariable(slot, i + 1);
+        ret = bodyNode.run(info);
+      }
+      return ret;
+    };
+  }
+
+  private HotCode getBody(ASTNode node) {
+    if (hotBody == null || hotBody.getNode() != node) {
+      hotBody = new HotCode(node);
+    }
+    return hotBody;
+  }
 }
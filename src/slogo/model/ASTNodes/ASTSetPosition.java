@@ -1,6 +1,5 @@
 package slogo.model.ASTNodes;
 
-import java.util.List;
 import slogo.model.InfoBundle;
 import slogo.model.Turtle;
 import slogo.model.Vec2D;
@@ -15,10 +14,15 @@ public class ASTSetPosition extends ASTTurtleCommand {
   }
 
   @Override
-  protected double evaluateForTurtle(Turtle turtle, List<Double> parameters,
+  protected boolean touchesOnlyTurtle() {
+    return true;
+  }
+
+  @Override
+  protected double evaluateForTurtle(Turtle turtle, double[] parameters,
       InfoBundle info) {
-    double x = parameters.get(0);
-    double y = parameters.get(1);
+    double x = parameters[0];
+    double y = parameters[1];
     Vec2D src = new Vec2D(turtle.getX(), turtle.getY());
 
     turtle.setPosition(x, y);
@@ -1,6 +1,5 @@
 package slogo.model.ASTNodes;
 
-import java.util.List;
 import slogo.model.InfoBundle;
 import slogo.model.Turtle;
 
@@ -14,9 +13,14 @@ public class ASTSetTowards extends ASTTurtleCommand {
   }
 
   @Override
-  protected double evaluateForTurtle(Turtle turtle, List<Double> parameters, InfoBundle info) {
-    double x = parameters.get(0);
-    double y = parameters.get(1);
+  protected boolean touchesOnlyTurtle() {
+    return true;
+  }
+
+  @Override
+  protected double evaluateForTurtle(Turtle turtle, double[] parameters, InfoBundle info) {
+    double x = parameters[0];
+    double y = parameters[1];
 
     double tan = x / y;
     double deg = Math.toDegrees(Math.atan(tan));
@@ -1,14 +1,17 @@
 package slogo.model.ASTNodes;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.stream.IntStream;
 import slogo.model.InfoBundle;
 import slogo.model.Turtle;
 
 /**
  * Base class for commands that applies effects on the turtle(s)
  * <p>
- * The evaluation is done repeatedly on all active turtles
+ * The evaluation is done repeatedly on all active turtles. Commands that only change the turtle
+ * they are evaluated for can be applied to many turtles in parallel, after which the turtles send
+ * their updates one at a time in the order they are active, as if they had been run one by one.
  *
  * @author Jiyang Tang
  */
@@ -20,20 +23,90 @@ public abstract class ASTTurtleCommand extends ASTGroupableCommand {
 
   @Override
   protected final double doEvaluate(InfoBundle info, List<ASTNode> params) {
-    ArrayList<Double> _params = new ArrayList<>();
-    for (int i = 0; i < getNumParams(); ++i) {
-      _params.add(params.get(i).evaluate(info));
+    double[] _params = new double[getNumParams()];
+    for (int i = 0; i < _params.length; ++i) {
+      _params[i] = params.get(i).evaluate(info);
     }
+    return evaluateForTurtles(_params, info);
+  }
 
-    double ret = 0;
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != getNumParams()) {
+      return super.compile();
+    }
+    CompiledNode[] arguments = compileChildren();
+    return info -> {
+      double[] values = new double[arguments.length];
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = arguments[i].run(info);
+      }
+      return evaluateForTurtles(values, info);
+    };
+  }
+
+  /**
+   * Check whether evaluating this command for a turtle only reads its parameters and reads or
+   * changes that turtle, so that it can be evaluated for different turtles at the same time.
+   */
+  protected boolean touchesOnlyTurtle() {
+    return false;
+  }
+
+  private double evaluateForTurtles(double[] parameters, InfoBundle info) {
     List<Turtle> turtles = info.getActiveTurtles();
-    for (Turtle t : turtles) {
+    int threshold = info.getParallelThreshold();
+    if (touchesOnlyTurtle() && threshold > 0 && turtles.size() >= threshold
+        && isEachTurtleOnce(turtles)) {
+      return evaluateInParallel(turtles, parameters, info);
+    }
+
+    double ret = 0;
+    for (int i = 0; i < turtles.size(); ++i) {
+      Turtle t = turtles.get(i);
       info.setMainTurtle(t.getId());
-      ret = evaluateForTurtle(t, _params, info);
+      ret = evaluateForTurtle(t, parameters, info);
     }
     return ret;
   }
 
-  protected abstract double evaluateForTurtle(Turtle turtle, List<Double> parameters,
+  private double evaluateInParallel(List<Turtle> turtles, double[] parameters, InfoBundle info) {
+    double[] values = new double[turtles.size()];
+    try {
+      IntStream.range(0, values.length).parallel().forEach(i -> {
+        Turtle t = turtles.get(i);
+        t.holdUpdates();
+        values[i] = evaluateForTurtle(t, parameters, info);
+      });
+    } finally {
+      for (Turtle t : turtles) {
+        t.releaseUpdates();
+      }
+    }
+
+    info.setMainTurtle(turtles.get(values.length - 1).getId());
+    return values[values.length - 1];
+  }
+
+  /**
+   * A turtle that is told more than once has to be moved by one thread, in order
+   */
+  private boolean isEachTurtleOnce(List<Turtle> turtles) {
+    BitSet seen = new BitSet();
+    for (int i = 0; i < turtles.size(); ++i) {
+      int id = turtles.get(i).getId();
+      if (seen.get(id)) {
+        return false;
+      }
+      seen.set(id);
+    }
+    return true;
+  }
+
+  /**
+   * Evaluate the command for one turtle. The parameters are shared by every turtle the command is
+   * evaluated for, so they must not be changed.
+   */
+  protected abstract double evaluateForTurtle(Turtle turtle, double[] parameters,
       InfoBundle info);
 }
@@ -16,8 +16,22 @@ public abstract class ASTUnaryOperator extends ASTGroupableCommand {
 
   protected abstract double calculate(double ret1);
 
+  @Override
+  public boolean isPure() {
+    return true;
+  }
+
   @Override
   protected double doEvaluate(InfoBundle info, List<ASTNode> params) {
     return calculate(params.get(0).evaluate(info));
   }
+
+  @Override
+  public CompiledNode compile() {
+    if (getNumChildren() != 1) {
+      return super.compile();
+    }
+    CompiledNode operand = getChildAt(0).compile();
+    return info -> calculate(operand.run(info));
+  }
 }
@@ -13,20 +13,46 @@ import slogo.model.InfoBundle;
  */
 public class ASTVariable extends ASTNamed {
 
+  private final VariableReference reference;
+
   public ASTVariable(String name) {
     super(name);
+    reference = new VariableReference(name);
+  }
+
+  /**
+   * Get the slot of this variable in the variable table of the bundle
+   */
+  public int getSlot(InfoBundle info) {
+    return reference.getSlot(info);
+  }
+
+  @Override
+  public void resolveVariables(InfoBundle info) {
+    reference.getSlot(info);
   }
 
   @Override
   public double doEvaluate(InfoBundle info, List<ASTNode> params)
       throws UnknownIdentifierException {
-    ASTNumberLiteral referred = info.getVariable(getName());
-    if (referred == null) { // default to 0
-      ASTNumberLiteral value = new ASTNumberLiteral(0);
-      info.setVariable(getName(), value);
+    int slot = reference.getSlot(info);
+    if (!info.isVariableDefined(slot)) { // default to 0
+      info.setVariable(slot, 0);
       return 0;
     }
-    return referred.evaluate(info);
+    return info.getVariable(slot);
+  }
+
+  @Override
+  public CompiledNode compile() {
+    return info -> {
+      int slot = reference.getSlot(info);
+      if (!info.isVariableDefined(slot)) {
+        info.setVariable(slot, 0);
+        return 0;
+      }
+      return info.getVariable(slot);
+    };
   }
 
   @Override
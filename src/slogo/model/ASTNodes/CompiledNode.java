@@ -0,0 +1,23 @@
+package slogo.model.ASTNodes;
+
+import slogo.model.InfoBundle;
+
+/**
+ * A subtree turned into nested closures, so that running it again does not walk the tree.
+ * <p>
+ * Compiled nodes read their children's values directly instead of going through {@link
+ * ASTNode#evaluate(InfoBundle)}, parameter lists and count checks. A node that cannot be compiled
+ * is wrapped as is and runs through the tree walker.
+ *
+ * @see ASTNode#compile()
+ */
+@FunctionalInterface
+public interface CompiledNode {
+
+  /**
+   * Run the compiled subtree
+   *
+   * @return The same value evaluating the subtree would return
+   */
+  double run(InfoBundle info);
+}
@@ -0,0 +1,44 @@
+package slogo.model.ASTNodes;
+
+import java.io.Serializable;
+import slogo.model.InfoBundle;
+
+/**
+ * Counts how many times a subtree is evaluated and compiles it once the count reaches the compile
+ * threshold of the bundle, after which it always runs the compiled version.
+ * <p>
+ * Used for the bodies of user-defined commands and loops, which are the only subtrees that run
+ * more than once per command.
+ */
+class HotCode implements Serializable {
+
+  private final ASTNode node;
+  private transient int runs;
+  private transient CompiledNode compiled;
+
+  HotCode(ASTNode node) {
+    this.node = node;
+  }
+
+  /**
+   * Get the subtree being counted
+   */
+  ASTNode getNode() {
+    return node;
+  }
+
+  /**
+   * Evaluate the subtree, compiling it first if it has now run often enough
+   */
+  double evaluate(InfoBundle info) {
+    if (compiled != null) {
+      return compiled.run(info);
+    }
+    int threshold = info.getCompileThreshold();
+    if (threshold > 0 && ++runs >= threshold) {
+      compiled = node.compile();
+      return compiled.run(info);
+    }
+    return node.evaluate(info);
+  }
+}
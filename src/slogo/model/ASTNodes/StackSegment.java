@@ -0,0 +1,77 @@
+package slogo.model.ASTNodes;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Runs part of an evaluation on a worker thread with a deep stack, so that deep recursion is not
+ * limited by the stack of the thread that started the command.
+ * <p>
+ * The calling thread waits until the segment is done, so only one thread evaluates at any time and
+ * the segment sees everything the caller did before it started. A segment runs {@link
+ * #CALLS_PER_SEGMENT} nested calls, so a recursion a million calls deep, which a batch run can
+ * allow, uses about four segments. A nested call takes about half a kilobyte of stack once it is compiled and
+ * less than two while it is interpreted, so a segment's stack only has room to spare. The stack is
+ * reserved when the worker starts but only takes memory as deep as it has been used, and workers
+ * are reused by later segments and stop once they have been idle for a while, which gives that
+ * memory back.
+ */
+class StackSegment {
+
+  /**
+   * The number of nested calls run on one segment
+   */
+  static final int CALLS_PER_SEGMENT = 1 << 18;
+  // the stack of the thread that started the command may be small, so it only runs a few calls
+  private static final int CALLS_ON_CALLER = 512;
+  private static final long STACK_SIZE = 2048L * CALLS_PER_SEGMENT;
+  private static final long IDLE_SECONDS = 5;
+  private static final String NAME = "slogo-stack-segment";
+
+  private static final ExecutorService WORKERS = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+      IDLE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), task -> {
+    Thread thread = new Thread(null, task, NAME, STACK_SIZE);
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Check if a call made at the given depth should start a new segment
+   */
+  static boolean startsSegment(int depth) {
+    return depth >= CALLS_ON_CALLER && (depth - CALLS_ON_CALLER) % CALLS_PER_SEGMENT == 0;
+  }
+
+  /**
+   * Run the task on a segment and return its value, rethrowing anything it throws
+   */
+  static double run(DoubleSupplier task) {
+    Future<Double> segment = WORKERS.submit(task::getAsDouble);
+
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return segment.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable failure = e.getCause();
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      throw (Error) failure;
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package slogo.model.ASTNodes;
+
+/**
+ * A call to a user-defined command that was made as the last thing its caller does. Instead of
+ * nesting it, the running call finishes and then continues with this one in the same frame.
+ *
+ * @param function  the function to call
+ * @param arguments the values of the actual parameters
+ */
+public record TailCall(ASTFunctionCall function, double[] arguments) {
+
+}
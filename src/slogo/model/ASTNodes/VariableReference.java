@@ -0,0 +1,47 @@
+package slogo.model.ASTNodes;
+
+import java.io.Serializable;
+import slogo.model.InfoBundle;
+import slogo.model.VariableSlots;
+
+/**
+ * Remembers the slot of a variable name, so that it is only looked up by name the first time it is
+ * used with a variable table.
+ * <p>
+ * The slot is found again whenever the node is evaluated with a bundle that uses another table, for
+ * example after loading a saved environment.
+ *
+ * @see VariableSlots
+ */
+class VariableReference implements Serializable {
+
+  private final String name;
+  private transient VariableSlots slots;
+  private transient int slot;
+
+  VariableReference(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Get the slot of the variable in the table used by the bundle
+   */
+  int getSlot(InfoBundle info) {
+    VariableSlots current = info.getVariableSlots();
+    if (current != slots) {
+      slot = info.getVariableSlot(name);
+      slots = current;
+    }
+    return slot;
+  }
+
+  /**
+   * Get the slot of the variable a node is named after, using the cached slot if it is a variable
+   */
+  static int getSlot(ASTNode node, InfoBundle info) {
+    if (node instanceof ASTVariable) {
+      return ((ASTVariable) node).getSlot(info);
+    }
+    return info.getVariableSlot(((ASTNamed) node).getName());
+  }
+}
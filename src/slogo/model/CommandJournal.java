@@ -0,0 +1,372 @@
+package slogo.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import slogo.exceptions.ModelException;
+import slogo.records.DisplayVariable;
+import slogo.records.EnvironmentRecord;
+import slogo.records.TurtleRecord;
+
+/**
+ * An append-only file of everything that changed an environment, so that a session can be brought
+ * back after a crash by running it again.
+ * <p>
+ * This class assumes that running the same entries on a new environment brings it to the same
+ * state. Commands that use random numbers do not, so they are only as close as the last checkpoint.
+ * Every so often the environment is saved as an {@link EnvironmentSnapshot} next to the journal and
+ * a checkpoint entry naming it is appended, so only the entries after the last checkpoint have to
+ * be run again. A checkpoint file is written before the entry that names it and the one before it
+ * is only deleted after, so a crash at any point leaves a checkpoint that matches the journal.
+ * <p>
+ * The journal starts with a header of 8 bytes: the magic number "SLGJ" and the version of the format
+ * as a short. Each entry is an int length followed by a byte for its type and its fields. Entries
+ * are written into a part of the file mapped in memory, so appending one does not call the system,
+ * and a process that crashes still leaves them in the file. The length of an entry is written after
+ * its fields, so an entry cut short has a length of 0 and ends the journal. Entries are only forced
+ * to the disk at checkpoints and when the journal is closed.
+ * <p>
+ * This class depends on Java's nio package, the snapshot class and the records package
+ * <p>
+ * <pre>
+ *   CommandJournal journal = CommandJournal.open(path);
+ *   journal.replay(handler);
+ *   journal.appendCommand("fd 50");
+ * </pre>
+ */
+public class CommandJournal implements Closeable {
+
+  /**
+   * The first four bytes of every journal
+   */
+  public static final int MAGIC = 0x534C474A;
+  /**
+   * The version of the format written by this class
+   */
+  public static final short VERSION = 1;
+  private static final int HEADER_BYTES = 8;
+  private static final int REGION_BYTES = 1 << 20;
+  private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final int ENTRY_HEADER_BYTES = Integer.BYTES + 1;
+
+  private static final byte COMMAND = 1;
+  private static final byte LANGUAGE = 2;
+  private static final byte ADD_TURTLE = 3;
+  private static final byte MAIN_TURTLE = 4;
+  private static final byte CURRENT_TURTLES = 5;
+  private static final byte TURTLE_REQUEST = 6;
+  private static final byte VARIABLE_REQUEST = 7;
+  private static final byte ENVIRONMENT_REQUEST = 8;
+  private static final byte CHECKPOINT = 9;
+
+  /**
+   * What an environment does with each kind of entry when the journal is run again
+   */
+  public interface Handler {
+
+    void runCommand(String command);
+
+    void setLanguage(String language);
+
+    void addTurtle();
+
+    void setCurrTurtle(int turtle);
+
+    void setCurrTurtle(List<Integer> turtles);
+
+    void requestTurtleUpdate(TurtleRecord record);
+
+    void requestVarUpdate(DisplayVariable variable);
+
+    void requestEnvUpdate(EnvironmentRecord record);
+  }
+
+  private final Path path;
+  private final FileChannel channel;
+  private MappedByteBuffer region;
+  private long regionStart;
+  private long end;
+  private long tailStart;
+  private long checkpoint = 0;
+  private int entriesSinceCheckpoint = 0;
+
+  private CommandJournal(Path path, FileChannel channel) {
+    this.path = path;
+    this.channel = channel;
+  }
+
+  /**
+   * Open a journal, creating it if it does not exist. Appended entries go after the last complete
+   * entry.
+   *
+   * @param path the journal file
+   * @return the journal
+   * @throws IOException if the file is not a journal or was written by a newer version
+   */
+  public static CommandJournal open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    CommandJournal journal = new CommandJournal(path, channel);
+    try {
+      journal.scan();
+      // anything after the last complete entry was cut short, and must not be read as an entry
+      channel.truncate(journal.end);
+      journal.map(REGION_BYTES);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return journal;
+  }
+
+  private void scan() throws IOException {
+    long size = channel.size();
+    if (size == 0) {
+      channel.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putShort(VERSION).flip(), 0);
+      end = HEADER_BYTES;
+      tailStart = end;
+      return;
+    }
+
+    MappedByteBuffer file = channel.map(MapMode.READ_ONLY, 0, size);
+    if (size < HEADER_BYTES || file.getInt(0) != MAGIC) {
+      throw new IOException(path + " is not a journal");
+    }
+    short version = file.getShort(Integer.BYTES);
+    if (version > VERSION) {
+      throw new IOException(path + " was written with a newer version " + version);
+    }
+
+    int position = HEADER_BYTES;
+    tailStart = position;
+    while (position + Integer.BYTES <= size) {
+      int length = file.getInt(position);
+      if (length <= 0 || position + Integer.BYTES + length > size) {
+        break;
+      }
+      int next = position + Integer.BYTES + length;
+      if (file.get(position + Integer.BYTES) == CHECKPOINT) {
+        checkpoint = file.getLong(position + ENTRY_HEADER_BYTES);
+        tailStart = next;
+        entriesSinceCheckpoint = 0;
+      } else {
+        entriesSinceCheckpoint++;
+      }
+      position = next;
+    }
+    end = position;
+  }
+
+  private void map(int bytes) throws IOException {
+    regionStart = end;
+    region = channel.map(MapMode.READ_WRITE, regionStart, Math.max(REGION_BYTES, bytes));
+  }
+
+  /**
+   * Run every entry after the last checkpoint
+   *
+   * @param handler what to do with each entry
+   * @return the number of entries run
+   */
+  public int replay(Handler handler) throws IOException {
+    if (end == tailStart) {
+      return 0;
+    }
+    MappedByteBuffer tail = channel.map(MapMode.READ_ONLY, tailStart, end - tailStart);
+    int entries = 0;
+    while (tail.hasRemaining()) {
+      int next = tail.position() + Integer.BYTES + tail.getInt();
+      byte type = tail.get();
+      try {
+        run(type, tail, handler);
+      } catch (ModelException e) {
+        // an entry that no longer runs is skipped, so the ones after it are still recovered
+      }
+      tail.position(next);
+      entries++;
+    }
+    return entries;
+  }
+
+  private void run(byte type, ByteBuffer tail, Handler handler) {
+    switch (type) {
+      case COMMAND -> handler.runCommand(EnvironmentSnapshot.getString(tail));
+      case LANGUAGE -> handler.setLanguage(EnvironmentSnapshot.getString(tail));
+      case ADD_TURTLE -> handler.addTurtle();
+      case MAIN_TURTLE -> handler.setCurrTurtle(tail.getInt());
+      case CURRENT_TURTLES -> handler.setCurrTurtle(getInts(tail));
+      case TURTLE_REQUEST -> handler.requestTurtleUpdate(new TurtleRecord(tail.getInt(),
+          tail.getDouble(), tail.getDouble(), tail.getDouble(), tail.get() != 0,
+          tail.get() != 0));
+      case VARIABLE_REQUEST -> handler.requestVarUpdate(new DisplayVariable(
+          EnvironmentSnapshot.getString(tail), EnvironmentSnapshot.getString(tail)));
+      case ENVIRONMENT_REQUEST -> handler.requestEnvUpdate(
+          EnvironmentSnapshot.getEnvironment(tail));
+      default -> {
+        // entries of a newer version are skipped
+      }
+    }
+  }
+
+  public void appendCommand(String command) throws IOException {
+    append(entry(COMMAND, EnvironmentSnapshot.stringSize(command), buffer ->
+        EnvironmentSnapshot.putString(buffer, command)));
+  }
+
+  public void appendLanguage(String language) throws IOException {
+    append(entry(LANGUAGE, EnvironmentSnapshot.stringSize(language), buffer ->
+        EnvironmentSnapshot.putString(buffer, language)));
+  }
+
+  public void appendAddTurtle() throws IOException {
+    append(entry(ADD_TURTLE, 0, buffer -> {
+    }));
+  }
+
+  public void appendMainTurtle(int turtle) throws IOException {
+    append(entry(MAIN_TURTLE, Integer.BYTES, buffer -> buffer.putInt(turtle)));
+  }
+
+  public void appendCurrentTurtles(List<Integer> turtles) throws IOException {
+    append(entry(CURRENT_TURTLES, Integer.BYTES * (turtles.size() + 1),
+        buffer -> putInts(buffer, turtles)));
+  }
+
+  public void appendTurtleRequest(TurtleRecord record) throws IOException {
+    append(entry(TURTLE_REQUEST, Integer.BYTES + Double.BYTES * 3 + 2, buffer -> buffer
+        .putInt(record.id())
+        .putDouble(record.xCoord())
+        .putDouble(record.yCoord())
+        .putDouble(record.rotation())
+        .put((byte) (record.visible() ? 1 : 0))
+        .put((byte) (record.penDown() ? 1 : 0))));
+  }
+
+  public void appendVariableRequest(DisplayVariable variable) throws IOException {
+    append(entry(VARIABLE_REQUEST,
+        EnvironmentSnapshot.stringSize(variable.name())
+            + EnvironmentSnapshot.stringSize(variable.value()), buffer -> {
+          EnvironmentSnapshot.putString(buffer, variable.name());
+          EnvironmentSnapshot.putString(buffer, variable.value());
+        }));
+  }
+
+  public void appendEnvironmentRequest(EnvironmentRecord record) throws IOException {
+    append(entry(ENVIRONMENT_REQUEST, EnvironmentSnapshot.environmentSize(record),
+        buffer -> EnvironmentSnapshot.putEnvironment(buffer, record)));
+  }
+
+  /**
+   * Save a snapshot next to the journal and append a checkpoint naming it, so entries before it
+   * are not run again
+   *
+   * @param snapshot the state of the environment after the last entry
+   */
+  public void checkpoint(EnvironmentSnapshot snapshot) throws IOException {
+    long next = checkpoint + 1;
+    Path temporary = path.resolveSibling(checkpointPath(next).getFileName() + TEMPORARY_SUFFIX);
+    snapshot.write(temporary, false);
+    Files.move(temporary, checkpointPath(next), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    append(entry(CHECKPOINT, Long.BYTES, buffer -> buffer.putLong(next)));
+    region.force();
+    if (checkpoint > 0) {
+      Files.deleteIfExists(checkpointPath(checkpoint));
+    }
+    checkpoint = next;
+    tailStart = end;
+    entriesSinceCheckpoint = 0;
+  }
+
+  /**
+   * Get the snapshot of the last checkpoint
+   *
+   * @return the snapshot file, or null if there has been no checkpoint
+   */
+  public Path getCheckpoint() {
+    return checkpoint == 0 ? null : checkpointPath(checkpoint);
+  }
+
+  /**
+   * Get the number of entries appended since the last checkpoint
+   */
+  public int getEntriesSinceCheckpoint() {
+    return entriesSinceCheckpoint;
+  }
+
+  private Path checkpointPath(long sequence) {
+    return path.resolveSibling(path.getFileName() + "." + sequence + CHECKPOINT_SUFFIX);
+  }
+
+  /**
+   * Write the fields of an entry
+   */
+  private interface EntryWriter {
+
+    void write(ByteBuffer buffer);
+  }
+
+  private ByteBuffer entry(byte type, int size, EntryWriter writer) {
+    ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_BYTES + size);
+    entry.putInt(0).put(type);
+    writer.write(entry);
+    return entry.flip();
+  }
+
+  private void append(ByteBuffer entry) throws IOException {
+    int length = entry.remaining() - Integer.BYTES;
+    // room for the entry and the length of 0 that ends the journal
+    int needed = entry.remaining() + Integer.BYTES;
+    if (end - regionStart + needed > region.capacity()) {
+      map(needed);
+    }
+    int at = (int) (end - regionStart);
+    // an absolute put of one buffer into another needs Java 16, so a copy of the region is moved
+    ByteBuffer target = region.duplicate();
+    target.position(at + Integer.BYTES);
+    target.put(entry.slice(Integer.BYTES, length));
+    region.putInt(at, length);
+    end += Integer.BYTES + length;
+    if (entry.get(Integer.BYTES) != CHECKPOINT) {
+      entriesSinceCheckpoint++;
+    }
+  }
+
+  private static void putInts(ByteBuffer buffer, List<Integer> values) {
+    buffer.putInt(values.size());
+    for (int value : values) {
+      buffer.putInt(value);
+    }
+  }
+
+  private static List<Integer> getInts(ByteBuffer buffer) {
+    List<Integer> values = new ArrayList<>();
+    for (int i = buffer.getInt(); i > 0; i--) {
+      values.add(buffer.getInt());
+    }
+    return values;
+  }
+
+  /**
+   * Force the entries to the disk and cut the file after the last one
+   */
+  @Override
+  public void close() throws IOException {
+    region.force();
+    region = null;
+    try (channel) {
+      channel.truncate(end);
+    }
+  }
+}
@@ -1,15 +1,16 @@
 package slogo.model;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import slogo.exceptions.NestingTooDeepException;
+import slogo.exceptions.NotASavedEnvironmentException;
+import slogo.model.ASTNodes.ASTCompoundStatement;
 import slogo.model.ASTNodes.ASTNode;
 import slogo.model.notifiers.EnvironmentNotifier;
 import slogo.model.notifiers.ModelTracker;
@@ -17,6 +18,12 @@ import slogo.model.notifiers.Delegate;
 import slogo.model.notifiers.TurtleNotifier;
 import slogo.model.parser.Parser;
 import slogo.model.parser.ProgramParser;
+import slogo.records.CommandSource;
+import slogo.records.DisplayVariable;
+import slogo.records.EnvironmentRecord;
+import slogo.records.RunRecord;
+import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
 
 /**
  * This class is the container for the model. It implements an interface that allows the view to
@@ -30,16 +37,23 @@ import slogo.model.parser.ProgramParser;
  * This class would be created using its constructor, then a tracker can be created to set listeners
  * and calling listeners from the model. The parent class can then call runCommand to run a command
  * string.
+ * <p>
+ * An environment is saved as an {@link EnvironmentSnapshot}, which keeps its user-defined commands as
+ * the text they were defined with. Files saved with Java serialization are not loaded. A session
+ * can also be kept in a {@link CommandJournal}, which every command that runs and every change the
+ * view asks for is appended to, so it can be recovered after a crash. Every line the turtles draw
+ * is kept in a {@link SegmentLog}, which is saved with the environment.
  *
  * @author Oliver Rodas, Jiyang Tang, Joshua Petitma
  */
-public class Environment implements TrackableEnvironment, Serializable {
+public class Environment implements TrackableEnvironment, CommandJournal.Handler, Serializable {
 
-  private List<Turtle> turtles = new ArrayList<>();
+  private TurtleStore turtles = new TurtleStore();
   private List<Integer> currTurtles = new ArrayList<>();
 
   private transient Delegate delegate = new Delegate();
-  private transient TurtleNotifier turtleNotifier = delegate;
+  private transient TurtleUpdateBuffer turtleUpdates = new TurtleUpdateBuffer(delegate);
+  private transient TurtleNotifier turtleNotifier = turtleUpdates;
   private transient EnvironmentNotifier envNotifier = delegate;
 
   private ExecutionScope executionScope =
@@ -49,18 +63,119 @@ public class Environment implements TrackableEnvironment, Serializable {
       new ProgramParser(DEFAULT_LANG, executionScope);
 
   private static final String DEFAULT_LANG = "English";
+  private String language = DEFAULT_LANG;
+
+  private transient RunRecord lastRun = new RunRecord(0, 0, 0);
+  private transient CommandJournal journal;
+  private transient int checkpointInterval;
+  private transient SegmentLog segments = new SegmentLog();
 
   /**
    * Instantiates a new Environment.
    */
   public Environment() {
-    turtles.add(new Turtle(0, delegate));
+    turtles.add(new Turtle(0, turtleNotifier));
     currTurtles.add(0);
+    turtles.setSegments(segments);
+    executionScope.setSegments(segments);
+    delegate.onRequestEnvUpdate(this::requestEnvUpdate);
+    delegate.onRequestTurtleUpdate(this::requestTurtleUpdate);
+    delegate.onRequestVarUpdate(this::requestVarUpdate);
   }
 
   public void runCommand(String command) {
+    long start = System.nanoTime();
     ASTNode commandTree = myParser.parseCommand(command);
-    commandTree.evaluate(executionScope);
+    long parsed = System.nanoTime();
+    segments.mark(command);
+    ExecutionControl control = executionScope.getControl();
+    control.begin();
+    try {
+      commandTree.evaluate(executionScope);
+    } catch (StackOverflowError e) {
+      throw new NestingTooDeepException();
+    } finally {
+      executionScope.flushVariableUpdates();
+      turtleUpdates.flushTurtleUpdates();
+      // a program of one command is not wrapped in a list, so no checkpoint counted it
+      long commands = control.getCommandsRun()
+          + (commandTree instanceof ASTCompoundStatement ? 0 : 1);
+      lastRun = new RunRecord(parsed - start, System.nanoTime() - parsed, commands);
+    }
+    record(journal -> journal.appendCommand(command));
+  }
+
+  @Override
+  public RunRecord getLastRun() {
+    return lastRun;
+  }
+
+  @Override
+  public void setVariableUpdateInterval(long millis) {
+    executionScope.setVariableUpdateInterval(millis);
+  }
+
+  /**
+   * Set where the time the update intervals are measured with comes from, in nanoseconds
+   */
+  void setClock(LongSupplier clock) {
+    executionScope.setClock(clock);
+    turtleUpdates.setClock(clock);
+  }
+
+  @Override
+  public void setTurtleUpdateInterval(long millis) {
+    turtleUpdates.setInterval(millis);
+  }
+
+  @Override
+  public void setMaxTurtleUpdates(int maxUpdates) {
+    turtleUpdates.setMaxUpdates(maxUpdates);
+  }
+
+  @Override
+  public void setMaxCallDepth(int maxDepth) {
+    executionScope.setMaxCallDepth(maxDepth);
+  }
+
+  @Override
+  public void setCompileThreshold(int threshold) {
+    executionScope.setCompileThreshold(threshold);
+  }
+
+  @Override
+  public void setParallelThreshold(int threshold) {
+    executionScope.setParallelThreshold(threshold);
+  }
+
+  @Override
+  public void setOptimizing(boolean optimizing) {
+    myParser.setOptimizing(optimizing);
+  }
+
+  @Override
+  public void setParseCacheSize(int maxChars) {
+    myParser.getCache().setMaxChars(maxChars);
+  }
+
+  @Override
+  public void setMaxSteps(long maxSteps) {
+    executionScope.getControl().setMaxSteps(maxSteps);
+  }
+
+  @Override
+  public void cancel() {
+    executionScope.getControl().cancel();
+  }
+
+  @Override
+  public void pause() {
+    executionScope.getControl().pause();
+  }
+
+  @Override
+  public void resume() {
+    executionScope.getControl().resume();
   }
 
   public ModelTracker getTracker() {
@@ -69,15 +184,14 @@ public class Environment implements TrackableEnvironment, Serializable {
 
   @Override
   public void save(File saveLocation) {
+    save(saveLocation, false);
+  }
+
+  @Override
+  public void save(File saveLocation, boolean compress) {
     try {
-      saveLocation.createNewFile();
-      FileOutputStream fileOut = new FileOutputStream(saveLocation);
-      ObjectOutputStream out = new ObjectOutputStream(fileOut);
-      out.writeObject(this);
-      out.close();
-      fileOut.close();
-    } catch (FileNotFoundException e) {
-      System.out.printf("DEBUG: Saving Failed: The %s file was not found\n", saveLocation.getName());
+      EnvironmentSnapshot.capture(turtles, executionScope, language)
+          .write(saveLocation.toPath(), compress);
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -85,54 +199,218 @@ public class Environment implements TrackableEnvironment, Serializable {
 
   @Override
   public void load(File loadLocation) {
-    try {
-      FileInputStream fileIn = new FileInputStream(loadLocation);
-      ObjectInputStream in = new ObjectInputStream(fileIn);
-      Environment newEnv = (Environment) in.readObject();
-      in.close();
-      fileIn.close();
-      mergeWith(newEnv);
-    } catch (FileNotFoundException e) {
+    if (!loadLocation.exists()) {
       System.out.printf("DEBUG: Loading Failed: The %s file was not found\n", loadLocation.getName());
+      return;
+    }
+    try {
+      if (!EnvironmentSnapshot.isSnapshot(loadLocation.toPath())) {
+        throw new NotASavedEnvironmentException(loadLocation.getName());
+      }
+      apply(EnvironmentSnapshot.read(loadLocation.toPath()), false);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Override
+  public SegmentLog getSegments() {
+    return segments;
+  }
+
+  @Override
+  public void mapSegments(File segmentLocation) {
+    try {
+      segments.mapTo(segmentLocation.toPath());
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+
+  /**
+   * Add the commands, variables, turtles and lines of a snapshot. Each kind is sent to the view
+   * once, after all of it has been added.
+   *
+   * @param replace whether the turtles of the snapshot take the place of the ones with the same
+   *                index, with its pen and palette, instead of being added after them
+   */
+  private void apply(EnvironmentSnapshot snapshot, boolean replace) {
+    Map<String, Parser> parsers = new HashMap<>();
+    executionScope.holdCommandUpdates();
+    try {
+      for (CommandSource command : snapshot.getCommands()) {
+        // parsing a definition is enough to add the command
+        parsers.computeIfAbsent(command.language(),
+            language -> new ProgramParser(language, executionScope)).parseCommand(command.text());
+      }
+    } finally {
+      executionScope.flushCommandUpdates();
+    }
+
+    for (int i = 0; i < snapshot.getVariableCount(); i++) {
+      executionScope.setVariable(executionScope.getVariableSlot(snapshot.getVariableName(i)),
+          snapshot.getVariableValue(i));
+    }
+    executionScope.flushVariableUpdates();
+
+    int first = replace ? 0 : turtles.size();
+    for (int i = 0; i < snapshot.getTurtleCount(); i++) {
+      if (first + i == turtles.size()) {
+        turtles.add(new Turtle(turtles.size(), turtleNotifier));
+      }
+      Turtle turtle = turtles.get(first + i);
+      turtle.holdUpdates();
+      // the turtle is put where it was with its pen up, since that is not a line it drew
+      turtle.setPenDown(false);
+      turtle.setPosition(snapshot.getX(i), snapshot.getY(i));
+      turtle.setRotation(snapshot.getRotation(i));
+      turtle.setVisible(snapshot.isVisible(i));
+      turtle.releaseUpdates();
+      turtle.setPenDown(snapshot.isPenDown(i));
+    }
+    turtleUpdates.flushTurtleUpdates();
+
+    if (replace) {
+      segments.clear();
+    }
+    segments.mark(null);
+    snapshot.forEachSegment((x0, y0, x1, y1, rgb, width, turtle) ->
+        segments.add(x0, y0, x1, y1, rgb, width, first + turtle));
+
+    if (replace && snapshot.getEnvironment() != null) {
+      setLanguage(snapshot.getLanguage());
+      executionScope.setMainTurtle(snapshot.getMainTurtle());
+      executionScope.applyEnvRequest(snapshot.getEnvironment());
+    }
+  }
+
+  @Override
+  public void startJournal(File journalLocation, int checkpointInterval) {
+    stopJournal();
+    CommandJournal opened;
+    try {
+      opened = CommandJournal.open(journalLocation.toPath());
+    } catch (IOException e) {
+      e.printStackTrace();
+      return;
+    }
+
+    // the session is run again without the view, which is then sent where it ended
+    delegate.setMuted(true);
+    try {
+      if (opened.getCheckpoint() != null) {
+        apply(EnvironmentSnapshot.read(opened.getCheckpoint()), true);
+      }
+      opened.replay(this);
     } catch (IOException e) {
       e.printStackTrace();
-    } catch (ClassNotFoundException e) {
-      System.out.printf("DEBUG: Loading Failed: The %s file was not read correctly.\n", loadLocation.getName());
+    } finally {
+      delegate.setMuted(false);
     }
+    journal = opened;
+    this.checkpointInterval = checkpointInterval;
+    sendState();
   }
 
-  private void mergeWith(Environment newEnv) {
-    for (var entry : newEnv.executionScope.getCommands()) {
-      executionScope.setCommand(entry.getKey(), entry.getValue());
+  @Override
+  public void stopJournal() {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.close();
+    } catch (IOException e) {
+      e.printStackTrace();
     }
+    journal = null;
+  }
 
-    for (var entry : newEnv.executionScope.getVariables()) {
-      executionScope.setVariable(entry.getKey(), entry.getValue());
+  /**
+   * Something appended to the journal
+   */
+  private interface JournalEntry {
+
+    void append(CommandJournal journal) throws IOException;
+  }
+
+  /**
+   * Append an entry to the journal if there is one, and take a checkpoint once enough entries were
+   * appended since the last one
+   */
+  private void record(JournalEntry entry) {
+    if (journal == null) {
+      return;
+    }
+    try {
+      entry.append(journal);
+      if (checkpointInterval > 0 && journal.getEntriesSinceCheckpoint() >= checkpointInterval) {
+        journal.checkpoint(EnvironmentSnapshot.capture(turtles, executionScope, language));
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
     }
+  }
 
-    for (Turtle currTurtle : newEnv.turtles) {
-      turtles.add(currTurtle.clone(turtles.size(), turtleNotifier));
+  /**
+   * Send the whole state to the view at once. Each turtle is first sent with its pen up, so the
+   * view moves it to where it is without drawing a line from where the view last saw it.
+   */
+  private void sendState() {
+    executionScope.flushCommandUpdates();
+    executionScope.notifyAllVariables();
+    executionScope.notifyEnvironment();
+    List<TurtleRecord> changes = new ArrayList<>();
+    for (Turtle turtle : turtles) {
+      changes.add(new TurtleRecord(turtle.getId(), turtle.getX(), turtle.getY(),
+          turtle.getRotation(), turtle.isVisible(), false));
+      changes.add(new TurtleRecord(turtle.getId(), turtle.getX(), turtle.getY(),
+          turtle.getRotation(), turtle.isVisible(), turtle.isPenDown()));
     }
+    delegate.notifyTurtleDelta(new TurtlesDeltaRecord(changes));
+  }
+
+  @Override
+  public void requestTurtleUpdate(TurtleRecord record) {
+    executionScope.applyTurtleRequest(record);
+    record(journal -> journal.appendTurtleRequest(record));
+  }
+
+  @Override
+  public void requestVarUpdate(DisplayVariable variable) {
+    executionScope.applyVarRequest(variable);
+    record(journal -> journal.appendVariableRequest(variable));
+  }
+
+  @Override
+  public void requestEnvUpdate(EnvironmentRecord record) {
+    executionScope.applyEnvRequest(record);
+    record(journal -> journal.appendEnvironmentRequest(record));
   }
 
   public void setLanguage(String language) {
     myParser.changeLanguage(language);
+    this.language = language;
+    record(journal -> journal.appendLanguage(language));
   }
 
   public void addTurtle() {
-    Turtle turtle = new Turtle(turtles.size(), delegate);
+    Turtle turtle = new Turtle(turtles.size(), turtleNotifier);
     currTurtles.add(turtles.size());
     turtles.add(turtle);
     executionScope.notifyEnvironment();
+    record(CommandJournal::appendAddTurtle);
   }
 
   public void setCurrTurtle(int currTurtle) {
     executionScope.setMainTurtle(currTurtle);
+    record(journal -> journal.appendMainTurtle(currTurtle));
   }
 
   public void setCurrTurtle(List<Integer> currTurtles) {
     // don't notify view since it was view who called this
     executionScope.setCurrTurtleNoNotify(currTurtles);
+    record(journal -> journal.appendCurrentTurtles(currTurtles));
   }
 
 }
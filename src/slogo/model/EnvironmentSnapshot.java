@@ -0,0 +1,521 @@
+package slogo.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import slogo.model.ASTNodes.ASTFunctionCall;
+import slogo.records.CommandSource;
+import slogo.records.EnvironmentRecord;
+
+/**
+ * The saved state of an environment: its turtles, its variables, its user-defined commands and the
+ * lines its turtles drew.
+ * <p>
+ * This class assumes that a command can be rebuilt by parsing the text it was defined with, so
+ * commands are kept as text and not as trees, and a snapshot does not depend on how the tree
+ * classes look. Commands are kept in the order they were defined, since a command can only call the
+ * ones defined before it.
+ * <p>
+ * A snapshot file starts with a header of 12 bytes: the magic number "SLGO", the version of the
+ * format as a short, a short of flags and the length of the payload. The payload holds the number
+ * of turtles, then the x, y and rotation of every turtle as packed doubles and a byte of flags for
+ * each, then the number of variables, their values as packed doubles and their names, then the
+ * number of commands and the language and text of each. Since version 2 it ends with the language
+ * commands are run in, the main turtle and the pen, shape, background, active turtles and palette.
+ * Strings are an int length followed by UTF-8 bytes. If the compressed flag is set, the payload is
+ * deflated and the length is the length before compression. Since version 3 the header goes on with
+ * the number of bytes the payload takes in the file and the number of lines, and the lines follow
+ * the payload as they are kept in a {@link SegmentLog}, never compressed, so they are written
+ * straight from the log and mapped back into one. Files are written and read through a FileChannel.
+ * <p>
+ * This class depends on Java's nio and zip packages, the turtle and execution scope classes and the
+ * records package
+ * <p>
+ * <pre>
+ *   EnvironmentSnapshot.capture(turtles, scope, "English").write(path, true);
+ *   EnvironmentSnapshot snapshot = EnvironmentSnapshot.read(path);
+ * </pre>
+ */
+public class EnvironmentSnapshot {
+
+  /**
+   * The first four bytes of every snapshot
+   */
+  public static final int MAGIC = 0x534C474F;
+  /**
+   * The version of the format written by this class
+   */
+  public static final short VERSION = 3;
+  private static final short ENVIRONMENT_VERSION = 2;
+  private static final short SEGMENTS_VERSION = 3;
+  private static final short COMPRESSED = 1;
+  private static final int HEADER_BYTES = 12;
+  private static final int SEGMENTS_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+  private static final long MAPPED_SEGMENTS = 1 << 20;
+  private static final int TURTLE_DOUBLES = 3;
+  private static final byte VISIBLE = 1;
+  private static final byte PEN_DOWN = 2;
+  private static final int CHUNK = 1 << 16;
+
+  private final double[] turtleStates;
+  private final byte[] turtleFlags;
+  private final String[] variableNames;
+  private final double[] variableValues;
+  private final List<CommandSource> commands;
+  private final String language;
+  private final int mainTurtle;
+  private final EnvironmentRecord environment;
+  private SegmentLog segments;
+  private long segmentCount;
+
+  private EnvironmentSnapshot(double[] turtleStates, byte[] turtleFlags, String[] variableNames,
+      double[] variableValues, List<CommandSource> commands, String language, int mainTurtle,
+      EnvironmentRecord environment) {
+    this.turtleStates = turtleStates;
+    this.turtleFlags = turtleFlags;
+    this.variableNames = variableNames;
+    this.variableValues = variableValues;
+    this.commands = commands;
+    this.language = language;
+    this.mainTurtle = mainTurtle;
+    this.environment = environment;
+  }
+
+  /**
+   * Take a snapshot of an environment. Commands that were not parsed from text are left out.
+   *
+   * @param turtles  the turtles of the environment
+   * @param scope    the scope holding its variables, commands and pen
+   * @param language the language commands are run in
+   * @return the snapshot
+   */
+  public static EnvironmentSnapshot capture(List<Turtle> turtles, ExecutionScope scope,
+      String language) {
+    double[] states = new double[turtles.size() * TURTLE_DOUBLES];
+    byte[] flags = new byte[turtles.size()];
+    for (int i = 0; i < turtles.size(); i++) {
+      Turtle turtle = turtles.get(i);
+      states[i * TURTLE_DOUBLES] = turtle.getX();
+      states[i * TURTLE_DOUBLES + 1] = turtle.getY();
+      states[i * TURTLE_DOUBLES + 2] = turtle.getRotation();
+      flags[i] = (byte) ((turtle.isVisible() ? VISIBLE : 0) | (turtle.isPenDown() ? PEN_DOWN : 0));
+    }
+
+    List<String> names = new ArrayList<>();
+    List<Double> values = new ArrayList<>();
+    for (var entry : scope.getVariables()) {
+      names.add(entry.getKey());
+      values.add(entry.getValue().getValue());
+    }
+
+    List<CommandSource> sources = new ArrayList<>();
+    for (var entry : scope.getCommands()) {
+      ASTFunctionCall command = entry.getValue();
+      if (command.getSource() != null) {
+        sources.add(command.getSource());
+      }
+    }
+    EnvironmentSnapshot snapshot = new EnvironmentSnapshot(states, flags,
+        names.toArray(new String[0]), values.stream().mapToDouble(Double::doubleValue).toArray(),
+        sources, language, scope.getMainTurtleIdx(), scope.getEnvironmentRecord());
+    // the lines are written from the log itself, so only how many there are now is kept
+    snapshot.segments = scope.getSegments();
+    snapshot.segmentCount = snapshot.segments == null ? 0 : snapshot.segments.size();
+    return snapshot;
+  }
+
+  /**
+   * Write the snapshot to a file, replacing it if it exists
+   *
+   * @param path     the file to write
+   * @param compress whether to deflate the payload
+   */
+  public void write(Path path, boolean compress) throws IOException {
+    ByteBuffer payload = encode();
+    int length = payload.remaining();
+    if (compress) {
+      payload = ByteBuffer.wrap(deflate(payload.array()));
+    }
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + SEGMENTS_HEADER_BYTES)
+        .putInt(MAGIC)
+        .putShort(VERSION)
+        .putShort(compress ? COMPRESSED : 0)
+        .putInt(length)
+        .putInt(payload.remaining())
+        .putLong(segmentCount)
+        .flip();
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer[] buffers = {header, payload};
+      while (payload.hasRemaining()) {
+        channel.write(buffers);
+      }
+      if (segmentCount > 0) {
+        segments.writeTo(channel, segmentCount);
+      }
+    }
+  }
+
+  /**
+   * Check if a file starts like a snapshot, so other files, such as ones saved with Java
+   * serialization, are not read as one
+   *
+   * @param path the file to check
+   * @return if the file starts with the magic number
+   */
+  public static boolean isSnapshot(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+      while (magic.hasRemaining() && channel.read(magic) >= 0) {
+        // keep reading until the magic number is complete or the file ends
+      }
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * Read a snapshot from a file
+   *
+   * @param path the file to read
+   * @return the snapshot
+   * @throws IOException if the file is not a snapshot, was written by a newer version or is cut
+   *                     short
+   */
+  public static EnvironmentSnapshot read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = readFully(channel, HEADER_BYTES, path);
+      if (header.getInt() != MAGIC) {
+        throw new IOException(path + " is not a snapshot");
+      }
+      short version = header.getShort();
+      if (version > VERSION) {
+        throw new IOException(path + " was saved with a newer version " + version);
+      }
+      short flags = header.getShort();
+      int length = header.getInt();
+      int stored = (int) (channel.size() - HEADER_BYTES);
+      long segmentCount = 0;
+      if (version >= SEGMENTS_VERSION) {
+        ByteBuffer segmentsHeader = readFully(channel, SEGMENTS_HEADER_BYTES, path);
+        stored = segmentsHeader.getInt();
+        segmentCount = segmentsHeader.getLong();
+      }
+
+      ByteBuffer payload = readFully(channel, stored, path);
+      if ((flags & COMPRESSED) != 0) {
+        payload = ByteBuffer.wrap(inflate(payload, length));
+      }
+      EnvironmentSnapshot snapshot = decode(payload, version);
+      snapshot.segments = readSegments(channel, segmentCount, path);
+      snapshot.segmentCount = segmentCount;
+      return snapshot;
+    } catch (BufferUnderflowException e) {
+      throw new IOException(path + " is cut short", e);
+    }
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, int bytes, Path path)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(bytes);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException(path + " is cut short");
+      }
+    }
+    return buffer.flip();
+  }
+
+  /**
+   * Map the lines after the payload a window at a time and copy them into a new log
+   */
+  private static SegmentLog readSegments(FileChannel channel, long count, Path path)
+      throws IOException {
+    SegmentLog segments = new SegmentLog();
+    long position = channel.position();
+    if (position + count * SegmentLog.SEGMENT_BYTES > channel.size()) {
+      throw new IOException(path + " is cut short");
+    }
+    for (long read = 0; read < count; ) {
+      long window = Math.min(MAPPED_SEGMENTS, count - read);
+      long bytes = window * SegmentLog.SEGMENT_BYTES;
+      segments.readFrom(channel.map(MapMode.READ_ONLY, position, bytes), window);
+      position += bytes;
+      read += window;
+    }
+    return segments;
+  }
+
+  private ByteBuffer encode() {
+    int size = Integer.BYTES * 4
+        + turtleStates.length * Double.BYTES + turtleFlags.length
+        + variableValues.length * Double.BYTES + stringSize(language)
+        + environmentSize(environment);
+    for (String name : variableNames) {
+      size += stringSize(name);
+    }
+    for (CommandSource command : commands) {
+      size += stringSize(command.language()) + stringSize(command.text());
+    }
+    ByteBuffer payload = ByteBuffer.allocate(size);
+
+    payload.putInt(turtleFlags.length);
+    putDoubles(payload, turtleStates);
+    payload.put(turtleFlags);
+
+    payload.putInt(variableValues.length);
+    putDoubles(payload, variableValues);
+    for (String name : variableNames) {
+      putString(payload, name);
+    }
+
+    payload.putInt(commands.size());
+    for (CommandSource command : commands) {
+      putString(payload, command.language());
+      putString(payload, command.text());
+    }
+
+    putString(payload, language);
+    payload.putInt(mainTurtle);
+    putEnvironment(payload, environment);
+    return payload.flip();
+  }
+
+  private static EnvironmentSnapshot decode(ByteBuffer payload, short version) {
+    int turtleCount = payload.getInt();
+    double[] states = getDoubles(payload, turtleCount * TURTLE_DOUBLES);
+    byte[] flags = new byte[turtleCount];
+    payload.get(flags);
+
+    int variableCount = payload.getInt();
+    double[] values = getDoubles(payload, variableCount);
+    String[] names = new String[variableCount];
+    for (int i = 0; i < variableCount; i++) {
+      names[i] = getString(payload);
+    }
+
+    int commandCount = payload.getInt();
+    List<CommandSource> sources = new ArrayList<>(commandCount);
+    for (int i = 0; i < commandCount; i++) {
+      sources.add(new CommandSource(getString(payload), getString(payload)));
+    }
+
+    if (version < ENVIRONMENT_VERSION) {
+      return new EnvironmentSnapshot(states, flags, names, values, sources, null, 0, null);
+    }
+    return new EnvironmentSnapshot(states, flags, names, values, sources, getString(payload),
+        payload.getInt(), getEnvironment(payload));
+  }
+
+  private static void putDoubles(ByteBuffer buffer, double[] values) {
+    buffer.asDoubleBuffer().put(values);
+    buffer.position(buffer.position() + values.length * Double.BYTES);
+  }
+
+  private static double[] getDoubles(ByteBuffer buffer, int count) {
+    double[] values = new double[count];
+    buffer.asDoubleBuffer().get(values);
+    buffer.position(buffer.position() + count * Double.BYTES);
+    return values;
+  }
+
+  /**
+   * Get the number of bytes a string takes
+   */
+  static int stringSize(String string) {
+    return Integer.BYTES + string.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  static void putString(ByteBuffer buffer, String string) {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length).put(bytes);
+  }
+
+  static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Get the number of bytes the pen, shape, background, active turtles and palette take
+   */
+  static int environmentSize(EnvironmentRecord record) {
+    return Integer.BYTES * 5 + Double.BYTES + record.activeTurtles().size() * Integer.BYTES
+        + paletteOf(record).size() * (Integer.BYTES + Double.BYTES * 3);
+  }
+
+  static void putEnvironment(ByteBuffer buffer, EnvironmentRecord record) {
+    buffer.putInt(record.currPenColor())
+        .putInt(record.currShape())
+        .putInt(record.currBGColor())
+        .putDouble(record.currPenSize())
+        .putInt(record.activeTurtles().size());
+    for (int turtle : record.activeTurtles()) {
+      buffer.putInt(turtle);
+    }
+    Map<Integer, Color> colors = paletteOf(record);
+    buffer.putInt(colors.size());
+    for (var entry : colors.entrySet()) {
+      Color color = entry.getValue();
+      buffer.putInt(entry.getKey()).putDouble(color.r()).putDouble(color.g())
+          .putDouble(color.b());
+    }
+  }
+
+  static EnvironmentRecord getEnvironment(ByteBuffer buffer) {
+    int penColor = buffer.getInt();
+    int shape = buffer.getInt();
+    int background = buffer.getInt();
+    double penSize = buffer.getDouble();
+    List<Integer> active = new ArrayList<>();
+    for (int i = buffer.getInt(); i > 0; i--) {
+      active.add(buffer.getInt());
+    }
+    Palette palette = new Palette();
+    for (int i = buffer.getInt(); i > 0; i--) {
+      palette.setColor(buffer.getInt(),
+          new Color(buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+    }
+    return new EnvironmentRecord(palette, penColor, shape, background, active, penSize);
+  }
+
+  private static Map<Integer, Color> paletteOf(EnvironmentRecord record) {
+    return record.colors() instanceof Palette palette ? palette.getColors() : Map.of();
+  }
+
+  private static byte[] deflate(byte[] data) {
+    Deflater deflater = new Deflater();
+    deflater.setInput(data);
+    deflater.finish();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] chunk = new byte[CHUNK];
+    while (!deflater.finished()) {
+      out.write(chunk, 0, deflater.deflate(chunk));
+    }
+    deflater.end();
+    return out.toByteArray();
+  }
+
+  private static byte[] inflate(ByteBuffer data, int length) throws IOException {
+    Inflater inflater = new Inflater();
+    inflater.setInput(data);
+    byte[] out = new byte[length];
+    try {
+      int read = 0;
+      while (read < length && !inflater.finished()) {
+        int inflated = inflater.inflate(out, read, length - read);
+        if (inflated == 0 && inflater.needsInput()) {
+          throw new IOException("The compressed payload is cut short");
+        }
+        read += inflated;
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(e);
+    } finally {
+      inflater.end();
+    }
+    return out;
+  }
+
+  /**
+   * Get the number of turtles
+   */
+  public int getTurtleCount() {
+    return turtleFlags.length;
+  }
+
+  public double getX(int turtle) {
+    return turtleStates[turtle * TURTLE_DOUBLES];
+  }
+
+  public double getY(int turtle) {
+    return turtleStates[turtle * TURTLE_DOUBLES + 1];
+  }
+
+  public double getRotation(int turtle) {
+    return turtleStates[turtle * TURTLE_DOUBLES + 2];
+  }
+
+  public boolean isVisible(int turtle) {
+    return (turtleFlags[turtle] & VISIBLE) != 0;
+  }
+
+  public boolean isPenDown(int turtle) {
+    return (turtleFlags[turtle] & PEN_DOWN) != 0;
+  }
+
+  /**
+   * Get the number of variables
+   */
+  public int getVariableCount() {
+    return variableNames.length;
+  }
+
+  public String getVariableName(int variable) {
+    return variableNames[variable];
+  }
+
+  public double getVariableValue(int variable) {
+    return variableValues[variable];
+  }
+
+  /**
+   * Get the language commands are run in
+   *
+   * @return the language, or null if the snapshot was saved before it was kept
+   */
+  public String getLanguage() {
+    return language;
+  }
+
+  public int getMainTurtle() {
+    return mainTurtle;
+  }
+
+  /**
+   * Get the pen, shape, background, active turtles and palette
+   *
+   * @return the record, or null if the snapshot was saved before it was kept
+   */
+  public EnvironmentRecord getEnvironment() {
+    return environment;
+  }
+
+  /**
+   * Get the number of lines
+   */
+  public long getSegmentCount() {
+    return segmentCount;
+  }
+
+  /**
+   * Go through the lines in the order they were drawn
+   *
+   * @param visitor what to do with each line
+   */
+  public void forEachSegment(SegmentLog.Visitor visitor) {
+    if (segmentCount > 0) {
+      segments.forEach(0, segmentCount, visitor);
+    }
+  }
+
+  /**
+   * Get the text of every command, in the order they were defined
+   */
+  public List<CommandSource> getCommands() {
+    return commands;
+  }
+}
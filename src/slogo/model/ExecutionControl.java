@@ -0,0 +1,117 @@
+package slogo.model;
+
+import slogo.exceptions.CommandCancelledException;
+import slogo.exceptions.StepLimitExceededException;
+
+/**
+ * Lets a command that runs on one thread be stopped, paused and limited from another.
+ * <p>
+ * This class assumes that the thread running the command calls {@link #checkpoint(int)} regularly,
+ * which the execution scope does every time a list of commands runs. Stopping a command makes the
+ * next checkpoint throw, pausing it makes the next checkpoint wait until it is resumed or stopped.
+ * <p>
+ * This class depends on the exceptions package only
+ * <p>
+ * A new control is made with each execution scope. Call {@link #begin()} before running a command,
+ * then {@link #cancel()}, {@link #pause()} and {@link #resume()} from any thread.
+ */
+public class ExecutionControl {
+
+  private volatile boolean cancelled = false;
+  private volatile boolean paused = false;
+  private long maxSteps = 0;
+  private long steps = 0;
+  private long commands = 0;
+
+  /**
+   * Start counting steps for a new command. A stop asked for while no command ran is forgotten.
+   */
+  public void begin() {
+    cancelled = false;
+    steps = 0;
+    commands = 0;
+  }
+
+  /**
+   * Count a step of the running command, and stop or pause it if it has been asked to
+   *
+   * @param commands the number of commands the step runs
+   * @throws StepLimitExceededException if the command ran more steps than it may
+   * @throws CommandCancelledException  if the command has been stopped
+   */
+  public void checkpoint(int commands) {
+    this.commands += commands;
+    if (++steps > maxSteps && maxSteps > 0) {
+      throw new StepLimitExceededException(maxSteps);
+    }
+    if (paused) {
+      waitWhilePaused();
+    }
+    if (cancelled) {
+      throw new CommandCancelledException();
+    }
+  }
+
+  private synchronized void waitWhilePaused() {
+    while (paused && !cancelled) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CommandCancelledException();
+      }
+    }
+  }
+
+  /**
+   * Stop the running command at its next step. A paused command is stopped as well.
+   */
+  public synchronized void cancel() {
+    cancelled = true;
+    notifyAll();
+  }
+
+  /**
+   * Make the running command wait at its next step until it is resumed
+   */
+  public synchronized void pause() {
+    paused = true;
+  }
+
+  /**
+   * Let a paused command continue
+   */
+  public synchronized void resume() {
+    paused = false;
+    notifyAll();
+  }
+
+  /**
+   * Get the number of steps the last command ran
+   */
+  public long getSteps() {
+    return steps;
+  }
+
+  /**
+   * Get the number of commands the last command ran, counting each command of a list every time the
+   * list runs
+   */
+  public long getCommandsRun() {
+    return commands;
+  }
+
+  public boolean isPaused() {
+    return paused;
+  }
+
+  /**
+   * Set the most steps a command may run, where a step is one run of a list of commands such as a
+   * loop body or the body of a user-defined command
+   *
+   * @param maxSteps the number of steps, or 0 for no limit
+   */
+  public void setMaxSteps(long maxSteps) {
+    this.maxSteps = maxSteps;
+  }
+}
@@ -1,34 +1,100 @@
 package slogo.model;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import slogo.exceptions.CallDepthExceededException;
 import slogo.records.CommandsRecord;
 import slogo.records.DisplayCommand;
 import slogo.records.DisplayVariable;
 import slogo.records.EnvironmentRecord;
+import slogo.records.TurtleRecord;
+import slogo.records.VariablesDeltaRecord;
 import slogo.records.VariablesRecord;
 import slogo.model.ASTNodes.ASTFunctionCall;
 import slogo.model.ASTNodes.ASTMakeVariable;
 import slogo.model.ASTNodes.ASTNode;
 import slogo.model.ASTNodes.ASTNumberLiteral;
 import slogo.model.ASTNodes.ASTVariable;
+import slogo.model.ASTNodes.TailCall;
 import slogo.model.notifiers.EnvironmentNotifier;
 import slogo.model.notifiers.TurtleNotifier;
 
 /**
  * Contains information needed to execute an AST
+ * <p>
+ * Variables are stored by slot in an array of values. The slots are given by a {@link
+ * VariableSlots} table that is shared with every clone of the scope, while each clone has its own
+ * copy of the values.
+ * <p>
+ * Changes to variables are not sent to the view as they happen. The changed slots are marked and
+ * sent together when {@link #flushVariableUpdates()} is called, which the environment does after
+ * every command, or while a command runs once the update interval has passed.
+ * <p>
+ * A call to a user-defined command pushes a frame. The first time a frame sets a variable, the old
+ * value of that variable is saved, and every saved value is put back when the frame is popped. A
+ * call therefore sees the variables of its caller, but nothing it sets is visible after it returns,
+ * and calling a command only costs as much as the variables it sets. Tail calls reuse the frame of
+ * their caller, and the number of frames is limited by {@link #setMaxCallDepth(int)}. Frames only
+ * save variables, not commands. A command is added to the table when its definition is parsed, so
+ * a definition inside the body of a command is added for everyone together with that command, and
+ * is still there after the command returns.
+ * <p>
+ * The bodies of user-defined commands and loops are compiled once they have run as many times as
+ * {@link #setCompileThreshold(int)} allows, and commands that only change each turtle run on the
+ * active turtles in parallel once there are as many as {@link #setParallelThreshold(int)} asks for.
+ * Every list of commands that runs passes a checkpoint of the {@link ExecutionControl}, where the
+ * command can be stopped or paused from another thread.
+ * <p>
+ * The active turtles are returned as a view of the indices of the current turtles, so commands can
+ * go through them without a list being built every time they run.
  *
  * @author Oliver Rodas, Jiyang Tang, Joshua Petitma
  */
 public class ExecutionScope implements InfoBundle, Serializable {
 
-  private Map<String, ASTNumberLiteral> variableTable = new HashMap<>();
-  private Map<String, ASTFunctionCall> commandTable = new HashMap<>();
+  private static final int INITIAL_VARIABLES = 16;
+  private static final int INITIAL_FRAMES = 16;
+  private static final int DEFAULT_MAX_CALL_DEPTH = 10000;
+  private static final int DEFAULT_COMPILE_THRESHOLD = 50;
+
+  private VariableSlots variableSlots = new VariableSlots();
+  private double[] variableValues = new double[INITIAL_VARIABLES];
+  private BitSet definedVariables = new BitSet();
+  private BitSet changedVariables = new BitSet();
+  private long variableUpdateInterval = 0;
+  private transient LongSupplier clock = System::nanoTime;
+  private long lastVariableUpdate = System.nanoTime();
+  // kept in the order the commands were defined, so a command comes after the ones it calls
+  private Map<String, ASTFunctionCall> commandTable = new LinkedHashMap<>();
+  private long commandTableVersion = 0;
+  private transient boolean holdingCommandUpdates = false;
+
+  // savedDepths[slot] is the depth of the frame that last saved the slot, 0 if none has. The saved
+  // values form a log that each frame undoes back to its mark when it is popped.
+  private int maxCallDepth = DEFAULT_MAX_CALL_DEPTH;
+  private int callDepth = 0;
+  private int[] frameMarks = new int[INITIAL_FRAMES];
+  private int[] savedDepths = new int[INITIAL_VARIABLES];
+  private int[] savedSlots = new int[INITIAL_FRAMES];
+  private double[] savedValues = new double[INITIAL_FRAMES];
+  private boolean[] savedDefined = new boolean[INITIAL_FRAMES];
+  private int[] savedPreviousDepths = new int[INITIAL_FRAMES];
+  private int savedCount = 0;
+  private transient TailCall tailCall;
+  private int compileThreshold = DEFAULT_COMPILE_THRESHOLD;
+  private int parallelThreshold = 0;
+  private transient ExecutionControl control = new ExecutionControl();
 
   private int penColorIdx = 0;
   private int backgroundColorIdx = 0;
@@ -36,9 +102,11 @@ public class ExecutionScope implements InfoBundle, Serializable {
   private double penSize = 5;
   private Palette palette = new Palette();
   private int mainTurtleIdx = 0;
+  private transient SegmentLog segments;
 
   private List<Turtle> turtles;
   private List<Integer> currTurtles;
+  private transient List<Turtle> activeTurtles;
 
   private transient EnvironmentNotifier envNotifier;
   private transient TurtleNotifier turtleNotifier;
@@ -51,27 +119,40 @@ public class ExecutionScope implements InfoBundle, Serializable {
     this.currTurtles = currTurtles;
     this.envNotifier = envNotifier;
     this.turtleNotifier = turtleNotifier;
+  }
 
-    envNotifier.onRequestEnvUpdate(record -> {
-      backgroundColorIdx = record.currBGColor();
-      penColorIdx = record.currPenColor();
-      currTurtles.clear();
-      currTurtles.addAll(record.activeTurtles());
-      penSize = record.currPenSize();
-      palette = (Palette) record.colors();
-    });
+  /**
+   * Take the pen, background, shape, palette and active turtles the view asked for
+   */
+  public void applyEnvRequest(EnvironmentRecord record) {
+    backgroundColorIdx = record.currBGColor();
+    penColorIdx = record.currPenColor();
+    shapeIdx = record.currShape();
+    currTurtles.clear();
+    currTurtles.addAll(record.activeTurtles());
+    penSize = record.currPenSize();
+    palette = (Palette) record.colors();
+    updatePen();
+  }
 
-    envNotifier.onRequestTurtleUpdate(record -> {
-      Turtle toUpdate = turtles.get(record.id());
-      toUpdate.update(record);
-    });
+  /**
+   * Move a turtle to where the view asked for
+   */
+  public void applyTurtleRequest(TurtleRecord record) {
+    Turtle toUpdate = turtles.get(record.id());
+    toUpdate.update(record);
+    turtleNotifier.flushTurtleUpdates();
+  }
 
-    envNotifier.onRequestVarUpdate(variable -> {
-      ASTNode variableSetter = new ASTMakeVariable();
-      variableSetter.addChild(new ASTVariable(variable.name()));
-      variableSetter.addChild(new ASTNumberLiteral(Double.parseDouble(variable.value())));
-      variableSetter.evaluate(this);
-    });
+  /**
+   * Set a variable to the value the view asked for
+   */
+  public void applyVarRequest(DisplayVariable variable) {
+    ASTNode variableSetter = new ASTMakeVariable();
+    variableSetter.addChild(new ASTVariable(variable.name()));
+    variableSetter.addChild(new ASTNumberLiteral(Double.parseDouble(variable.value())));
+    variableSetter.evaluate(this);
+    flushVariableUpdates();
   }
 
   public ExecutionScope(
@@ -81,23 +162,28 @@ public class ExecutionScope implements InfoBundle, Serializable {
       EnvironmentNotifier envNotifier, TurtleNotifier turtleNotifier) {
 
     this(turtles, currTurtles, envNotifier, turtleNotifier);
-    this.variableTable = variableTable;
+    for (var entry : variableTable.entrySet()) {
+      storeVariable(variableSlots.getSlot(entry.getKey()), entry.getValue().getValue());
+    }
     this.commandTable = commandTable;
   }
 
   @Override
   public ExecutionScope clone() {
-
-    HashMap<String, ASTNumberLiteral> varCopy = new HashMap<>();
-    for (var entry : variableTable.entrySet()) {
-      varCopy.put(entry.getKey(), new ASTNumberLiteral(entry.getValue().getValue()));
-    }
-
     ExecutionScope instance = new ExecutionScope(
         turtles, currTurtles,
-        varCopy, new HashMap<>(commandTable),
         envNotifier.clone(), turtleNotifier);
 
+    instance.variableSlots = variableSlots;
+    instance.variableValues = variableValues.clone();
+    instance.definedVariables = (BitSet) definedVariables.clone();
+    instance.commandTable = new LinkedHashMap<>(commandTable);
+    instance.commandTableVersion = commandTableVersion;
+    instance.maxCallDepth = maxCallDepth;
+    instance.compileThreshold = compileThreshold;
+    instance.parallelThreshold = parallelThreshold;
+    instance.control = control;
+    instance.segments = segments;
     return instance;
   }
 
@@ -136,6 +222,10 @@ public class ExecutionScope implements InfoBundle, Serializable {
     mainTurtleIdx = idx;
   }
 
+  public int getMainTurtleIdx() {
+    return mainTurtleIdx;
+  }
+
   @Override
   public int getTotalNumTurtles() {
     return turtles.size();
@@ -143,11 +233,10 @@ public class ExecutionScope implements InfoBundle, Serializable {
 
   @Override
   public List<Turtle> getActiveTurtles() {
-    ArrayList<Turtle> ret = new ArrayList<>();
-    for (int idx : currTurtles) {
-      ret.add(turtles.get(idx));
+    if (activeTurtles == null) {
+      activeTurtles = new ActiveTurtles();
     }
-    return ret;
+    return activeTurtles;
   }
 
   @Override
@@ -162,24 +251,270 @@ public class ExecutionScope implements InfoBundle, Serializable {
 
   @Override
   public ASTNumberLiteral getVariable(String name) {
-    return variableTable.get(name);
+    int slot = variableSlots.findSlot(name);
+    if (slot == VariableSlots.NONE || !isVariableDefined(slot)) {
+      return null;
+    }
+    return new ASTNumberLiteral(variableValues[slot]);
   }
 
   @Override
   public boolean setVariable(String name, ASTNumberLiteral value) {
-    boolean ret = !variableTable.containsKey(name);
+    return setVariable(variableSlots.getSlot(name), value.getValue());
+  }
+
+  @Override
+  public VariableSlots getVariableSlots() {
+    return variableSlots;
+  }
+
+  @Override
+  public int getVariableSlot(String name) {
+    return variableSlots.getSlot(name);
+  }
+
+  @Override
+  public boolean isVariableDefined(int slot) {
+    return definedVariables.get(slot);
+  }
+
+  @Override
+  public double getVariable(int slot) {
+    return variableValues[slot];
+  }
+
+  @Override
+  public boolean setVariable(int slot, double value) {
+    if (callDepth > 0) {
+      saveVariable(slot);
+    }
+    boolean ret = storeVariable(slot, value);
+    if (callDepth == 0) {
+      // variables set inside a call are restored when it returns, so only these are shown
+      changedVariables.set(slot);
+    }
+
+    if (variableUpdateInterval > 0
+        && clock.getAsLong() - lastVariableUpdate >= variableUpdateInterval) {
+      flushVariableUpdates();
+    }
+    return ret;
+  }
+
+  /**
+   * Send the variables that changed since the last flush to the view, as one delta record. A record
+   * with every variable is sent as well, for listeners that want the whole table.
+   * <p>
+   * The interval is counted from when the listeners are done, so a listener slower than the
+   * interval does not make every later change send a flush of its own.
+   */
+  public void flushVariableUpdates() {
+    if (!changedVariables.isEmpty()) {
+      sendVariableUpdates();
+    }
+    lastVariableUpdate = clock.getAsLong();
+  }
+
+  private void sendVariableUpdates() {
+    ArrayList<DisplayVariable> changed = new ArrayList<>();
+    for (int i = changedVariables.nextSetBit(0); i >= 0; i = changedVariables.nextSetBit(i + 1)) {
+      changed.add(getDisplayVariable(i));
+    }
+    changedVariables.clear();
+    envNotifier.notifyVariableDelta(new VariablesDeltaRecord(changed));
 
-    variableTable.put(name, value);
     ArrayList<DisplayVariable> vars = new ArrayList<>();
-    for (var entry : variableTable.entrySet()) {
-      double val = entry.getValue().evaluate(this);
-      vars.add(new DisplayVariable(entry.getKey(), Double.toString(val)));
+    for (int i = definedVariables.nextSetBit(0); i >= 0; i = definedVariables.nextSetBit(i + 1)) {
+      vars.add(getDisplayVariable(i));
     }
     envNotifier.notifyVariableUpdate(new VariablesRecord(vars));
+  }
+
+  /**
+   * Send every variable to the view, as if they had all changed
+   */
+  public void notifyAllVariables() {
+    changedVariables.or(definedVariables);
+    flushVariableUpdates();
+  }
+
+  /**
+   * Set how often changed variables are sent while a command runs. With an interval of 0 they are
+   * only sent once the command is done.
+   *
+   * @param millis the least number of milliseconds between two updates
+   */
+  public void setVariableUpdateInterval(long millis) {
+    variableUpdateInterval = TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  /**
+   * Set where the time the update interval is measured with comes from, in nanoseconds
+   */
+  void setClock(LongSupplier clock) {
+    this.clock = clock;
+    lastVariableUpdate = clock.getAsLong();
+  }
+
+  private void ensureVariableCapacity(int slot) {
+    if (slot >= variableValues.length) {
+      int capacity = Math.max(slot + 1, variableValues.length * 2);
+      variableValues = Arrays.copyOf(variableValues, capacity);
+      savedDepths = Arrays.copyOf(savedDepths, capacity);
+    }
+  }
+
+  /**
+   * Save the value of a variable the first time the current frame sets it
+   */
+  private void saveVariable(int slot) {
+    ensureVariableCapacity(slot);
+    if (savedDepths[slot] == callDepth) {
+      return;
+    }
+
+    if (savedCount == savedSlots.length) {
+      int capacity = savedCount * 2;
+      savedSlots = Arrays.copyOf(savedSlots, capacity);
+      savedValues = Arrays.copyOf(savedValues, capacity);
+      savedDefined = Arrays.copyOf(savedDefined, capacity);
+      savedPreviousDepths = Arrays.copyOf(savedPreviousDepths, capacity);
+    }
+    savedSlots[savedCount] = slot;
+    savedValues[savedCount] = variableValues[slot];
+    savedDefined[savedCount] = definedVariables.get(slot);
+    savedPreviousDepths[savedCount] = savedDepths[slot];
+    savedCount++;
+
+    savedDepths[slot] = callDepth;
+  }
+
+  @Override
+  public void pushFrame(String name) {
+    if (callDepth >= maxCallDepth) {
+      throw new CallDepthExceededException(name, maxCallDepth);
+    }
+    if (callDepth == frameMarks.length) {
+      frameMarks = Arrays.copyOf(frameMarks, callDepth * 2);
+    }
+    frameMarks[callDepth] = savedCount;
+    callDepth++;
+  }
+
+  @Override
+  public void popFrame() {
+    callDepth--;
+    int mark = frameMarks[callDepth];
+    while (savedCount > mark) {
+      savedCount--;
+      int slot = savedSlots[savedCount];
+      variableValues[slot] = savedValues[savedCount];
+      definedVariables.set(slot, savedDefined[savedCount]);
+      savedDepths[slot] = savedPreviousDepths[savedCount];
+    }
+  }
 
+  @Override
+  public int getCallDepth() {
+    return callDepth;
+  }
+
+  @Override
+  public void setTailCall(TailCall call) {
+    tailCall = call;
+  }
+
+  @Override
+  public TailCall takeTailCall() {
+    TailCall call = tailCall;
+    tailCall = null;
+    return call;
+  }
+
+  /**
+   * Set the most calls to user-defined commands that can be nested. Ten thousand calls are allowed
+   * by default, which catches a runaway recursion quickly. Nested calls that are not tail calls take
+   * about half a kilobyte of stack each, so a limit of a million lets a recursion use about 500 MB
+   * while it runs.
+   *
+   * @param maxDepth the maximum number of nested calls
+   */
+  public void setMaxCallDepth(int maxDepth) {
+    maxCallDepth = maxDepth;
+  }
+
+  @Override
+  public int getCompileThreshold() {
+    return compileThreshold;
+  }
+
+  /**
+   * Set how many times the body of a user-defined command or loop runs before it is compiled
+   *
+   * @param threshold the number of runs, or 0 to never compile
+   */
+  public void setCompileThreshold(int threshold) {
+    compileThreshold = threshold;
+  }
+
+  @Override
+  public int getParallelThreshold() {
+    return parallelThreshold;
+  }
+
+  /**
+   * Set how many turtles must be active before turtle commands that only change each turtle are
+   * applied to them in parallel
+   *
+   * @param threshold the number of turtles, or 0 to always run one turtle at a time
+   */
+  public void setParallelThreshold(int threshold) {
+    parallelThreshold = threshold;
+  }
+
+  @Override
+  public void checkpoint(int commands) {
+    if (control.isPaused()) {
+      // show where the command stopped while it waits
+      flushVariableUpdates();
+      turtleNotifier.flushTurtleUpdates();
+    }
+    control.checkpoint(commands);
+  }
+
+  /**
+   * Get the control used to stop, pause or limit the commands run in this scope
+   */
+  public ExecutionControl getControl() {
+    if (control == null) {
+      control = new ExecutionControl();
+    }
+    return control;
+  }
+
+  private DisplayVariable getDisplayVariable(int slot) {
+    return new DisplayVariable(variableSlots.getName(slot), Double.toString(variableValues[slot]));
+  }
+
+  /**
+   * Store the value of a variable without notifying the view
+   *
+   * @return true if the variable did not have a value before
+   */
+  private boolean storeVariable(int slot, double value) {
+    ensureVariableCapacity(slot);
+    variableValues[slot] = value;
+
+    boolean ret = !definedVariables.get(slot);
+    definedVariables.set(slot);
     return ret;
   }
 
+  @Override
+  public long getCommandTableVersion() {
+    return commandTableVersion;
+  }
+
   @Override
   public ASTFunctionCall getCommand(String name) {
     return commandTable.get(name);
@@ -190,14 +525,36 @@ public class ExecutionScope implements InfoBundle, Serializable {
     boolean ret = !commandTable.containsKey(name);
     if (ret) {
       commandTable.put(name, command);
+      commandTableVersion++;
     }
+    if (!holdingCommandUpdates) {
+      notifyCommands();
+    }
+    return ret;
+  }
+
+  /**
+   * Stop sending the command table every time a command is set, until {@link
+   * #flushCommandUpdates()} is called. Used while many commands are defined at once.
+   */
+  public void holdCommandUpdates() {
+    holdingCommandUpdates = true;
+  }
 
+  /**
+   * Start sending command updates again, and send the command table once
+   */
+  public void flushCommandUpdates() {
+    holdingCommandUpdates = false;
+    notifyCommands();
+  }
+
+  private void notifyCommands() {
     ArrayList<DisplayCommand> commands = new ArrayList<>();
     for (var entry : commandTable.entrySet()) {
       commands.add(new DisplayCommand(entry.getKey(), entry.getValue().toString()));
     }
     envNotifier.notifyCommandUpdate(new CommandsRecord(commands));
-    return ret;
   }
 
   public int getPenColorIdx() {
@@ -206,6 +563,7 @@ public class ExecutionScope implements InfoBundle, Serializable {
 
   public void setPenColorIdx(int _penColorIdx) {
     penColorIdx = _penColorIdx;
+    updatePen();
     notifyEnvironment();
   }
 
@@ -229,6 +587,7 @@ public class ExecutionScope implements InfoBundle, Serializable {
 
   public void setPalette(int idx, double r, double g, double b) {
     palette.setColor(idx, new Color(r, g, b));
+    updatePen();
     notifyEnvironment();
   }
 
@@ -239,18 +598,56 @@ public class ExecutionScope implements InfoBundle, Serializable {
   @Override
   public void setPenSize(double newSize) {
     penSize = newSize;
+    updatePen();
     notifyEnvironment();
   }
 
+  /**
+   * Set the log the pen is kept in and the screen is cleared with
+   */
+  public void setSegments(SegmentLog segments) {
+    this.segments = segments;
+    updatePen();
+  }
+
+  /**
+   * Get the log the lines drawn in this scope are added to
+   *
+   * @return the log, or null if the lines are not kept
+   */
+  public SegmentLog getSegments() {
+    return segments;
+  }
+
+  private void updatePen() {
+    if (segments != null) {
+      segments.setPen(palette.getColor(penColorIdx), penSize);
+    }
+  }
+
   public void clear() {
+    if (segments != null) {
+      segments.clear();
+    }
+    // moves made before the clear must reach the view before it clears its lines
+    turtleNotifier.flushTurtleUpdates();
     envNotifier.notifyEnvClear();
   }
 
   public void notifyEnvironment() {
-    envNotifier.notifyEnvUpdate(new EnvironmentRecord(
+    // lines already drawn keep the pen they were drawn with
+    turtleNotifier.flushTurtleUpdates();
+    envNotifier.notifyEnvUpdate(getEnvironmentRecord());
+  }
+
+  /**
+   * Get the pen, background, shape, palette and active turtles, as they are sent to the view
+   */
+  public EnvironmentRecord getEnvironmentRecord() {
+    return new EnvironmentRecord(
         palette, penColorIdx,
         shapeIdx, backgroundColorIdx,
-        currTurtles, penSize));
+        new ArrayList<>(currTurtles), penSize);
   }
 
   public Set<Entry<String, ASTFunctionCall>> getCommands() {
@@ -258,6 +655,27 @@ public class ExecutionScope implements InfoBundle, Serializable {
   }
 
   public Set<Entry<String, ASTNumberLiteral>> getVariables() {
-    return variableTable.entrySet();
+    Map<String, ASTNumberLiteral> variables = new LinkedHashMap<>();
+    for (int i = definedVariables.nextSetBit(0); i >= 0; i = definedVariables.nextSetBit(i + 1)) {
+      variables.put(variableSlots.getName(i), new ASTNumberLiteral(variableValues[i]));
+    }
+    return variables.entrySet();
+  }
+
+  /**
+   * The turtles at the current indices, in the order they were told. The view follows the indices as
+   * they change, so it should be copied if it needs to outlive a change of the active turtles.
+   */
+  private class ActiveTurtles extends AbstractList<Turtle> implements RandomAccess {
+
+    @Override
+    public Turtle get(int index) {
+      return turtles.get(currTurtles.get(index));
+    }
+
+    @Override
+    public int size() {
+      return currTurtles.size();
+    }
   }
 }
@@ -3,6 +3,7 @@ package slogo.model;
 import java.util.List;
 import slogo.model.ASTNodes.ASTFunctionCall;
 import slogo.model.ASTNodes.ASTNumberLiteral;
+import slogo.model.ASTNodes.TailCall;
 
 /**
  * Information that ASTNodes required in order to evaluate.
@@ -42,10 +43,92 @@ public interface InfoBundle {
    */
   boolean setVariable(String name, ASTNumberLiteral value);
 
+  /**
+   * @return The slots of the variables, shared by this bundle and its clones
+   */
+  VariableSlots getVariableSlots();
+
+  /**
+   * Get the slot of a variable, giving it a new slot if it does not have one yet
+   */
+  int getVariableSlot(String name);
+
+  /**
+   * @return Returns true if the variable in the slot has been given a value
+   */
+  boolean isVariableDefined(int slot);
+
+  /**
+   * Get the value of the variable in a slot, only valid if the variable is defined
+   */
+  double getVariable(int slot);
+
+  /**
+   * @return Returns true if a new entry is added to the variable table, otherwise false
+   */
+  boolean setVariable(int slot, double value);
+
+  /**
+   * Start a call to a user-defined command. Variables set until the matching {@link #popFrame()}
+   * are local to the call.
+   *
+   * @param name the name of the command being called
+   * @throws slogo.exceptions.CallDepthExceededException if too many calls are already nested
+   */
+  void pushFrame(String name);
+
+  /**
+   * End the call started by the last {@link #pushFrame(String)}, restoring every variable the call
+   * set
+   */
+  void popFrame();
+
+  /**
+   * @return The number of calls to user-defined commands that are currently nested
+   */
+  int getCallDepth();
+
+  /**
+   * Ask the running call to continue with another call once its body returns, instead of nesting
+   * the call inside it
+   */
+  void setTailCall(TailCall call);
+
+  /**
+   * @return The tail call asked for since the last time this was called, or null if there is none
+   */
+  TailCall takeTailCall();
+
+  /**
+   * @return The number of times the body of a user-defined command or loop runs before it is
+   * compiled, or 0 if nothing is compiled
+   */
+  int getCompileThreshold();
+
+  /**
+   * @return The least number of active turtles for which a turtle command is applied to them in
+   * parallel, or 0 if turtle commands always run one turtle at a time
+   */
+  int getParallelThreshold();
+
+  /**
+   * Called every time a list of commands runs, so that a running command can be stopped, paused or
+   * limited in how many steps it runs
+   *
+   * @param commands the number of commands in the list, counted towards the commands run
+   */
+  void checkpoint(int commands);
+
   ASTFunctionCall getCommand(String name);
 
   boolean setCommand(String name, ASTFunctionCall command);
 
+  /**
+   * @return A number that changes every time a command is added to the command table, so that what
+   * was parsed with an older table can be told apart
+   */
+  long getCommandTableVersion();
+
   InfoBundle clone();
 
   int getPenColorIdx();
@@ -1,6 +1,7 @@
 package slogo.model;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,4 +28,11 @@ public class Palette implements PaletTable, Serializable {
   public Color getColor(int idx) {
     return colors.getOrDefault(idx, DEFAULT_COLOR);
   }
+
+  /**
+   * Get every color that was set, by color idx
+   */
+  public Map<Integer, Color> getColors() {
+    return Collections.unmodifiableMap(colors);
+  }
 }
@@ -0,0 +1,339 @@
+package slogo.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A few uniform grids over the lines of a {@link SegmentLog}, to find the lines in part of the
+ * drawing or the line under a point without going through every line.
+ * <p>
+ * This class assumes that it is only used on one thread, such as JavaFX's, while the log may grow
+ * on another. The grids are brought up to date by {@link #update()}, which only adds the lines
+ * drawn since the last update, or starts over if the log was cleared. Each grid has cells {@link
+ * #LEVEL_SCALE} times as wide as the one before it, and a line is added to every cell its bounding
+ * box touches in the finest grid where that is at most four cells. So a long line is in a few big
+ * cells instead of filling the fine grid, and a search only goes through the cells around it in
+ * each grid. Lines too long even for the coarsest grid, such as one that goes off to infinity, are
+ * kept in one list that every search goes through. Cells hold the indices of lines as ints, so a
+ * log of up to 2^31 lines can be indexed.
+ * <p>
+ * A search takes time in proportion to the cells it covers and the lines in them, not to the
+ * number of lines in the log. Cells are not split, so lines drawn over and over on the same spot
+ * all stay in the same cells, and a search there checks each of them.
+ * <p>
+ * This class depends on the segment log and Java's util package
+ * <p>
+ * <pre>
+ *   SegmentIndex index = new SegmentIndex(environment.getSegments());
+ *   index.update();
+ *   long[] visible = index.find(-200, -150, 200, 150);
+ *   long clicked = index.nearest(x, y, 3);
+ * </pre>
+ */
+public class SegmentIndex {
+
+  /**
+   * The width and height of a cell of the finest grid, in turtle steps
+   */
+  public static final double DEFAULT_CELL_SIZE = 16;
+  /**
+   * How many times as wide the cells of each grid are as those of the grid before it
+   */
+  public static final int LEVEL_SCALE = 4;
+  private static final int LEVELS = 16;
+  private static final int MAX_CELLS = 4;
+  private static final int INITIAL_CELL_CAPACITY = 4;
+  private static final long NONE = -1;
+
+  private final SegmentLog segments;
+  private final Grid[] grids = new Grid[LEVELS];
+  private final Cell longLines = new Cell();
+  private long indexed = 0;
+  private long clears = 0;
+
+  /**
+   * The indices of the lines in one cell
+   */
+  private static class Cell {
+
+    private int[] lines = new int[INITIAL_CELL_CAPACITY];
+    private int size = 0;
+
+    private void add(int line) {
+      if (size == lines.length) {
+        lines = Arrays.copyOf(lines, size * 2);
+      }
+      lines[size++] = line;
+    }
+  }
+
+  /**
+   * The cells of one grid that have lines in them
+   */
+  private static class Grid {
+
+    private final double cellSize;
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    private Grid(double cellSize) {
+      this.cellSize = cellSize;
+    }
+
+    /**
+     * Get the cell a coordinate is in. Coordinates too far out for an int share the outermost
+     * cells, which stop short of the largest int so that going through cells up to them ends.
+     */
+    private int cell(double coordinate) {
+      return (int) Math.min(Math.floor(coordinate / cellSize), Integer.MAX_VALUE - 1);
+    }
+  }
+
+  /**
+   * Create an index over a log with cells of the default size
+   *
+   * @param segments the log of the lines
+   */
+  public SegmentIndex(SegmentLog segments) {
+    this(segments, DEFAULT_CELL_SIZE);
+  }
+
+  /**
+   * Create an index over a log
+   *
+   * @param segments the log of the lines
+   * @param cellSize the width and height of a cell of the finest grid, in turtle steps
+   */
+  public SegmentIndex(SegmentLog segments, double cellSize) {
+    this.segments = segments;
+    for (int level = 0; level < LEVELS; level++) {
+      grids[level] = new Grid(cellSize * Math.pow(LEVEL_SCALE, level));
+    }
+  }
+
+  /**
+   * Get the log this index is over
+   */
+  public SegmentLog getSegments() {
+    return segments;
+  }
+
+  /**
+   * Add the lines drawn since the last update, or index every line again if the log was cleared
+   */
+  public void update() {
+    long size;
+    synchronized (segments) {
+      size = segments.size();
+      if (segments.getClears() != clears) {
+        clears = segments.getClears();
+        for (Grid grid : grids) {
+          grid.cells.clear();
+        }
+        longLines.size = 0;
+        indexed = 0;
+      }
+    }
+    for (long i = indexed; i < size; i++) {
+      add((int) i);
+    }
+    indexed = size;
+  }
+
+  /**
+   * Get the number of lines in the index
+   */
+  public long size() {
+    return indexed;
+  }
+
+  private void add(int line) {
+    double minX = Math.min(segments.getX0(line), segments.getX1(line));
+    double maxX = Math.max(segments.getX0(line), segments.getX1(line));
+    double minY = Math.min(segments.getY0(line), segments.getY1(line));
+    double maxY = Math.max(segments.getY0(line), segments.getY1(line));
+    for (Grid grid : grids) {
+      int left = grid.cell(minX);
+      int right = grid.cell(maxX);
+      int bottom = grid.cell(minY);
+      int top = grid.cell(maxY);
+      if (countCells(left, bottom, right, top) <= MAX_CELLS) {
+        for (int x = left; x <= right; x++) {
+          for (int y = bottom; y <= top; y++) {
+            grid.cells.computeIfAbsent(key(x, y), key -> new Cell()).add(line);
+          }
+        }
+        return;
+      }
+    }
+    longLines.add(line);
+  }
+
+  private static long countCells(int left, int bottom, int right, int top) {
+    return ((long) right - left + 1) * ((long) top - bottom + 1);
+  }
+
+  /**
+   * Find the lines whose bounding box overlaps a rectangle, in the order they were drawn
+   *
+   * @return the indices of the lines
+   */
+  public long[] find(double minX, double minY, double maxX, double maxY) {
+    Found found = new Found(minX, minY, maxX, maxY);
+    for (Grid grid : grids) {
+      if (!grid.cells.isEmpty()) {
+        find(grid, found);
+      }
+    }
+    found.collect(longLines, null, Integer.MIN_VALUE, Integer.MIN_VALUE);
+    return found.sorted();
+  }
+
+  private void find(Grid grid, Found found) {
+    int left = grid.cell(found.minX);
+    int right = grid.cell(found.maxX);
+    int bottom = grid.cell(found.minY);
+    int top = grid.cell(found.maxY);
+
+    if (countCells(left, bottom, right, top) > grid.cells.size()) {
+      // the rectangle has more cells than the grid, so going through the grid is quicker
+      for (Map.Entry<Long, Cell> entry : grid.cells.entrySet()) {
+        long key = entry.getKey();
+        int x = (int) (key >> Integer.SIZE);
+        int y = (int) key;
+        if (x >= left && x <= right && y >= bottom && y <= top) {
+          found.collect(entry.getValue(), grid, x, y);
+        }
+      }
+    } else {
+      for (int x = left; x <= right; x++) {
+        for (int y = bottom; y <= top; y++) {
+          Cell cell = grid.cells.get(key(x, y));
+          if (cell != null) {
+            found.collect(cell, grid, x, y);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The lines found in a rectangle
+   */
+  private class Found {
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private long[] found = new long[INITIAL_CELL_CAPACITY];
+    private int size = 0;
+
+    private Found(double minX, double minY, double maxX, double maxY) {
+      this.minX = minX;
+      this.minY = minY;
+      this.maxX = maxX;
+      this.maxY = maxY;
+    }
+
+    /**
+     * Add the lines of a cell of a grid, or of the long lines if the grid is null, that overlap the
+     * rectangle. A line in several cells is only added by the first of its cells inside the
+     * rectangle, so it is found once.
+     */
+    private void collect(Cell lines, Grid grid, int x, int y) {
+      for (int i = 0; i < lines.size; i++) {
+        int line = lines.lines[i];
+        double x0 = segments.getX0(line);
+        double y0 = segments.getY0(line);
+        double x1 = segments.getX1(line);
+        double y1 = segments.getY1(line);
+        if (Math.max(x0, x1) < minX || Math.min(x0, x1) > maxX
+            || Math.max(y0, y1) < minY || Math.min(y0, y1) > maxY) {
+          continue;
+        }
+        if (grid != null && (x != Math.max(grid.cell(minX), grid.cell(Math.min(x0, x1)))
+            || y != Math.max(grid.cell(minY), grid.cell(Math.min(y0, y1))))) {
+          continue;
+        }
+        if (size == found.length) {
+          found = Arrays.copyOf(found, size * 2);
+        }
+        found[size++] = line;
+      }
+    }
+
+    private long[] sorted() {
+      long[] sorted = Arrays.copyOf(found, size);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+
+  /**
+   * Find the line closest to a point, going through the cells around it in each grid
+   *
+   * @param x         the x-coordinate of the point
+   * @param y         the y-coordinate of the point
+   * @param tolerance how far from the point the line can be
+   * @return the index of the line, the last one drawn if several are as close, or -1 if there is no
+   * line that close
+   */
+  public long nearest(double x, double y, double tolerance) {
+    List<Cell> near = new ArrayList<>();
+    near.add(longLines);
+    for (Grid grid : grids) {
+      if (grid.cells.isEmpty()) {
+        continue;
+      }
+      for (int cellX = grid.cell(x - tolerance); cellX <= grid.cell(x + tolerance); cellX++) {
+        for (int cellY = grid.cell(y - tolerance); cellY <= grid.cell(y + tolerance); cellY++) {
+          Cell lines = grid.cells.get(key(cellX, cellY));
+          if (lines != null) {
+            near.add(lines);
+          }
+        }
+      }
+    }
+
+    long best = NONE;
+    double bestDistance = tolerance;
+    for (Cell lines : near) {
+      for (int i = 0; i < lines.size; i++) {
+        int line = lines.lines[i];
+        double x0 = segments.getX0(line);
+        double y0 = segments.getY0(line);
+        double x1 = segments.getX1(line);
+        double y1 = segments.getY1(line);
+        if (x < Math.min(x0, x1) - bestDistance || x > Math.max(x0, x1) + bestDistance
+            || y < Math.min(y0, y1) - bestDistance || y > Math.max(y0, y1) + bestDistance) {
+          continue;
+        }
+        double distance = distance(x, y, x0, y0, x1, y1);
+        if (distance < bestDistance || (distance == bestDistance && line > best)) {
+          best = line;
+          bestDistance = distance;
+        }
+      }
+    }
+    return best;
+  }
+
+  private static double distance(double x, double y, double x0, double y0, double x1,
+      double y1) {
+    double dx = x1 - x0;
+    double dy = y1 - y0;
+    double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0
+        : Math.max(0, Math.min(1, ((x - x0) * dx + (y - y0) * dy) / lengthSquared));
+    double offX = x - (x0 + t * dx);
+    double offY = y - (y0 + t * dy);
+    return Math.sqrt(offX * offX + offY * offY);
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << Integer.SIZE) | (y & 0xFFFFFFFFL);
+  }
+}
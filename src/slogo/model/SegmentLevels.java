@@ -0,0 +1,320 @@
+package slogo.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simplified copies of the lines of a {@link SegmentLog}, to draw a drawing that is zoomed out with
+ * about as many lines as it has pixels instead of every line the turtles drew.
+ * <p>
+ * This class assumes that it is only used on one thread, such as JavaFX's, while the log may grow
+ * on another. Lines a turtle draws one after the other with the same pen are joined into
+ * polylines, and each polyline is simplified with the Douglas-Peucker algorithm once for every
+ * scale in {@link #SCALES}, keeping only the points that are more than half a pixel away at that
+ * scale. Collinear points and whole runs of lines smaller than a pixel are dropped that way. Each
+ * level is simplified from the one before, so the coarser levels cost less to make. A polyline is
+ * ended when the turtle lifts its pen, jumps, changes pen, reaches {@link #MAX_POINTS} points or
+ * when the levels are brought up to date, so a long drawing is simplified a piece at a time.
+ * <p>
+ * This class depends on the segment log
+ * <p>
+ * <pre>
+ *   SegmentLevels levels = new SegmentLevels(environment.getSegments());
+ *   levels.update();
+ *   int level = levels.levelFor(.2);
+ *   levels.forEach(level, -500, -500, 500, 500, (points, from, to, rgb, width) -> ...);
+ * </pre>
+ */
+public class SegmentLevels {
+
+  /**
+   * The scales the levels are made for, in pixels per turtle step, from the finest to the coarsest
+   */
+  public static final double[] SCALES = {.5, .25, .125};
+  /**
+   * The most points a polyline can have before it is ended
+   */
+  public static final int MAX_POINTS = 1024;
+  private static final double PIXEL_TOLERANCE = .5;
+  private static final int NONE = -1;
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final SegmentLog segments;
+  private final Level[] levels = new Level[SCALES.length];
+  private final Map<Integer, Chain> chains = new HashMap<>();
+  private long read = 0;
+  private long clears = 0;
+
+  /**
+   * What is done with each polyline by {@link #forEach}
+   */
+  public interface Visitor {
+
+    /**
+     * @param points the x and y of every point of the level one after the other, which must not
+     *               be changed
+     * @param from   the index of the first point of the polyline
+     * @param to     the index after its last point
+     */
+    void polyline(double[] points, int from, int to, int rgb, double width);
+  }
+
+  /**
+   * The polylines made by one turtle, not simplified yet
+   */
+  private static class Chain {
+
+    private double[] points = new double[INITIAL_CAPACITY * 2];
+    private int size = 0;
+    private int rgb;
+    private double width;
+
+    private boolean continues(double x, double y, int rgb, double width) {
+      return size > 0 && size < MAX_POINTS && points[size * 2 - 2] == x
+          && points[size * 2 - 1] == y && this.rgb == rgb && this.width == width;
+    }
+
+    private void add(double x, double y) {
+      if (size * 2 == points.length) {
+        points = Arrays.copyOf(points, points.length * 2);
+      }
+      points[size * 2] = x;
+      points[size * 2 + 1] = y;
+      size++;
+    }
+  }
+
+  /**
+   * The polylines simplified for one scale. The points of every polyline are kept in one array and
+   * each polyline has its first point, pen and bounding box.
+   */
+  private static class Level {
+
+    private double[] points = new double[INITIAL_CAPACITY * 2];
+    private int pointCount = 0;
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] rgbs = new int[INITIAL_CAPACITY];
+    private double[] widths = new double[INITIAL_CAPACITY];
+    private double[] bounds = new double[INITIAL_CAPACITY * 4];
+    private int count = 0;
+
+    private void add(double[] chain, boolean[] keep, int size, int rgb, double width) {
+      if (count == rgbs.length) {
+        starts = Arrays.copyOf(starts, count * 2);
+        rgbs = Arrays.copyOf(rgbs, count * 2);
+        widths = Arrays.copyOf(widths, count * 2);
+        bounds = Arrays.copyOf(bounds, count * 8);
+      }
+      starts[count] = pointCount;
+      rgbs[count] = rgb;
+      widths[count] = width;
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < size; i++) {
+        if (!keep[i]) {
+          continue;
+        }
+        double x = chain[i * 2];
+        double y = chain[i * 2 + 1];
+        if (pointCount * 2 == points.length) {
+          points = Arrays.copyOf(points, points.length * 2);
+        }
+        points[pointCount * 2] = x;
+        points[pointCount * 2 + 1] = y;
+        pointCount++;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+      }
+      bounds[count * 4] = minX;
+      bounds[count * 4 + 1] = minY;
+      bounds[count * 4 + 2] = maxX;
+      bounds[count * 4 + 3] = maxY;
+      count++;
+    }
+
+    private int end(int polyline) {
+      return polyline + 1 == count ? pointCount : starts[polyline + 1];
+    }
+  }
+
+  /**
+   * Create the levels of a log, with no lines until they are brought up to date
+   *
+   * @param segments the log of the lines
+   */
+  public SegmentLevels(SegmentLog segments) {
+    this.segments = segments;
+    clearLevels();
+  }
+
+  private void clearLevels() {
+    for (int i = 0; i < levels.length; i++) {
+      levels[i] = new Level();
+    }
+    chains.clear();
+    read = 0;
+  }
+
+  /**
+   * Get the log the levels are made from
+   */
+  public SegmentLog getSegments() {
+    return segments;
+  }
+
+  /**
+   * Join and simplify the lines drawn since the last update, or every line again if the log was
+   * cleared
+   */
+  public void update() {
+    long size;
+    synchronized (segments) {
+      size = segments.size();
+      if (segments.getClears() != clears) {
+        clears = segments.getClears();
+        clearLevels();
+      }
+    }
+    for (long line = read; line < size; line++) {
+      int turtle = segments.getTurtle(line);
+      double x0 = segments.getX0(line);
+      double y0 = segments.getY0(line);
+      int rgb = segments.getRgb(line);
+      double width = segments.getWidth(line);
+      Chain chain = chains.computeIfAbsent(turtle, id -> new Chain());
+      if (!chain.continues(x0, y0, rgb, width)) {
+        simplify(chain);
+        chain.rgb = rgb;
+        chain.width = width;
+        chain.add(x0, y0);
+      }
+      chain.add(segments.getX1(line), segments.getY1(line));
+    }
+    read = size;
+    for (Chain chain : chains.values()) {
+      simplify(chain);
+    }
+  }
+
+  /**
+   * Add a finished polyline to every level and start the next one
+   */
+  private void simplify(Chain chain) {
+    if (chain.size < 2) {
+      chain.size = 0;
+      return;
+    }
+    boolean[] keep = new boolean[chain.size];
+    Arrays.fill(keep, true);
+    for (int level = 0; level < levels.length; level++) {
+      douglasPeucker(chain.points, keep, chain.size, PIXEL_TOLERANCE / SCALES[level]);
+      levels[level].add(chain.points, keep, chain.size, chain.rgb, chain.width);
+    }
+    chain.size = 0;
+  }
+
+  /**
+   * Drop the points that are kept but closer than the tolerance to the line between the kept points
+   * around them. Only kept points are looked at, so a level can be made from the one before.
+   */
+  private static void douglasPeucker(double[] points, boolean[] keep, int size, double tolerance) {
+    int[] stack = new int[Math.max(2, size * 2)];
+    int top = 0;
+    stack[top++] = 0;
+    stack[top++] = size - 1;
+    while (top > 0) {
+      int last = stack[--top];
+      int first = stack[--top];
+      int farthest = NONE;
+      double farthestDistance = tolerance;
+      for (int i = first + 1; i < last; i++) {
+        if (!keep[i]) {
+          continue;
+        }
+        double distance = distance(points[i * 2], points[i * 2 + 1], points[first * 2],
+            points[first * 2 + 1], points[last * 2], points[last * 2 + 1]);
+        if (distance > farthestDistance) {
+          farthest = i;
+          farthestDistance = distance;
+        }
+      }
+      if (farthest == NONE) {
+        for (int i = first + 1; i < last; i++) {
+          keep[i] = false;
+        }
+      } else {
+        stack[top++] = first;
+        stack[top++] = farthest;
+        stack[top++] = farthest;
+        stack[top++] = last;
+      }
+    }
+  }
+
+  private static double distance(double x, double y, double x0, double y0, double x1,
+      double y1) {
+    double dx = x1 - x0;
+    double dy = y1 - y0;
+    double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0
+        : Math.max(0, Math.min(1, ((x - x0) * dx + (y - y0) * dy) / lengthSquared));
+    double offX = x - (x0 + t * dx);
+    double offY = y - (y0 + t * dy);
+    return Math.sqrt(offX * offX + offY * offY);
+  }
+
+  /**
+   * Choose the level to draw at a scale, which is the coarsest one made for that scale or more
+   *
+   * @param scale the number of pixels per turtle step
+   * @return the level, or -1 if the lines should be drawn as they are
+   */
+  public int levelFor(double scale) {
+    int level = NONE;
+    for (int i = 0; i < SCALES.length && SCALES[i] >= scale; i++) {
+      level = i;
+    }
+    return level;
+  }
+
+  /**
+   * Get the number of polylines in a level
+   */
+  public int getPolylineCount(int level) {
+    return levels[level].count;
+  }
+
+  /**
+   * Get the number of points in a level, which is the number of lines it draws plus one per
+   * polyline
+   */
+  public int getPointCount(int level) {
+    return levels[level].pointCount;
+  }
+
+  /**
+   * Go through the polylines of a level whose bounding box overlaps a rectangle, in the order they
+   * were made
+   *
+   * @param level   the level, as given by {@link #levelFor(double)}
+   * @param visitor what to do with each polyline
+   */
+  public void forEach(int level, double minX, double minY, double maxX, double maxY,
+      Visitor visitor) {
+    Level polylines = levels[level];
+    for (int i = 0; i < polylines.count; i++) {
+      double[] bounds = polylines.bounds;
+      if (bounds[i * 4 + 2] < minX || bounds[i * 4] > maxX
+          || bounds[i * 4 + 3] < minY || bounds[i * 4 + 1] > maxY) {
+        continue;
+      }
+      visitor.polyline(polylines.points, polylines.starts[i], polylines.end(i), polylines.rgbs[i],
+          polylines.widths[i]);
+    }
+  }
+}
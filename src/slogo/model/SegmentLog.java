@@ -0,0 +1,374 @@
+package slogo.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every line the turtles draw, so a drawing can be drawn again, exported at another size or
+ * saved with the environment.
+ * <p>
+ * This class assumes that lines are only ever added to the end, or all removed at once when the
+ * screen is cleared. Each line takes 44 bytes: the doubles x0, y0, x1 and y1, the color as an RGB
+ * int, the width as a float and the id of the turtle. Lines are kept in chunks of 16384 outside the
+ * Java heap, either in direct buffers or mapped from a file, so the heap does not grow with the
+ * drawing and a chunk is never copied once it is full. Adding a line is synchronized, since turtles
+ * can move on several threads at once.
+ * <p>
+ * The color and width of new lines are the pen of the environment, which is set whenever the pen
+ * changes, so lines keep the color they were drawn with even if the palette changes later. The
+ * environment also marks where each command starts drawing, so a line can be traced back to the
+ * command that drew it.
+ * <p>
+ * Lines can be read on another thread than the one adding them, such as JavaFX's while commands
+ * run on a worker thread, as long as only lines below {@link #size()} are read.
+ * <p>
+ * This class depends on Java's nio package
+ * <p>
+ * <pre>
+ *   SegmentLog log = environment.getSegments();
+ *   log.forEach(0, (x0, y0, x1, y1, rgb, width, turtle) -> ...);
+ * </pre>
+ */
+public class SegmentLog implements Closeable {
+
+  /**
+   * The number of bytes each line takes
+   */
+  public static final int SEGMENT_BYTES = Double.BYTES * 4 + Integer.BYTES * 2 + Float.BYTES;
+  private static final int CHUNK_SHIFT = 14;
+  private static final int CHUNK_SEGMENTS = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SEGMENTS - 1;
+  private static final long CHUNK_BYTES = (long) CHUNK_SEGMENTS * SEGMENT_BYTES;
+  private static final int X0 = 0;
+  private static final int Y0 = Double.BYTES;
+  private static final int X1 = Double.BYTES * 2;
+  private static final int Y1 = Double.BYTES * 3;
+  private static final int RGB = Double.BYTES * 4;
+  private static final int WIDTH = RGB + Integer.BYTES;
+  private static final int TURTLE = WIDTH + Float.BYTES;
+  private static final int BLACK = 0;
+  private static final double DEFAULT_WIDTH = 5;
+  private static final int INITIAL_MARKS = 16;
+
+  // chunks are only added every few thousand lines, so readers never need the lock to get one
+  private final List<ByteBuffer> chunks = new CopyOnWriteArrayList<>();
+  private FileChannel channel;
+  private long size = 0;
+  private long clears = 0;
+  private int penRgb = BLACK;
+  private float penWidth = (float) DEFAULT_WIDTH;
+  private long[] markStarts = new long[INITIAL_MARKS];
+  private String[] markCommands = new String[INITIAL_MARKS];
+  private int marks = 0;
+
+  /**
+   * What is done with each line by {@link #forEach(long, Visitor)}
+   */
+  public interface Visitor {
+
+    void segment(double x0, double y0, double x1, double y1, int rgb, double width, int turtle);
+  }
+
+  /**
+   * Create a log that keeps its lines in direct buffers
+   */
+  public SegmentLog() {
+    channel = null;
+  }
+
+  /**
+   * Create a log that keeps its lines in a file mapped in memory, which is overwritten
+   *
+   * @param file the file the lines are kept in
+   */
+  public SegmentLog(Path file) throws IOException {
+    channel = open(file);
+  }
+
+  private static FileChannel open(Path file) throws IOException {
+    return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Keep the lines in a file mapped in memory from now on, copying the lines already added into it.
+   * This log stays the one that holds the lines, so whoever is reading it keeps reading it: each
+   * chunk is swapped for its copy in the file only once the copy is whole.
+   *
+   * @param file the file the lines are kept in, which is overwritten
+   */
+  public synchronized void mapTo(Path file) throws IOException {
+    FileChannel previous = channel;
+    channel = open(file);
+    for (int chunk = 0; chunk < chunks.size(); chunk++) {
+      ByteBuffer mapped = allocate(chunk);
+      mapped.put(chunks.get(chunk).duplicate().clear());
+      chunks.set(chunk, mapped);
+    }
+    if (previous != null) {
+      // the chunks mapped from it stay readable until they are collected
+      previous.close();
+    }
+  }
+
+  /**
+   * Set the pen new lines are drawn with
+   *
+   * @param color the color of the pen
+   * @param width the width of the pen
+   */
+  public synchronized void setPen(Color color, double width) {
+    penRgb = toRgb(color);
+    penWidth = (float) width;
+  }
+
+  /**
+   * Add a line drawn with the current pen
+   *
+   * @param turtle the id of the turtle that drew it
+   */
+  public synchronized void add(int turtle, double x0, double y0, double x1, double y1) {
+    add(x0, y0, x1, y1, penRgb, penWidth, turtle);
+  }
+
+  /**
+   * Add a line drawn with any pen
+   */
+  public synchronized void add(double x0, double y0, double x1, double y1, int rgb, double width,
+      int turtle) {
+    int chunk = (int) (size >>> CHUNK_SHIFT);
+    if (chunk == chunks.size()) {
+      chunks.add(allocate(chunk));
+    }
+    ByteBuffer buffer = chunks.get(chunk);
+    int at = (int) (size & CHUNK_MASK) * SEGMENT_BYTES;
+    buffer.putDouble(at + X0, x0)
+        .putDouble(at + Y0, y0)
+        .putDouble(at + X1, x1)
+        .putDouble(at + Y1, y1)
+        .putInt(at + RGB, rgb)
+        .putFloat(at + WIDTH, (float) width)
+        .putInt(at + TURTLE, turtle);
+    size++;
+  }
+
+  private ByteBuffer allocate(int chunk) {
+    if (channel == null) {
+      return ByteBuffer.allocateDirect((int) CHUNK_BYTES);
+    }
+    try {
+      return channel.map(MapMode.READ_WRITE, chunk * CHUNK_BYTES, CHUNK_BYTES);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot grow the segment file", e);
+    }
+  }
+
+  /**
+   * Go through the lines in the order they were drawn
+   *
+   * @param from    the index of the first line to visit
+   * @param visitor what to do with each line
+   */
+  public void forEach(long from, Visitor visitor) {
+    forEach(from, size(), visitor);
+  }
+
+  /**
+   * Go through some of the lines in the order they were drawn
+   *
+   * @param from    the index of the first line to visit
+   * @param to      the index after the last line to visit
+   * @param visitor what to do with each line
+   */
+  public void forEach(long from, long to, Visitor visitor) {
+    for (long i = from; i < to; i++) {
+      ByteBuffer buffer = chunkOf(i);
+      int at = offsetOf(i);
+      visitor.segment(buffer.getDouble(at + X0), buffer.getDouble(at + Y0),
+          buffer.getDouble(at + X1), buffer.getDouble(at + Y1), buffer.getInt(at + RGB),
+          buffer.getFloat(at + WIDTH), buffer.getInt(at + TURTLE));
+    }
+  }
+
+  /**
+   * Write the first lines to a channel, in the layout they are kept in
+   *
+   * @param out   the channel
+   * @param count the number of lines to write
+   */
+  synchronized void writeTo(WritableByteChannel out, long count) throws IOException {
+    long left = Math.min(count, size);
+    for (int chunk = 0; left > 0; chunk++) {
+      ByteBuffer used = chunks.get(chunk).duplicate().clear();
+      int written = (int) Math.min(left, CHUNK_SEGMENTS);
+      used.limit(written * SEGMENT_BYTES);
+      while (used.hasRemaining()) {
+        out.write(used);
+      }
+      left -= written;
+    }
+  }
+
+  /**
+   * Add lines from a buffer in the layout {@link #writeTo(WritableByteChannel, long)} writes them
+   *
+   * @param data  the lines, which are read from its position
+   * @param count the number of lines
+   */
+  synchronized void readFrom(ByteBuffer data, long count) {
+    for (long i = 0; i < count; ) {
+      int chunk = (int) (size >>> CHUNK_SHIFT);
+      if (chunk == chunks.size()) {
+        chunks.add(allocate(chunk));
+      }
+      int room = CHUNK_SEGMENTS - (int) (size & CHUNK_MASK);
+      int copied = (int) Math.min(room, count - i);
+      ByteBuffer target = chunks.get(chunk).duplicate();
+      target.position((int) (size & CHUNK_MASK) * SEGMENT_BYTES);
+      target.put(data.slice(data.position(), copied * SEGMENT_BYTES));
+      data.position(data.position() + copied * SEGMENT_BYTES);
+      size += copied;
+      i += copied;
+    }
+  }
+
+  public double getX0(long index) {
+    return chunkOf(index).getDouble(offsetOf(index) + X0);
+  }
+
+  public double getY0(long index) {
+    return chunkOf(index).getDouble(offsetOf(index) + Y0);
+  }
+
+  public double getX1(long index) {
+    return chunkOf(index).getDouble(offsetOf(index) + X1);
+  }
+
+  public double getY1(long index) {
+    return chunkOf(index).getDouble(offsetOf(index) + Y1);
+  }
+
+  public int getRgb(long index) {
+    return chunkOf(index).getInt(offsetOf(index) + RGB);
+  }
+
+  public double getWidth(long index) {
+    return chunkOf(index).getFloat(offsetOf(index) + WIDTH);
+  }
+
+  /**
+   * Get the id of the turtle that drew a line
+   */
+  public int getTurtle(long index) {
+    return chunkOf(index).getInt(offsetOf(index) + TURTLE);
+  }
+
+  private ByteBuffer chunkOf(long index) {
+    return chunks.get((int) (index >>> CHUNK_SHIFT));
+  }
+
+  private static int offsetOf(long index) {
+    return (int) (index & CHUNK_MASK) * SEGMENT_BYTES;
+  }
+
+  /**
+   * Mark that the lines added from now on are drawn by a command
+   *
+   * @param command the text of the command, or null if the lines are not drawn by one
+   */
+  public synchronized void mark(String command) {
+    if (marks > 0 && markStarts[marks - 1] == size) {
+      // the last command drew nothing, so nothing can be traced back to it
+      marks--;
+    }
+    if (marks == markStarts.length) {
+      markStarts = Arrays.copyOf(markStarts, marks * 2);
+      markCommands = Arrays.copyOf(markCommands, marks * 2);
+    }
+    markStarts[marks] = size;
+    markCommands[marks] = command;
+    marks++;
+  }
+
+  /**
+   * Find the command that drew a line, by a binary search over the marks
+   *
+   * @param index the index of the line
+   * @return the text of the command, or null if no command was marked before the line
+   */
+  public synchronized String getCommand(long index) {
+    int found = Arrays.binarySearch(markStarts, 0, marks, index);
+    // a line drawn after a mark is found at the place it would be inserted, after that mark
+    int mark = found >= 0 ? found : -found - 2;
+    return mark < 0 ? null : markCommands[mark];
+  }
+
+  /**
+   * Get the number of lines
+   */
+  public synchronized long size() {
+    return size;
+  }
+
+  /**
+   * Get how many times the lines were cleared, so whoever read them can tell that the lines below
+   * {@link #size()} are not the ones it read
+   */
+  public synchronized long getClears() {
+    return clears;
+  }
+
+  /**
+   * Remove every line. The chunks are kept and reused by the next lines, and the command that is
+   * drawing keeps its mark.
+   */
+  public synchronized void clear() {
+    size = 0;
+    clears++;
+    if (marks > 0) {
+      markStarts[0] = 0;
+      markCommands[0] = markCommands[marks - 1];
+      Arrays.fill(markCommands, 1, marks, null);
+      marks = 1;
+    }
+  }
+
+  /**
+   * Release the file the lines are kept in, if there is one
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    chunks.clear();
+    size = 0;
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  /**
+   * Pack a color into an RGB int
+   */
+  public static int toRgb(Color color) {
+    return channel(color.r()) << 16 | channel(color.g()) << 8 | channel(color.b());
+  }
+
+  /**
+   * Unpack a color from an RGB int
+   */
+  public static Color toColor(int rgb) {
+    return new Color(rgb >> 16 & 0xFF, rgb >> 8 & 0xFF, rgb & 0xFF);
+  }
+
+  private static int channel(double value) {
+    return (int) Math.max(0, Math.min(255, Math.round(value)));
+  }
+}
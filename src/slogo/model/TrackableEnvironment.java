@@ -3,7 +3,9 @@ package slogo.model;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import slogo.exceptions.NotASavedEnvironmentException;
 import slogo.model.notifiers.ModelTracker;
+import slogo.records.RunRecord;
 
 /**
  * An environment that can be monitored for changes that occur and execute commands.
@@ -27,6 +29,96 @@ public interface TrackableEnvironment {
    */
   void setLanguage(String language);
 
+  /**
+   * Sets how often changed variables are sent to the tracker while a command runs. By default
+   * they are only sent once the command is done.
+   *
+   * @param millis - The least number of milliseconds between two updates, or 0 to only update
+   *               after each command.
+   */
+  void setVariableUpdateInterval(long millis);
+
+  /**
+   * Sets how often turtle updates are sent while a command runs, for example once per frame. With
+   * an interval of 0 they are held back until the command is done, unless too many build up.
+   *
+   * @param millis - The least number of milliseconds between two updates.
+   */
+  void setTurtleUpdateInterval(long millis);
+
+  /**
+   * Sets how many turtle updates are held back before they are sent while a command runs.
+   *
+   * @param maxUpdates - The number of updates, or 0 to send them once the command is done.
+   */
+  void setMaxTurtleUpdates(int maxUpdates);
+
+  /**
+   * Sets the most calls to user-defined commands that can be nested before running a command
+   * fails. Ten thousand calls are allowed by default. Raising the limit to a million lets a
+   * recursion take about 500 MB of stack if none of its calls are tail calls.
+   *
+   * @param maxDepth - The maximum number of nested calls.
+   */
+  void setMaxCallDepth(int maxDepth);
+
+  /**
+   * Sets how many times the body of a user-defined command or loop runs before it is compiled
+   * instead of being walked as a tree.
+   *
+   * @param threshold - The number of runs, or 0 to never compile.
+   */
+  void setCompileThreshold(int threshold);
+
+  /**
+   * Sets how many turtles must be active before commands that only move or turn each turtle are
+   * applied to them in parallel. The turtles end up in the same state, and the view gets their
+   * updates in the same order, as when they are moved one at a time.
+   *
+   * @param threshold - The least number of active turtles, or 0 to never run in parallel.
+   */
+  void setParallelThreshold(int threshold);
+
+  /**
+   * Sets whether commands are simplified after they are parsed, by folding constant expressions and
+   * removing branches that can never run.
+   *
+   * @param optimizing - Whether parsed commands are simplified.
+   */
+  void setOptimizing(boolean optimizing);
+
+  /**
+   * Sets how many characters of parsed programs are kept, so that running a program again skips
+   * parsing it. Programs that only differ in comments or whitespace count as the same.
+   *
+   * @param maxChars - The total length of the programs kept, or 0 to always parse.
+   */
+  void setParseCacheSize(int maxChars);
+
+  /**
+   * Sets the most steps a command may run before it is stopped, where a step is one run of a list
+   * of commands such as a loop body.
+   *
+   * @param maxSteps - The number of steps, or 0 for no limit.
+   */
+  void setMaxSteps(long maxSteps);
+
+  /**
+   * Stops the command that is running. This can be called from any thread.
+   */
+  void cancel();
+
+  /**
+   * Pauses the command that is running until it is resumed or stopped. This can be called from any
+   * thread.
+   */
+  void pause();
+
+  /**
+   * Lets a paused command continue. This can be called from any thread.
+   */
+  void resume();
+
   /**
    * Add turtle.
    */
@@ -46,6 +138,13 @@ public interface TrackableEnvironment {
    */
   void setCurrTurtle(List<Integer> turtle);
 
+  /**
+   * Gets how long the last command took to parse and to run, and how many commands it ran.
+   *
+   * @return the record of the last command, which is all zeros if none ran
+   */
+  RunRecord getLastRun();
+
   /**
    * Gets tracker.
    *
@@ -60,10 +159,52 @@ public interface TrackableEnvironment {
    */
   void save(File saveLocation);
 
+  /**
+   * Save the turtles, variables and user-defined commands as a snapshot
+   *
+   * @param saveLocation the save location
+   * @param compress     whether to deflate the snapshot, which makes big workspaces smaller but
+   *                     slower to save
+   */
+  void save(File saveLocation, boolean compress);
+
+  /**
+   * Get every line the turtles have drawn since the screen was last cleared
+   *
+   * @return the log of the lines
+   */
+  SegmentLog getSegments();
+
+  /**
+   * Keep the lines in a file mapped in memory instead of in memory alone, so drawings of tens of
+   * millions of lines do not need the memory to hold them. The log from {@link #getSegments()}
+   * stays the same, so whoever already holds it keeps seeing every line.
+   *
+   * @param segmentLocation the file, which is overwritten
+   */
+  void mapSegments(File segmentLocation);
+
   /**
    * Load.
    *
    * @param loadLocation the load location
+   * @throws NotASavedEnvironmentException if the file is not a snapshot saved by this version
    */
   void load(File loadLocation);
+
+  /**
+   * Append every command that runs and every change the view asks for to a journal, so the session
+   * can be recovered after a crash. If the journal already has entries, the environment is first
+   * brought to the state they end in, without the view seeing each step.
+   *
+   * @param journalLocation    the journal file, created if it does not exist
+   * @param checkpointInterval the number of entries between two snapshots of the environment, or 0
+   *                           to never take one
+   */
+  void startJournal(File journalLocation, int checkpointInterval);
+
+  /**
+   * Stop appending to the journal and close it
+   */
+  void stopJournal();
 }
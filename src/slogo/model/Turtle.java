@@ -10,25 +10,40 @@ import slogo.model.notifiers.TurtleNotifier;
  * NOTE: when the following functions are called, they should notifies the environment
  * <p>
  * NOTE: the x-coordinate used is pointing RIGHT, and the y-coordinate is pointing UP
+ * <p>
+ * The state itself is kept in a {@link TurtleStore}, and a turtle only knows where in the store it
+ * is. A turtle created on its own has a store of its own, until it is added to a bigger one.
  */
 public class Turtle implements Serializable {
 
-  private int id;
-  private double x = 0;
-  private double y = 0;
-  private boolean visible = true;
-  private double rotation = 0;
-  private boolean penDown = true;
+  private TurtleStore store;
+  private int index;
 
   private transient TurtleNotifier notifier;
+  private transient boolean holdingUpdates = false;
 
   public int getId() {
-    return id;
+    return store.getId(index);
   }
 
   public Turtle(int id, TurtleNotifier notifier) {
     this.notifier = notifier;
-    this.id = id;
+    this.store = new TurtleStore(1);
+    this.index = store.allocate(id, this);
+  }
+
+  Turtle(TurtleStore store, int index, TurtleNotifier notifier) {
+    this.store = store;
+    this.index = index;
+    this.notifier = notifier;
+  }
+
+  /**
+   * Point this turtle at its state in another store, once the store has copied it
+   */
+  void moveTo(TurtleStore newStore, int newIndex) {
+    store = newStore;
+    index = newIndex;
   }
 
   public Turtle clone(int newId, TurtleNotifier newCallback) {
@@ -38,11 +53,34 @@ public class Turtle implements Serializable {
   }
 
   public void sendUpdate() {
+    if (holdingUpdates) {
+      return;
+    }
     notifier.notifyTurtleUpdate(createRecord());
   }
 
+  /**
+   * Stop sending updates, and keep the lines the turtle draws, until {@link #releaseUpdates()} is
+   * called. Notifiers are not thread-safe and the lines should be recorded in the order the turtles
+   * are active, so this is used while turtles are changed from several threads at once.
+   */
+  public void holdUpdates() {
+    holdingUpdates = true;
+    store.holdLines(index);
+  }
+
+  /**
+   * Start sending updates again, add the lines drawn while they were held and send the current
+   * state
+   */
+  public void releaseUpdates() {
+    holdingUpdates = false;
+    store.releaseLines(index);
+    sendUpdate();
+  }
+
   private TurtleRecord createRecord() {
-    return new TurtleRecord(id, x, y, rotation, visible, penDown);
+    return new TurtleRecord(getId(), getX(), getY(), getRotation(), isVisible(), isPenDown());
   }
 
   /**
@@ -52,7 +90,7 @@ public class Turtle implements Serializable {
    *                 counter-clockwise
    */
   public void rotate(double rotation) {
-    this.rotation = clampDegree(this.rotation + rotation);
+    store.setRotation(index, clampDegree(getRotation() + rotation));
     sendUpdate();
   }
 
@@ -61,13 +99,11 @@ public class Turtle implements Serializable {
    * right
    */
   private double clampDegree(double deg) {
-    // first clamp to 0-360
-    while (deg < 0) {
+    // first clamp to 0-360, without looping on a huge or infinite angle
+    deg %= 360;
+    if (deg < 0) {
       deg += 360;
     }
-    while (deg > 360) {
-      deg -= 360;
-    }
 
     // then clamp to [-180, 180]
     if (deg > 180) {
@@ -83,12 +119,11 @@ public class Turtle implements Serializable {
    * @param delta Number of pixels to move.
    */
   public void move(double delta) {
-    double rad = Math.toRadians(rotation);
+    double rad = Math.toRadians(getRotation());
     double deltaX = delta * Math.sin(rad);
     double deltaY = delta * Math.cos(rad);
 
-    this.x += deltaX;
-    this.y += deltaY;
+    store.drawTo(index, getX() + deltaX, getY() + deltaY);
     sendUpdate();
   }
 
@@ -96,7 +131,7 @@ public class Turtle implements Serializable {
    * Set absolute rotation.
    */
   public void setRotation(double rotation) {
-    this.rotation = clampDegree(rotation);
+    store.setRotation(index, clampDegree(rotation));
     sendUpdate();
   }
 
@@ -104,8 +139,7 @@ public class Turtle implements Serializable {
    * Set absolute position.
    */
   public void setPosition(double x, double y) {
-    this.x = x;
-    this.y = y;
+    store.drawTo(index, x, y);
     sendUpdate();
   }
 
@@ -113,37 +147,38 @@ public class Turtle implements Serializable {
    * Get current absolute rotation.
    */
   public double getRotation() {
-    return this.rotation;
+    return store.getRotation(index);
   }
 
   public double getX() {
-    return x;
+    return store.getX(index);
   }
 
   public double getY() {
-    return y;
+    return store.getY(index);
   }
 
   public boolean isVisible() {
-    return visible;
+    return store.isVisible(index);
   }
 
   public void setVisible(boolean visible) {
-    this.visible = visible;
+    store.setVisible(index, visible);
     sendUpdate();
   }
 
   public void setPenDown(boolean penDown) {
-    this.penDown = penDown;
+    store.setPenDown(index, penDown);
     sendUpdate();
   }
 
   public boolean isPenDown() {
-    return this.penDown;
+    return store.isPenDown(index);
   }
 
   public void update(TurtleRecord record) {
-    setPosition(record.xCoord(), record.yCoord());
-    setRotation(record.rotation());
+    store.drawTo(index, record.xCoord(), record.yCoord());
+    store.setRotation(index, clampDegree(record.rotation()));
+    sendUpdate();
   }
 }
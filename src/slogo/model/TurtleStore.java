@@ -0,0 +1,250 @@
+package slogo.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Stores the state of many turtles in parallel arrays, one array per property, instead of one
+ * object per turtle.
+ * <p>
+ * This class assumes that a turtle belongs to one store at a time. Each turtle in the store is a
+ * {@link Turtle} that only knows its index, so reading or changing it reads or changes the arrays,
+ * and going through every turtle walks the arrays in order. Every turtle has its own element in each
+ * array, so different turtles can be changed from different threads.
+ * <p>
+ * This class depends on Java's util package
+ * <p>
+ * A store is used as the list of turtles of an environment. Adding a turtle that was created on its
+ * own moves its state into the store, and the same Turtle object keeps working as a view of it. The
+ * lines the turtles of the store draw are added to its {@link SegmentLog}, if it has one. While a
+ * turtle holds its lines, they are kept with the turtle instead and added when it releases them, so
+ * turtles moved on several threads at once add their lines in the order they are released.
+ *
+ * @see Turtle
+ */
+public class TurtleStore extends AbstractList<Turtle> implements RandomAccess, Serializable {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final byte VISIBLE = 1;
+  private static final byte PEN_DOWN = 2;
+  private static final int INITIAL_HELD_LINES = 2;
+  private static final int LINE_VALUES = 4;
+
+  private int[] ids;
+  private double[] xs;
+  private double[] ys;
+  private double[] rotations;
+  private byte[] flags;
+  private int size = 0;
+  private transient Turtle[] views;
+  private transient HeldLines[] heldLines;
+  private transient SegmentLog segments;
+
+  /**
+   * The lines a turtle drew while it held them, as x0, y0, x1 and y1 one after the other
+   */
+  private static class HeldLines {
+
+    private double[] lines = new double[INITIAL_HELD_LINES * LINE_VALUES];
+    private int size = 0;
+
+    private void add(double x0, double y0, double x1, double y1) {
+      if (size == lines.length) {
+        lines = Arrays.copyOf(lines, size * 2);
+      }
+      lines[size++] = x0;
+      lines[size++] = y0;
+      lines[size++] = x1;
+      lines[size++] = y1;
+    }
+  }
+
+  /**
+   * Instantiates a new, empty TurtleStore.
+   */
+  public TurtleStore() {
+    this(INITIAL_CAPACITY);
+  }
+
+  TurtleStore(int capacity) {
+    ids = new int[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    rotations = new double[capacity];
+    flags = new byte[capacity];
+    views = new Turtle[capacity];
+    heldLines = new HeldLines[capacity];
+  }
+
+  @Override
+  public Turtle get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return views[index];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Add a turtle to the end of the store. Its state is copied into the store, and from then on the
+   * turtle reads and changes the store.
+   *
+   * @param turtle the turtle to add
+   * @return true
+   */
+  @Override
+  public boolean add(Turtle turtle) {
+    int index = allocate(turtle.getId(), turtle);
+    setPosition(index, turtle.getX(), turtle.getY());
+    setRotation(index, turtle.getRotation());
+    setVisible(index, turtle.isVisible());
+    setPenDown(index, turtle.isPenDown());
+
+    turtle.moveTo(this, index);
+    return true;
+  }
+
+  /**
+   * Make room for a new turtle at the origin, facing up, visible and with its pen down
+   *
+   * @return the index of the new turtle
+   */
+  int allocate(int id, Turtle view) {
+    ensureCapacity(size + 1);
+    ids[size] = id;
+    xs[size] = 0;
+    ys[size] = 0;
+    rotations[size] = 0;
+    flags[size] = VISIBLE | PEN_DOWN;
+    views[size] = view;
+    modCount++;
+    return size++;
+  }
+
+  int getId(int index) {
+    return ids[index];
+  }
+
+  double getX(int index) {
+    return xs[index];
+  }
+
+  double getY(int index) {
+    return ys[index];
+  }
+
+  double getRotation(int index) {
+    return rotations[index];
+  }
+
+  boolean isVisible(int index) {
+    return (flags[index] & VISIBLE) != 0;
+  }
+
+  boolean isPenDown(int index) {
+    return (flags[index] & PEN_DOWN) != 0;
+  }
+
+  void setPosition(int index, double x, double y) {
+    xs[index] = x;
+    ys[index] = y;
+  }
+
+  /**
+   * Move a turtle, adding the line it draws to the segment log if its pen is down
+   */
+  void drawTo(int index, double x, double y) {
+    if (segments != null && isPenDown(index) && (x != xs[index] || y != ys[index])) {
+      HeldLines held = heldLines[index];
+      if (held != null) {
+        held.add(xs[index], ys[index], x, y);
+      } else {
+        segments.add(ids[index], xs[index], ys[index], x, y);
+      }
+    }
+    setPosition(index, x, y);
+  }
+
+  /**
+   * Keep the lines a turtle draws until {@link #releaseLines(int)} is called, instead of adding
+   * them to the segment log as they are drawn. Only the thread moving the turtle may call this.
+   */
+  void holdLines(int index) {
+    if (heldLines[index] == null) {
+      heldLines[index] = new HeldLines();
+    }
+  }
+
+  /**
+   * Add the lines a turtle drew since {@link #holdLines(int)} to the segment log, with the pen it
+   * has now, and add its lines as they are drawn again
+   */
+  void releaseLines(int index) {
+    HeldLines held = heldLines[index];
+    heldLines[index] = null;
+    if (held == null || segments == null) {
+      return;
+    }
+    for (int i = 0; i < held.size; i += LINE_VALUES) {
+      segments.add(ids[index], held.lines[i], held.lines[i + 1], held.lines[i + 2],
+          held.lines[i + 3]);
+    }
+  }
+
+  /**
+   * Set the log the lines drawn by the turtles of this store are added to
+   *
+   * @param segments the log, or null to not keep the lines
+   */
+  public void setSegments(SegmentLog segments) {
+    this.segments = segments;
+  }
+
+  void setRotation(int index, double rotation) {
+    rotations[index] = rotation;
+  }
+
+  void setVisible(int index, boolean visible) {
+    setFlag(index, VISIBLE, visible);
+  }
+
+  void setPenDown(int index, boolean penDown) {
+    setFlag(index, PEN_DOWN, penDown);
+  }
+
+  private void setFlag(int index, byte flag, boolean value) {
+    flags[index] = (byte) (value ? flags[index] | flag : flags[index] & ~flag);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= xs.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, xs.length * 2);
+    ids = Arrays.copyOf(ids, newCapacity);
+    xs = Arrays.copyOf(xs, newCapacity);
+    ys = Arrays.copyOf(ys, newCapacity);
+    rotations = Arrays.copyOf(rotations, newCapacity);
+    flags = Arrays.copyOf(flags, newCapacity);
+    views = Arrays.copyOf(views, newCapacity);
+    heldLines = Arrays.copyOf(heldLines, newCapacity);
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    // the turtles are not saved with the store, they are views that can be made again
+    views = new Turtle[xs.length];
+    heldLines = new HeldLines[xs.length];
+    for (int i = 0; i < size; ++i) {
+      views[i] = new Turtle(this, i, null);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package slogo.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import slogo.model.notifiers.TurtleNotifier;
+import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+
+/**
+ * Holds back turtle updates while a command runs and sends them as one delta, so that changing many
+ * turtles does not call the view once per change.
+ * <p>
+ * This class assumes that the view draws a line from the last state it was sent for a turtle to
+ * the next one whenever the pen is down. Only the latest state of a turtle is kept, unless dropping
+ * the state before it would change the lines the view draws, in which case that state is kept as
+ * well.
+ * <p>
+ * This class depends on the notifiers package and the records package
+ * <p>
+ * The environment gives this buffer to its turtles in place of the real notifier and flushes it
+ * after every command. It can also be flushed after a number of updates or once an interval has
+ * passed, so that long commands still show progress.
+ *
+ * @see TurtlesDeltaRecord
+ */
+public class TurtleUpdateBuffer implements TurtleNotifier {
+
+  private final TurtleNotifier target;
+  private final Map<Integer, TurtleRecord> latest = new LinkedHashMap<>();
+  private final Map<Integer, TurtleRecord> shown = new HashMap<>();
+  private final List<TurtleRecord> passed = new ArrayList<>();
+  private int maxUpdates = 0;
+  private long interval = 0;
+  private int updates = 0;
+  private LongSupplier clock = System::nanoTime;
+  private long lastFlush = clock.getAsLong();
+
+  /**
+   * Instantiates a new TurtleUpdateBuffer.
+   *
+   * @param target the notifier the deltas are sent to
+   */
+  public TurtleUpdateBuffer(TurtleNotifier target) {
+    this.target = target;
+  }
+
+  @Override
+  public void notifyTurtleUpdate(TurtleRecord info) {
+    TurtleRecord previous = latest.put(info.id(), info);
+    if (previous != null && drawsDifferentLines(previous, info)) {
+      passed.add(previous);
+      shown.put(previous.id(), previous);
+    }
+
+    updates++;
+    if ((maxUpdates > 0 && updates >= maxUpdates)
+        || (interval > 0 && clock.getAsLong() - lastFlush >= interval)) {
+      flushTurtleUpdates();
+    }
+  }
+
+  /**
+   * Send every update held back since the last flush to the target as one delta. The interval is
+   * counted from when the target is done with it, so a target slower than the interval still gets
+   * time between deltas.
+   */
+  @Override
+  public void flushTurtleUpdates() {
+    updates = 0;
+    if (!latest.isEmpty()) {
+      List<TurtleRecord> changes = new ArrayList<>(passed.size() + latest.size());
+      changes.addAll(passed);
+      changes.addAll(latest.values());
+      shown.putAll(latest);
+      passed.clear();
+      latest.clear();
+      target.notifyTurtleDelta(new TurtlesDeltaRecord(changes));
+    }
+    lastFlush = clock.getAsLong();
+  }
+
+  /**
+   * Set how many updates can be held back before they are sent without waiting for the command to
+   * finish
+   *
+   * @param maxUpdates the number of updates, or 0 for no limit
+   */
+  public void setMaxUpdates(int maxUpdates) {
+    this.maxUpdates = maxUpdates;
+  }
+
+  /**
+   * Set how long updates can be held back before they are sent without waiting for the command to
+   * finish, for example the length of a frame
+   *
+   * @param millis the least number of milliseconds between two deltas, or 0 for no limit
+   */
+  public void setInterval(long millis) {
+    interval = TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  /**
+   * Set where the time the interval is measured with comes from, in nanoseconds
+   */
+  void setClock(LongSupplier clock) {
+    this.clock = clock;
+    lastFlush = clock.getAsLong();
+  }
+
+  /**
+   * Check if sending the next state without the previous one would draw other lines than sending
+   * both, given the state the view was last sent
+   */
+  private boolean drawsDifferentLines(TurtleRecord previous, TurtleRecord next) {
+    TurtleRecord last = shown.get(previous.id());
+    if (last != null && !hasMoved(last, previous)) {
+      return false;
+    }
+    if (!previous.penDown() && !next.penDown()) {
+      return false;
+    }
+    return hasMoved(previous, next) || previous.penDown() != next.penDown();
+  }
+
+  private boolean hasMoved(TurtleRecord from, TurtleRecord to) {
+    return from.xCoord() != to.xCoord() || from.yCoord() != to.yCoord();
+  }
+}
@@ -0,0 +1,77 @@
+package slogo.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every variable name a numeric slot, so the value of a variable can be stored in an array
+ * instead of being looked up by name.
+ * <p>
+ * This class assumes that a slot is never taken away once it is given, so a slot that was found
+ * once stays valid for as long as the same instance is used.
+ * <p>
+ * This class depends on Java's util package
+ * <p>
+ * An execution scope and all of its clones share one instance. Nodes find the slot of their
+ * variable once and can then read and write its value with the slot.
+ *
+ * @see ExecutionScope
+ */
+public class VariableSlots implements Serializable {
+
+  /**
+   * The slot returned for a name that does not have one.
+   */
+  public static final int NONE = -1;
+
+  private final Map<String, Integer> slots = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+
+  /**
+   * Gets the slot of a variable, giving it the next free slot if it does not have one yet.
+   *
+   * @param name the name of the variable
+   * @return the slot of the variable
+   */
+  public int getSlot(String name) {
+    Integer slot = slots.get(name);
+    if (slot == null) {
+      slot = names.size();
+      slots.put(name, slot);
+      names.add(name);
+    }
+    return slot;
+  }
+
+  /**
+   * Gets the slot of a variable without giving it one.
+   *
+   * @param name the name of the variable
+   * @return the slot of the variable, or {@link #NONE} if it has no slot
+   */
+  public int findSlot(String name) {
+    return slots.getOrDefault(name, NONE);
+  }
+
+  /**
+   * Gets the name of the variable in a slot.
+   *
+   * @param slot the slot of the variable
+   * @return the name of the variable
+   */
+  public String getName(int slot) {
+    return names.get(slot);
+  }
+
+  /**
+   * Gets the number of slots that have been given.
+   *
+   * @return the number of slots
+   */
+  public int size() {
+    return names.size();
+  }
+}
@@ -0,0 +1,22 @@
+package slogo.model.notifiers;
+
+/**
+ * What an {@link EventBus} does when a subscriber falls a whole ring of events behind.
+ */
+public enum Backpressure {
+  /**
+   * The publisher waits until the subscriber has made room. Nothing is lost, but a slow subscriber
+   * slows the model down.
+   */
+  BLOCK,
+  /**
+   * The subscriber skips the events that were overwritten and carries on with the oldest one left.
+   */
+  DROP_OLDEST,
+  /**
+   * The subscriber skips every event it missed, and is first given the latest state of the
+   * environment, the variables, the commands and every turtle instead. Lines drawn in the skipped
+   * events are lost, but the state it ends up with is the current one.
+   */
+  COALESCE
+}
@@ -5,6 +5,8 @@ import slogo.records.CommandsRecord;
 import slogo.records.DisplayVariable;
 import slogo.records.EnvironmentRecord;
 import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+import slogo.records.VariablesDeltaRecord;
 import slogo.records.VariablesRecord;
 
 /**
@@ -12,26 +14,36 @@ import slogo.records.VariablesRecord;
  * instance of each other. The methods sets and calls functional interfaces for each piece of the
  * program to communicate with another
  * <p>
+ * Everything the model notifies is published on an {@link EventBus}. The callbacks set here are
+ * called by an inline subscription to that bus, and other subscribers can read the same events.
+ * <p>
  * This class depends on the records package
  * <p>
  * This class can be used by both the model and the view to call and set listeners wherever needed.
  */
 public class Delegate implements ModelTracker, EnvironmentNotifier, TurtleNotifier {
 
+  private final EventBus eventBus = new EventBus();
+
   private Consumer<TurtleRecord> updateTurtleCallback;
+  private Consumer<TurtlesDeltaRecord> turtlesDeltaCallback;
   private Consumer<CommandsRecord> updateCommandsCallback;
   private Consumer<VariablesRecord> updateVariablesCallback;
+  private Consumer<VariablesDeltaRecord> variablesDeltaCallback;
   private Consumer<EnvironmentRecord> updateEnvironmentCallback;
   private Runnable clearEnvironmentCallback;
 
   private Consumer<TurtleRecord> requestTurtleCallback;
   private Consumer<DisplayVariable> requestVarCallback;
   private Consumer<EnvironmentRecord> requestEnvCallback;
+  private boolean muted = false;
 
   /**
    * Instantiates a new Delegate.
    */
-  public Delegate() {};
+  public Delegate() {
+    eventBus.subscribe(this::dispatch);
+  }
 
   private Delegate(
       Consumer<TurtleRecord> updateTurtleCallback,
@@ -39,6 +51,7 @@ public class Delegate implements ModelTracker, EnvironmentNotifier, TurtleNotifi
       Consumer<EnvironmentRecord> updateEnvironmentCallback,
       Runnable clearEnvironmentCallback) {
 
+    this();
     this.updateTurtleCallback = updateTurtleCallback;
     this.updateCommandsCallback = updateCommandsCallback;
     this.updateEnvironmentCallback = updateEnvironmentCallback;
@@ -54,38 +67,92 @@ public class Delegate implements ModelTracker, EnvironmentNotifier, TurtleNotifi
         clearEnvironmentCallback);
   }
 
+  @Override
+  public EventBus getEventBus() {
+    return eventBus;
+  }
+
   @Override
   public void notifyCommandUpdate(CommandsRecord info) {
-    if (updateCommandsCallback != null) {
-      updateCommandsCallback.accept(info);
-    }
+    publish(EventType.COMMAND_UPDATE, info);
   }
 
   @Override
   public void notifyVariableUpdate(VariablesRecord info) {
-    if (updateVariablesCallback != null) {
-      updateVariablesCallback.accept(info);
-    }
+    publish(EventType.VARIABLE_UPDATE, info);
+  }
+
+  @Override
+  public void notifyVariableDelta(VariablesDeltaRecord delta) {
+    publish(EventType.VARIABLE_DELTA, delta);
   }
 
   @Override
   public void notifyTurtleUpdate(TurtleRecord info) {
-    if (updateTurtleCallback != null) {
-      updateTurtleCallback.accept(info);
-    }
+    publish(EventType.TURTLE_UPDATE, info);
+  }
+
+  @Override
+  public void notifyTurtleDelta(TurtlesDeltaRecord delta) {
+    publish(EventType.TURTLE_DELTA, delta);
   }
 
   @Override
   public void notifyEnvClear() {
-    if (clearEnvironmentCallback != null) {
-      clearEnvironmentCallback.run();
-    }
+    publish(EventType.ENV_CLEAR, null);
   }
 
   @Override
   public void notifyEnvUpdate(EnvironmentRecord record) {
-    if (updateEnvironmentCallback != null) {
-      updateEnvironmentCallback.accept(record);
+    publish(EventType.ENV_UPDATE, record);
+  }
+
+  /**
+   * Drop every notification until this is called again with false, so nothing is published while
+   * the model is brought back to a state it was in before
+   *
+   * @param muted whether notifications are dropped
+   */
+  public void setMuted(boolean muted) {
+    this.muted = muted;
+  }
+
+  private void publish(EventType type, Object record) {
+    if (!muted) {
+      eventBus.publish(type, record);
+    }
+  }
+
+  /**
+   * Call the callback set for an event published on the bus
+   */
+  private void dispatch(EventType type, Object record, long sequence, boolean endOfBatch) {
+    switch (type) {
+      case COMMAND_UPDATE -> accept(updateCommandsCallback, (CommandsRecord) record);
+      case VARIABLE_UPDATE -> accept(updateVariablesCallback, (VariablesRecord) record);
+      case VARIABLE_DELTA -> accept(variablesDeltaCallback, (VariablesDeltaRecord) record);
+      case TURTLE_UPDATE -> accept(updateTurtleCallback, (TurtleRecord) record);
+      case TURTLE_DELTA -> {
+        TurtlesDeltaRecord delta = (TurtlesDeltaRecord) record;
+        accept(turtlesDeltaCallback, delta);
+        if (updateTurtleCallback != null) {
+          for (TurtleRecord info : delta.changes()) {
+            updateTurtleCallback.accept(info);
+          }
+        }
+      }
+      case ENV_CLEAR -> {
+        if (clearEnvironmentCallback != null) {
+          clearEnvironmentCallback.run();
+        }
+      }
+      case ENV_UPDATE -> accept(updateEnvironmentCallback, (EnvironmentRecord) record);
+    }
+  }
+
+  private <T> void accept(Consumer<T> callback, T record) {
+    if (callback != null) {
+      callback.accept(record);
     }
   }
 
@@ -101,10 +168,18 @@ public class Delegate implements ModelTracker, EnvironmentNotifier, TurtleNotifi
     updateTurtleCallback = callback;
   }
 
+  public void setOnTurtleDelta(Consumer<TurtlesDeltaRecord> callback) {
+    turtlesDeltaCallback = callback;
+  }
+
   public void setOnVarUpdate(Consumer<VariablesRecord> callback) {
     updateVariablesCallback = callback;
   }
 
+  public void setOnVarDelta(Consumer<VariablesDeltaRecord> callback) {
+    variablesDeltaCallback = callback;
+  }
+
   public void setOnCommandUpdate(Consumer<CommandsRecord> callback) {
     updateCommandsCallback = callback;
   }
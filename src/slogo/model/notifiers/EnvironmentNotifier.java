@@ -5,6 +5,7 @@ import slogo.records.CommandsRecord;
 import slogo.records.DisplayVariable;
 import slogo.records.EnvironmentRecord;
 import slogo.records.TurtleRecord;
+import slogo.records.VariablesDeltaRecord;
 import slogo.records.VariablesRecord;
 
 /**
@@ -36,6 +37,13 @@ public interface EnvironmentNotifier {
    */
   void notifyVariableUpdate(VariablesRecord info);
 
+  /**
+   * Notifies the listener of the variables that changed since the last update.
+   *
+   * @param delta - The changed variables to pass to listeners
+   */
+  void notifyVariableDelta(VariablesDeltaRecord delta);
+
   /**
    * Notify the environment was cleared.
    */
@@ -0,0 +1,217 @@
+package slogo.model.notifiers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import slogo.records.DisplayVariable;
+import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+import slogo.records.VariablesDeltaRecord;
+import slogo.records.VariablesRecord;
+
+/**
+ * Passes the events of the model to any number of subscribers through a bounded ring of events,
+ * without locks.
+ * <p>
+ * This class assumes that records are not changed once they are published. Every event gets the
+ * next sequence number and the slot of the ring at that number. A publisher claims a number, puts
+ * the event in the slot as one object holding its type, record and number, then tells every
+ * subscriber there is something to read. A subscriber that reads a slot therefore sees one whole
+ * event, and knows from its number whether it is the one it wanted or a later one. Each
+ * subscriber remembers the last number it read, and reads every event after it in one batch on its
+ * own executor, so a subscriber that runs on another thread never makes the publisher wait unless
+ * it asked for {@link Backpressure#BLOCK} and is a whole ring behind.
+ * <p>
+ * This class depends on the records package and Java's concurrent package
+ * <p>
+ * The delegate publishes everything it is notified of on its bus, and gets its own callbacks
+ * through an inline subscription. A recorder or a metrics sink can subscribe to the same bus with
+ * {@link #subscribe(EventHandler, Executor, Backpressure)}.
+ */
+public class EventBus {
+
+  /**
+   * The number of events a subscriber can fall behind by default
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+  private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  private static final EventType[] SNAPSHOTS = {
+      EventType.ENV_UPDATE, EventType.COMMAND_UPDATE, EventType.VARIABLE_UPDATE};
+
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<Event> events;
+  private final AtomicLong claimed = new AtomicLong(-1);
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  // the latest state, kept once a subscriber may need to catch up with it
+  private volatile boolean keepingLatest = false;
+  private final AtomicReferenceArray<Object> latestSnapshots =
+      new AtomicReferenceArray<>(EventType.values().length);
+  private final Map<Integer, TurtleRecord> latestTurtles = new ConcurrentHashMap<>();
+
+  /**
+   * An event in its slot of the ring
+   */
+  record Event(EventType type, Object record, long sequence) {
+
+  }
+
+  /**
+   * Create a bus whose subscribers can fall {@link #DEFAULT_CAPACITY} events behind
+   */
+  public EventBus() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a bus whose subscribers can fall a number of events behind
+   *
+   * @param capacity the size of the ring, rounded up to a power of two
+   */
+  public EventBus(int capacity) {
+    this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    this.mask = this.capacity - 1;
+    events = new AtomicReferenceArray<>(this.capacity);
+  }
+
+  /**
+   * Publish an event to every subscriber. Any thread can publish.
+   *
+   * @param type   the kind of event
+   * @param record the record it carries, or null if it has none
+   * @return the sequence number of the event
+   */
+  public long publish(EventType type, Object record) {
+    if (keepingLatest) {
+      keepLatest(type, record);
+    }
+
+    long sequence = claimed.incrementAndGet();
+    waitForRoom(sequence);
+    events.set((int) sequence & mask, new Event(type, record, sequence));
+
+    for (Subscription subscription : subscriptions) {
+      subscription.signal();
+    }
+    return sequence;
+  }
+
+  /**
+   * Subscribe a handler that is called on the thread that publishes, before publish returns
+   */
+  public Subscription subscribe(EventHandler handler) {
+    return subscribe(handler, Runnable::run, Backpressure.BLOCK);
+  }
+
+  /**
+   * Subscribe a handler to every event published from now on
+   *
+   * @param handler  the handler to call with each event
+   * @param executor the executor that goes through the events available, one batch at a time
+   * @param policy   what to do when the handler falls a whole ring behind
+   * @return the subscription, which can be cancelled
+   */
+  public Subscription subscribe(EventHandler handler, Executor executor, Backpressure policy) {
+    if (policy == Backpressure.COALESCE) {
+      keepingLatest = true;
+    }
+    Subscription subscription =
+        new Subscription(this, handler, executor, policy, claimed.get());
+    subscriptions.add(subscription);
+    return subscription;
+  }
+
+  void unsubscribe(Subscription subscription) {
+    subscriptions.remove(subscription);
+  }
+
+  /**
+   * Get the sequence number of the last event published, or -1 if there is none
+   */
+  public long getCursor() {
+    return claimed.get();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Check whether the event at a sequence number is in its slot
+   */
+  boolean isPublished(long sequence) {
+    return getEvent(sequence) != null;
+  }
+
+  /**
+   * Get the event at a sequence number
+   *
+   * @return the event, or null if it is not in its slot yet or was overwritten
+   */
+  Event getEvent(long sequence) {
+    Event event = events.get((int) sequence & mask);
+    return event != null && event.sequence() == sequence ? event : null;
+  }
+
+  /**
+   * Make the events that describe the latest state, for a subscriber that skipped what it missed
+   */
+  List<Object[]> getLatestState() {
+    List<Object[]> events = new ArrayList<>();
+    for (EventType type : SNAPSHOTS) {
+      Object record = latestSnapshots.get(type.ordinal());
+      if (record != null) {
+        events.add(new Object[]{type, record});
+      }
+    }
+    Object variables = latestSnapshots.get(EventType.VARIABLE_UPDATE.ordinal());
+    if (variables != null) {
+      List<DisplayVariable> all = ((VariablesRecord) variables).variables();
+      events.add(new Object[]{EventType.VARIABLE_DELTA, new VariablesDeltaRecord(all)});
+    }
+    if (!latestTurtles.isEmpty()) {
+      List<TurtleRecord> turtles = new ArrayList<>(latestTurtles.values());
+      events.add(new Object[]{EventType.TURTLE_DELTA, new TurtlesDeltaRecord(turtles)});
+    }
+    return events;
+  }
+
+  private void keepLatest(EventType type, Object record) {
+    switch (type) {
+      case TURTLE_UPDATE -> latestTurtles.put(((TurtleRecord) record).id(), (TurtleRecord) record);
+      case TURTLE_DELTA -> {
+        for (TurtleRecord turtle : ((TurtlesDeltaRecord) record).changes()) {
+          latestTurtles.put(turtle.id(), turtle);
+        }
+      }
+      case ENV_UPDATE, COMMAND_UPDATE, VARIABLE_UPDATE -> latestSnapshots.set(type.ordinal(), record);
+      default -> {
+      }
+    }
+  }
+
+  /**
+   * Wait until every blocking subscriber has read the event that the new one would overwrite
+   */
+  private void waitForRoom(long sequence) {
+    long overwritten = sequence - capacity;
+    if (overwritten < 0) {
+      return;
+    }
+    for (Subscription subscription : subscriptions) {
+      while (subscription.getPolicy() == Backpressure.BLOCK && subscription.isActive()
+          && subscription.getSequence() < overwritten) {
+        subscription.signal();
+        LockSupport.parkNanos(WAIT_NANOS);
+      }
+    }
+  }
+}
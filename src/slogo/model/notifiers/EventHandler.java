@@ -0,0 +1,19 @@
+package slogo.model.notifiers;
+
+/**
+ * Receives the events of an {@link EventBus}, in the order they were published.
+ */
+@FunctionalInterface
+public interface EventHandler {
+
+  /**
+   * Handle one event
+   *
+   * @param type       the kind of event
+   * @param record     the record the event carries, or null if it has none
+   * @param sequence   the sequence number the event was published with
+   * @param endOfBatch whether this is the last event available for now, so work that was put off
+   *                   while going through the batch can be done
+   */
+  void onEvent(EventType type, Object record, long sequence, boolean endOfBatch);
+}
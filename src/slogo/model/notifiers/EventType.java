@@ -0,0 +1,36 @@
+package slogo.model.notifiers;
+
+/**
+ * The kinds of events the model publishes on its {@link EventBus}, together with the type of record
+ * each one carries.
+ */
+public enum EventType {
+  /**
+   * A {@link slogo.records.TurtleRecord} with the state of one turtle
+   */
+  TURTLE_UPDATE,
+  /**
+   * A {@link slogo.records.TurtlesDeltaRecord} with the turtles that changed
+   */
+  TURTLE_DELTA,
+  /**
+   * An {@link slogo.records.EnvironmentRecord} with the state of the environment
+   */
+  ENV_UPDATE,
+  /**
+   * No record, the lines drawn so far were cleared
+   */
+  ENV_CLEAR,
+  /**
+   * A {@link slogo.records.VariablesRecord} with every variable
+   */
+  VARIABLE_UPDATE,
+  /**
+   * A {@link slogo.records.VariablesDeltaRecord} with the variables that changed
+   */
+  VARIABLE_DELTA,
+  /**
+   * A {@link slogo.records.CommandsRecord} with every user-defined command
+   */
+  COMMAND_UPDATE
+}
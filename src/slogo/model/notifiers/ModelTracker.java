@@ -5,6 +5,8 @@ import slogo.records.CommandsRecord;
 import slogo.records.DisplayVariable;
 import slogo.records.EnvironmentRecord;
 import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+import slogo.records.VariablesDeltaRecord;
 import slogo.records.VariablesRecord;
 
 /**
@@ -22,6 +24,14 @@ import slogo.records.VariablesRecord;
  */
 public interface ModelTracker {
 
+  /**
+   * Get the bus every update of the model is published on, so that more than one listener can
+   * follow the same updates
+   *
+   * @return the event bus
+   */
+  EventBus getEventBus();
+
   /**
    * Set a listener to an update on the environment
    *
@@ -43,6 +53,14 @@ public interface ModelTracker {
    */
   void setOnTurtleUpdate(Consumer<TurtleRecord> callback);
 
+  /**
+   * Sets the callback is called with the turtle updates held back while a command ran, all at once.
+   * The callback set with {@link #setOnTurtleUpdate(Consumer)} is still called for each of them.
+   *
+   * @param callback - The callback that is called.
+   */
+  void setOnTurtleDelta(Consumer<TurtlesDeltaRecord> callback);
+
   /**
    * Sets the callback is called whenever there is an update to the variables within the
    * environment.
@@ -51,6 +69,15 @@ public interface ModelTracker {
    */
   void setOnVarUpdate(Consumer<VariablesRecord> callback);
 
+  /**
+   * Sets the callback is called with only the variables that were added or changed since the last
+   * update. Changes are coalesced, so it is called at most once per command run or update
+   * interval.
+   *
+   * @param callback - The callback that is called.
+   */
+  void setOnVarDelta(Consumer<VariablesDeltaRecord> callback);
+
   /**
    * Sets the callback is called whenever there is an update to the userdefined commands.
    *
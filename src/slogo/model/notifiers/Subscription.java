@@ -0,0 +1,136 @@
+package slogo.model.notifiers;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A handler subscribed to an {@link EventBus}, with the sequence number of the last event it read.
+ * <p>
+ * This class assumes that only one batch of a subscription runs at a time. A batch is handed to the
+ * executor when an event is published and none is waiting to run, and it keeps reading until no
+ * event is left, so events published while it runs are read by the same batch.
+ * <p>
+ * This class depends on Java's concurrent package
+ * <p>
+ * Subscriptions are made by {@link EventBus#subscribe(EventHandler, Executor, Backpressure)}.
+ */
+public class Subscription {
+
+  private final EventBus bus;
+  private final EventHandler handler;
+  private final Executor executor;
+  private final Backpressure policy;
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+  private final AtomicLong dropped = new AtomicLong(0);
+  private volatile long sequence;
+  private volatile boolean active = true;
+
+  Subscription(EventBus bus, EventHandler handler, Executor executor, Backpressure policy,
+      long sequence) {
+    this.bus = bus;
+    this.handler = handler;
+    this.executor = executor;
+    this.policy = policy;
+    this.sequence = sequence;
+  }
+
+  /**
+   * Stop receiving events. A batch that is running finishes the event it is on.
+   */
+  public void cancel() {
+    active = false;
+    bus.unsubscribe(this);
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+
+  public Backpressure getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Get the sequence number of the last event read
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Get the number of events that were skipped because the handler fell too far behind
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Make sure a batch will run, unless one is already waiting or running
+   */
+  void signal() {
+    if (active && scheduled.compareAndSet(false, true)) {
+      executor.execute(this::runBatches);
+    }
+  }
+
+  private void runBatches() {
+    do {
+      readAvailable();
+      scheduled.set(false);
+      // an event published after the last read but before the flag was cleared is read here
+    } while (active && hasAvailable() && scheduled.compareAndSet(false, true));
+  }
+
+  private boolean hasAvailable() {
+    long next = sequence + 1;
+    return bus.isPublished(next) || isOverwritten(next);
+  }
+
+  private boolean isOverwritten(long next) {
+    // a blocking subscriber is never overwritten, the publisher waits for it instead
+    return policy != Backpressure.BLOCK && bus.getCursor() - next >= bus.getCapacity();
+  }
+
+  private void readAvailable() {
+    while (active) {
+      long next = sequence + 1;
+      if (isOverwritten(next)) {
+        catchUp();
+        continue;
+      }
+      EventBus.Event event = bus.getEvent(next);
+      if (event == null) {
+        if (isOverwritten(next)) {
+          // overwritten since it was checked
+          continue;
+        }
+        // claimed but not written yet, its publisher signals once it is
+        return;
+      }
+      sequence = next;
+      handler.onEvent(event.type(), event.record(), next, !bus.isPublished(next + 1));
+    }
+  }
+
+  /**
+   * Skip the events this subscriber fell too far behind to read
+   */
+  private void catchUp() {
+    long cursor = bus.getCursor();
+    if (policy == Backpressure.COALESCE) {
+      dropped.addAndGet(cursor - sequence);
+      List<Object[]> latest = bus.getLatestState();
+      sequence = cursor;
+      for (int i = 0; i < latest.size(); ++i) {
+        handler.onEvent((EventType) latest.get(i)[0], latest.get(i)[1], cursor,
+            i == latest.size() - 1);
+      }
+    } else {
+      long oldest = cursor - bus.getCapacity() + 1;
+      dropped.addAndGet(oldest - 1 - sequence);
+      sequence = oldest - 1;
+    }
+  }
+}
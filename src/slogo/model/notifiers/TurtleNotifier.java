@@ -1,6 +1,7 @@
 package slogo.model.notifiers;
 
 import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
 
 /**
  * The Turtle notifier interface is used for a turtle to notify the environment
@@ -16,4 +17,22 @@ public interface TurtleNotifier {
    * @param info - The information to pass to listeners
    */
   void notifyTurtleUpdate(TurtleRecord info);
+
+  /**
+   * Notifies the listener of several updates at once. By default every update is sent on its own.
+   *
+   * @param delta - The updates to pass to listeners, in order
+   */
+  default void notifyTurtleDelta(TurtlesDeltaRecord delta) {
+    for (TurtleRecord info : delta.changes()) {
+      notifyTurtleUpdate(info);
+    }
+  }
+
+  /**
+   * Sends any updates that are being held back. Notifiers that send every update right away do
+   * nothing.
+   */
+  default void flushTurtleUpdates() {
+  }
 }
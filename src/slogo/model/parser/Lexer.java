@@ -0,0 +1,109 @@
+package slogo.model.parser;
+
+import slogo.exceptions.InvalidSyntaxException;
+import slogo.exceptions.UnknownIdentifierException;
+import slogo.model.parser.classifiers.SyntaxClassifier;
+
+/**
+ * The lexer turns a command into a stream of typed tokens in a single pass over its characters.
+ * <p>
+ * This class assumes that tokens are separated by whitespace or by brackets and parentheses, and
+ * that a comment starts with a # and runs until the end of its line. Every token that is found is
+ * given the type its syntax classifier returns for it.
+ * <p>
+ * This class depends on the classifiers package and the exceptions package
+ * <p>
+ * A lexer is created with the classifier to use. Calling tokenize fills a token stream that the
+ * handlers can then consume.
+ *
+ * @see TokenStream
+ */
+public class Lexer {
+
+  private static final char COMMENT = '#';
+  private static final char NEW_LINE = '\n';
+  private static final char CARRIAGE_RETURN = '\r';
+  private static final String DELIMITERS = "[]()";
+
+  private final SyntaxClassifier syntaxClassifier;
+
+  /**
+   * Instantiates a new Lexer.
+   *
+   * @param syntaxClassifier the classifier used to find the type of each token
+   */
+  public Lexer(SyntaxClassifier syntaxClassifier) {
+    this.syntaxClassifier = syntaxClassifier;
+  }
+
+  /**
+   * Split a command into tokens. Any tokens already in the stream are removed.
+   *
+   * @param command the command to split
+   * @param tokens  the stream to fill
+   * @throws InvalidSyntaxException if a token does not belong to any syntax type
+   */
+  public void tokenize(String command, TokenStream tokens) throws InvalidSyntaxException {
+    tokens.reset(command);
+    int length = command.length();
+    int index = 0;
+
+    while (index < length) {
+      char current = command.charAt(index);
+
+      if (Character.isWhitespace(current)) {
+        index++;
+      } else if (current == COMMENT) {
+        index = skipLine(command, index);
+      } else if (isDelimiter(current)) {
+        addToken(command, index, index + 1, tokens);
+        index++;
+      } else {
+        int end = findWordEnd(command, index);
+        addToken(command, index, end, tokens);
+        index = end;
+      }
+    }
+  }
+
+  private void addToken(String command, int start, int end, TokenStream tokens) {
+    String token = command.substring(start, end);
+    String type;
+
+    try {
+      type = syntaxClassifier.getSymbol(token);
+    } catch (UnknownIdentifierException e) {
+      throw new InvalidSyntaxException(token, command, start);
+    }
+
+    tokens.add(token, type, start);
+  }
+
+  private int findWordEnd(String command, int start) {
+    int index = start + 1;
+    while (index < command.length()) {
+      char current = command.charAt(index);
+      if (Character.isWhitespace(current) || current == COMMENT || isDelimiter(current)) {
+        break;
+      }
+      index++;
+    }
+    return index;
+  }
+
+  private int skipLine(String command, int start) {
+    int index = start;
+    while (index < command.length()) {
+      char current = command.charAt(index);
+      if (current == NEW_LINE || current == CARRIAGE_RETURN) {
+        break;
+      }
+      index++;
+    }
+    return index;
+  }
+
+  private boolean isDelimiter(char current) {
+    return DELIMITERS.indexOf(current) >= 0;
+  }
+}
@@ -0,0 +1,177 @@
+package slogo.model.parser;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import slogo.model.ASTNodes.ASTNode;
+
+/**
+ * Keeps the trees of the programs parsed last, so that running an unchanged program again does not
+ * parse it again.
+ * <p>
+ * This class assumes that a tree can be evaluated any number of times, and that what a program
+ * parses to only depends on its tokens, the language and the user-defined commands. A tree is
+ * kept under the program with its comments removed and its whitespace collapsed, the language and
+ * the version of the command table, so a program that only differs in layout finds the same tree,
+ * and defining a new command makes every tree parsed before it miss. The least recently used
+ * programs are dropped once the programs kept are longer than a number of characters in total.
+ * <p>
+ * This class depends on ASTNodes only
+ * <p>
+ * Each program parser has its own cache, since trees are resolved against the variables and
+ * commands of its bundle.
+ */
+public class ParseCache {
+
+  /**
+   * The number of characters of programs kept by default
+   */
+  public static final int DEFAULT_MAX_CHARS = 1 << 18;
+  private static final char COMMENT = '#';
+  private static final char NEW_LINE = '\n';
+  private static final char CARRIAGE_RETURN = '\r';
+
+  private record Key(String program, String language, long commandVersion) {
+
+  }
+
+  private final Map<Key, ASTNode> trees = new LinkedHashMap<>(16, 0.75f, true);
+  private int maxChars = DEFAULT_MAX_CHARS;
+  private long chars = 0;
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  /**
+   * Remove the comments of a program and turn every run of whitespace into one space, the same way
+   * the lexer skips them
+   *
+   * @param program the program as it was written
+   * @return the program as it is looked up
+   */
+  public static String normalize(String program) {
+    StringBuilder normalized = new StringBuilder(program.length());
+    boolean space = false;
+    int index = 0;
+    while (index < program.length()) {
+      char current = program.charAt(index);
+      if (current == COMMENT) {
+        while (index < program.length() && program.charAt(index) != NEW_LINE
+            && program.charAt(index) != CARRIAGE_RETURN) {
+          index++;
+        }
+        space = true;
+      } else if (Character.isWhitespace(current)) {
+        space = true;
+        index++;
+      } else {
+        if (space && normalized.length() > 0) {
+          normalized.append(' ');
+        }
+        space = false;
+        normalized.append(current);
+        index++;
+      }
+    }
+    return normalized.toString();
+  }
+
+  /**
+   * Find the tree of a program
+   *
+   * @param program        the normalized program
+   * @param language       the language it is written in
+   * @param commandVersion the version of the command table it is parsed with
+   * @return the tree, or null if it is not kept
+   */
+  public ASTNode get(String program, String language, long commandVersion) {
+    if (!isEnabled()) {
+      return null;
+    }
+    ASTNode tree = trees.get(new Key(program, language, commandVersion));
+    if (tree == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return tree;
+  }
+
+  /**
+   * Keep the tree of a program, dropping the least recently used ones if needed. Programs longer
+   * than the whole cache are not kept.
+   *
+   * @param program        the normalized program
+   * @param language       the language it is written in
+   * @param commandVersion the version of the command table once it was parsed
+   * @param tree           the tree it parsed to
+   */
+  public void put(String program, String language, long commandVersion, ASTNode tree) {
+    if (!isEnabled() || program.length() > maxChars) {
+      return;
+    }
+    if (trees.put(new Key(program, language, commandVersion), tree) == null) {
+      chars += program.length();
+    }
+    evict();
+  }
+
+  private void evict() {
+    Iterator<Key> eldest = trees.keySet().iterator();
+    while (chars > maxChars && eldest.hasNext()) {
+      chars -= eldest.next().program().length();
+      eldest.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * Drop every tree
+   */
+  public void clear() {
+    trees.clear();
+    chars = 0;
+  }
+
+  /**
+   * Set how many characters of programs are kept in total
+   *
+   * @param maxChars the number of characters, or 0 to keep no trees
+   */
+  public void setMaxChars(int maxChars) {
+    this.maxChars = maxChars;
+    evict();
+  }
+
+  public boolean isEnabled() {
+    return maxChars > 0;
+  }
+
+  /**
+   * Get the number of programs kept
+   */
+  public int size() {
+    return trees.size();
+  }
+
+  /**
+   * Get the number of lookups that found a tree
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Get the number of lookups that found no tree
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Get the number of trees dropped to make room
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+}
@@ -41,4 +41,18 @@ public interface Parser {
    * @param language
    */
   void changeLanguage(String language);
+
+  /**
+   * Turn simplifying the parsed trees on or off, for example to compare results with and without
+   * it. It is on by default.
+   * @param optimizing whether constant subtrees and dead branches are removed after parsing
+   */
+  void setOptimizing(boolean optimizing);
+
+  /**
+   * Get the cache of the trees parsed last, which parsing an unchanged program again returns
+   * instead of parsing it
+   * @return the cache of this parser
+   */
+  ParseCache getCache();
 }
@@ -1,13 +1,9 @@
 package slogo.model.parser;
 
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Stack;
 import slogo.exceptions.*;
 import slogo.model.ASTNodes.*;
 import slogo.model.InfoBundle;
-import slogo.model.parser.classifiers.SyntaxClassifier;
 import slogo.model.parser.factories.ClassifierFactory;
 import slogo.model.parser.factories.HandlerFactory;
 import slogo.model.parser.handlers.Handler;
@@ -17,23 +13,30 @@ import slogo.records.ParserRecord;
  * This class implements the Parser interface
  *
  * it has the same assumptions dependancies and examples as the parser interface
+ *
+ * The scope stack, token stream and handlers are kept for the lifetime of the parser and reset at
+ * the start of every parse, so a parser should only be used by one thread at a time. The handlers
+ * are only rebuilt when the language changes. After a command is parsed, it is simplified by an
+ * {@link ASTOptimizer} unless optimizing is turned off, and every variable in it is given its slot
+ * in the variable table of the bundle.
+ *
+ * Trees are kept in a {@link ParseCache}, so a program that is run again unchanged, in the same
+ * language and with the same user-defined commands, is not lexed or parsed again.
  * @author Oliver Rodas
  * @see slogo.model.parser.Parser
  */
 public class ProgramParser implements Parser {
 
-  private final SyntaxClassifier tokenClassifier = ClassifierFactory.buildSyntaxClassifier();
-  private static final String NOTHING = "";
-  private static final String WHITESPACE = "\\s+";
-  private static final String COMMENT_MATCHER = "#.*";
-  private static final String SPLITTER = "[ ]|(?<=\\[)|(?=\\[)|(?<=])|(?=])|(?<=\\()|(?=\\()|(?<=\\))|(?=\\))|\\n";
+  private final Lexer lexer = new Lexer(ClassifierFactory.buildSyntaxClassifier());
   private final InfoBundle bundle;
 
-  private Stack<ParsingScope> scopeStack;
-  private String currCommand;
-  private List<String> tokensLeft;
+  private final Stack<ParsingScope> scopeStack = new Stack<>();
+  private final TokenStream tokensLeft = new TokenStream();
+  private final ASTOptimizer optimizer = new ASTOptimizer();
   private HandlerFactory handlerFactory;
   private String language;
+  private boolean optimizing = true;
+  private final ParseCache cache = new ParseCache();
 
   /**
    * Infobundle to interface (lookup table) Factories
@@ -55,38 +58,35 @@ public class ProgramParser implements Parser {
       InvalidTokenTypeException,
       UnmatchedBracketException {
 
-    // remove comments
-    currCommand = command.replaceAll(COMMENT_MATCHER, NOTHING);
+    String normalized = cache.isEnabled() ? ParseCache.normalize(command) : null;
+    ASTNode cached = cache.get(normalized, language, bundle.getCommandTableVersion());
+    if (cached != null) {
+      return cached;
+    }
 
-    tokensLeft = new LinkedList<>(Arrays.asList(currCommand.split(SPLITTER)));
-    tokensLeft.removeIf(String::isBlank);
+    ASTNode tree = parse(command);
+    // commands the program defines are in the table now, so running it again finds this tree
+    cache.put(normalized, language, bundle.getCommandTableVersion(), tree);
+    return tree;
+  }
 
-    scopeStack = new Stack<>();
-    scopeStack.push(new ParsingScope());
+  private ASTNode parse(String command) {
+    lexer.tokenize(command, tokensLeft);
 
-    handlerFactory = new HandlerFactory(
-        new ParserRecord(
-        scopeStack, tokensLeft,
-        language, bundle, currCommand));
+    scopeStack.clear();
+    scopeStack.push(new ParsingScope());
 
-    String token;
+    if (handlerFactory == null) {
+      handlerFactory = new HandlerFactory(
+          new ParserRecord(
+          scopeStack, tokensLeft,
+          language, bundle));
+    }
 
     while (!tokensLeft.isEmpty()) {
-      token = tokensLeft.remove(0);
-      token = token.replaceAll(WHITESPACE, NOTHING);
-
-      if (token.length() > 0) {
-        String type;
-
-        try {
-          type = tokenClassifier.getSymbol(token);
-        } catch (UnknownIdentifierException e) {
-          throw new InvalidSyntaxException(token, command);
-        }
-
-        Handler handler = handlerFactory.buildHandler(type);
-        handler.handle(token);
-      }
+      String token = tokensLeft.next();
+      Handler handler = handlerFactory.buildHandler(tokensLeft.getType());
+      handler.handle(token);
     }
 
     if (scopeStack.size() != 1) {
@@ -94,6 +94,10 @@ public class ProgramParser implements Parser {
     }
 
     ASTNode out = scopeStack.pop().getCommands();
+    if (optimizing) {
+      out = optimizer.optimize(out);
+    }
+    out.resolveVariables(bundle);
     if (out.getNumChildren() == 1) {
       return out.getChildAt(0);
     }
@@ -102,6 +106,21 @@ public class ProgramParser implements Parser {
   }
 
   public void changeLanguage(String newLanguage) {
+    if (!newLanguage.equals(language)) {
+      handlerFactory = null;
+    }
     language = newLanguage;
   }
+
+  public void setOptimizing(boolean optimizing) {
+    if (optimizing != this.optimizing) {
+      cache.clear();
+    }
+    this.optimizing = optimizing;
+  }
+
+  @Override
+  public ParseCache getCache() {
+    return cache;
+  }
 }
@@ -0,0 +1,161 @@
+package slogo.model.parser;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The token stream holds the typed tokens of a single command and lets the handlers consume them
+ * one at a time, like a cursor.
+ * <p>
+ * This class assumes that it is filled by the lexer before any token is consumed. Tokens are
+ * stored in parallel arrays so filling and consuming the stream does not allocate per token.
+ * <p>
+ * This class depends on Java's util package
+ * <p>
+ * A stream is created empty, filled by {@link Lexer#tokenize(String, TokenStream)} and then read
+ * with {@link #next()}. The type and offset of the token last returned by next can be obtained with
+ * {@link #getType()} and {@link #getOffset()}.
+ *
+ * @see Lexer
+ */
+public class TokenStream {
+
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int NONE = -1;
+  private static final String LIST_START = "ListStart";
+  private static final String LIST_END = "ListEnd";
+
+  private String source = "";
+  private String[] texts = new String[INITIAL_CAPACITY];
+  private String[] types = new String[INITIAL_CAPACITY];
+  private int[] offsets = new int[INITIAL_CAPACITY];
+  private int size = 0;
+  private int cursor = 0;
+
+  /**
+   * Remove every token and set the source the next tokens are taken from.
+   *
+   * @param source the command the tokens are read from
+   */
+  void reset(String source) {
+    Arrays.fill(texts, 0, size, null);
+    this.source = source;
+    size = 0;
+    cursor = 0;
+  }
+
+  /**
+   * Append a token to the end of the stream.
+   *
+   * @param text   the text of the token
+   * @param type   the syntax type of the token
+   * @param offset the index of the first character of the token in the source
+   */
+  void add(String text, String type, int offset) {
+    if (size == texts.length) {
+      int capacity = size * 2;
+      texts = Arrays.copyOf(texts, capacity);
+      types = Arrays.copyOf(types, capacity);
+      offsets = Arrays.copyOf(offsets, capacity);
+    }
+    texts[size] = text;
+    types[size] = type;
+    offsets[size] = offset;
+    size++;
+  }
+
+  /**
+   * Check if every token has been consumed.
+   *
+   * @return if there are no tokens left
+   */
+  public boolean isEmpty() {
+    return cursor >= size;
+  }
+
+  /**
+   * Gets the number of tokens that have not been consumed.
+   *
+   * @return the number of tokens left
+   */
+  public int remaining() {
+    return size - cursor;
+  }
+
+  /**
+   * Consume the next token.
+   *
+   * @return the text of the token
+   * @throws NoSuchElementException if there are no tokens left
+   */
+  public String next() {
+    if (isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    return texts[cursor++];
+  }
+
+  /**
+   * Gets the syntax type of the token last returned by {@link #next()}.
+   *
+   * @return the type of the current token
+   */
+  public String getType() {
+    return types[current()];
+  }
+
+  /**
+   * Gets the offset in the source of the token last returned by {@link #next()}.
+   *
+   * @return the index of the first character of the current token
+   */
+  public int getOffset() {
+    return offsets[current()];
+  }
+
+  /**
+   * Gets the offset just past the token last returned by {@link #next()}.
+   *
+   * @return the index after the last character of the current token
+   */
+  public int getEnd() {
+    int current = current();
+    return offsets[current] + texts[current].length();
+  }
+
+  /**
+   * Gets the offset just past the token that closes a number of lists, looking ahead from the token
+   * last returned by {@link #next()} without consuming anything.
+   *
+   * @param lists the number of lists, each counted once its brackets are matched
+   * @return the index after the closing bracket, or the length of the source if there is none
+   */
+  public int getListEnd(int lists) {
+    int depth = 0;
+    for (int i = cursor; i < size; i++) {
+      if (LIST_START.equals(types[i])) {
+        depth++;
+      } else if (LIST_END.equals(types[i]) && --depth == 0 && --lists == 0) {
+        return offsets[i] + texts[i].length();
+      }
+    }
+    return source.length();
+  }
+
+  /**
+   * Gets the command the tokens were read from.
+   *
+   * @return the source of the tokens
+   */
+  public String getSource() {
+    return source;
+  }
+
+  private int current() {
+    int current = cursor - 1;
+    if (current == NONE) {
+      throw new NoSuchElementException();
+    }
+    return current;
+  }
+}
@@ -3,7 +3,9 @@ package slogo.model.parser.classifiers;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.ResourceBundle;
 import java.util.regex.Pattern;
@@ -15,6 +17,11 @@ import slogo.exceptions.UnknownIdentifierException;
  * <p>
  * This class assumes that the resource bundles have been defined and can be used
  * <p>
+ * By default, every pattern that is only a list of words separated by | is expanded into a table
+ * that maps each case-folded word to its type, so most tokens are classified with a single hash
+ * lookup. Real regular expressions are still matched in order, and a pattern that comes before the
+ * word's entry always wins, so the result is the same as trying every pattern in order.
+ * <p>
  * This class depends on Java's util class and the exceptions class
  *
  * @author Robert C. Duvall, Modified slightly by Oliver Rodas
@@ -25,12 +32,34 @@ public class TokenClassifier implements SyntaxClassifier, CommandClassifier {
   // "types" and the regular expression patterns that recognize those types
   // note, it is a list because order matters (some patterns may be more generic)
   private List<Entry<String, Pattern>> mySymbols;
+  // case-folded words of the patterns that are plain alternations, mapped to their index in
+  // mySymbols, and the indices of the patterns that can only be matched as regular expressions
+  private Map<String, Integer> myWords;
+  private List<Integer> myPatterns;
+  private boolean useWordTable;
+
+  private static final char ALTERNATION = '|';
+  private static final char ESCAPE = '\\';
+  private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
 
   /**
    * Create an empty parser
    */
   public TokenClassifier() {
+      this(true);
+  }
+
+  /**
+   * Create an empty parser
+   *
+   * @param useWordTable if the plain word patterns should be looked up in a table instead of
+   *                     being matched as regular expressions
+   */
+  public TokenClassifier(boolean useWordTable) {
       mySymbols = new ArrayList<>();
+      myWords = new HashMap<>();
+      myPatterns = new ArrayList<>();
+      this.useWordTable = useWordTable;
   }
 
   /**
@@ -42,12 +71,65 @@ public class TokenClassifier implements SyntaxClassifier, CommandClassifier {
       ResourceBundle resources = ResourceBundle.getBundle(RESOURCES_PACKAGE + syntax);
       for (String key : Collections.list(resources.getKeys())) {
           String regex = resources.getString(key);
+          addWords(regex, mySymbols.size());
           mySymbols.add(new SimpleEntry<>(key,
               // THIS IS THE IMPORTANT LINE
               Pattern.compile(regex, Pattern.CASE_INSENSITIVE)));
       }
   }
 
+  // Adds the words of the pattern at the given index to the table, or remembers it as a pattern
+  private void addWords (String regex, int index) {
+      List<String> words = expandAlternation(regex);
+      if (words == null) {
+          myPatterns.add(index);
+          return;
+      }
+      for (String word : words) {
+          myWords.putIfAbsent(word, index);
+      }
+  }
+
+  // Returns the case-folded words of a pattern, or null if it is not a plain list of words
+  private List<String> expandAlternation (String regex) {
+      List<String> words = new ArrayList<>();
+      StringBuilder word = new StringBuilder();
+      for (int i = 0; i < regex.length(); i++) {
+          char current = regex.charAt(i);
+          if (current == ALTERNATION) {
+              words.add(foldCase(word.toString()));
+              word.setLength(0);
+          } else if (current == ESCAPE) {
+              // only an escaped symbol stands for itself, letters and digits have a meaning
+              if (i + 1 == regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                  return null;
+              }
+              word.append(regex.charAt(++i));
+          } else if (META_CHARACTERS.indexOf(current) >= 0) {
+              return null;
+          } else {
+              word.append(current);
+          }
+      }
+      words.add(foldCase(word.toString()));
+      return words;
+  }
+
+  // Case-insensitive patterns only fold US-ASCII letters, so the table must do the same
+  private static String foldCase (String text) {
+      char[] folded = null;
+      for (int i = 0; i < text.length(); i++) {
+          char current = text.charAt(i);
+          if (current >= 'A' && current <= 'Z') {
+              if (folded == null) {
+                  folded = text.toCharArray();
+              }
+              folded[i] = (char) (current + ('a' - 'A'));
+          }
+      }
+      return folded == null ? text : new String(folded);
+  }
+
   /**
    * Change the patterns to use
    *
@@ -55,6 +137,8 @@ public class TokenClassifier implements SyntaxClassifier, CommandClassifier {
    */
   public void changePatterns (String newSyntax) {
     mySymbols.clear();
+    myWords.clear();
+    myPatterns.clear();
     addPatterns(newSyntax);
   }
 
@@ -66,6 +150,9 @@ public class TokenClassifier implements SyntaxClassifier, CommandClassifier {
    * @throws UnknownIdentifierException if the identifier is not found
    */
   public String getSymbol (String text) throws UnknownIdentifierException {
+      if (useWordTable) {
+          return lookUpSymbol(text);
+      }
       for (Entry<String, Pattern> e : mySymbols) {
           if (match(text, e.getValue())) {
               return e.getKey();
@@ -75,6 +162,25 @@ public class TokenClassifier implements SyntaxClassifier, CommandClassifier {
       throw new UnknownIdentifierException(text);
   }
 
+  // Finds the symbol using the word table, only matching the patterns that come before the word
+  private String lookUpSymbol (String text) throws UnknownIdentifierException {
+      Integer wordIndex = myWords.get(foldCase(text));
+      int limit = wordIndex == null ? mySymbols.size() : wordIndex;
+      for (int index : myPatterns) {
+          if (index >= limit) {
+              break;
+          }
+          Entry<String, Pattern> e = mySymbols.get(index);
+          if (match(text, e.getValue())) {
+              return e.getKey();
+          }
+      }
+      if (wordIndex != null) {
+          return mySymbols.get(wordIndex).getKey();
+      }
+      throw new UnknownIdentifierException(text);
+  }
+
   // Returns true if the given text matches the given regular expression pattern
   private boolean match (String text, Pattern regex) {
       // THIS IS THE OTHER IMPORTANT LINE
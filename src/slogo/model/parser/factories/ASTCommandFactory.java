@@ -1,23 +1,22 @@
 package slogo.model.parser.factories;
 
-import java.lang.reflect.InvocationTargetException;
+import static java.util.Map.entry;
+
 import java.util.Map;
+import java.util.function.Supplier;
 import slogo.exceptions.UnknownIdentifierException;
-import slogo.model.ASTNodes.ASTCommand;
-import slogo.model.ASTNodes.ASTFunctionCall;
-import slogo.model.ASTNodes.ASTFunctionReference;
-import slogo.model.ASTNodes.ASTNode;
+import slogo.model.ASTNodes.*;
 import slogo.model.InfoBundle;
 
 /**
- * The ASTCommand factory class is used to convert a string into an ASTNode using reflection.
+ * The ASTCommand factory class is used to convert a string into an ASTNode.
  * <p>
- * This class assumes that every ASTNode class is inside of the ASTNodes package. Every subclass of
- * ASTNode must contain the NAME static field in order to be found.
+ * This class assumes that every built in command has an entry in the command table, keyed by the
+ * name of its class without the AST prefix. Any other name is looked up in the function table of
+ * the environment.
  * </p>
  * <p>
- * This class depends on the ASTCommand class, but only for finding its children. It depends on the
- * java reflection package and the file class.
+ * This class depends on the ASTNodes package and the InfoBundle interface.
  * </p>
  * <p>
  * This class is used by simply calling getCommand on the class itself to get the ASTNode
@@ -36,6 +35,65 @@ public class ASTCommandFactory {
    * The constant classPrefix.
    */
   public static final String classPrefix = "AST";
+  private static final Map<String, Supplier<ASTNode>> COMMANDS = Map.ofEntries(
+      entry("And", ASTAnd::new),
+      entry("ArcTangent", ASTArcTangent::new),
+      entry("Ask", ASTAsk::new),
+      entry("AskWith", ASTAskWith::new),
+      entry("Backward", ASTBackward::new),
+      entry("ClearScreen", ASTClearScreen::new),
+      entry("Cosine", ASTCosine::new),
+      entry("Difference", ASTDifference::new),
+      entry("DoTimes", ASTDoTimes::new),
+      entry("Equal", ASTEqual::new),
+      entry("For", ASTFor::new),
+      entry("Forward", ASTForward::new),
+      entry("GetPenColor", ASTGetPenColor::new),
+      entry("GetShape", ASTGetShape::new),
+      entry("GreaterThan", ASTGreaterThan::new),
+      entry("Heading", ASTHeading::new),
+      entry("HideTurtle", ASTHideTurtle::new),
+      entry("Home", ASTHome::new),
+      entry("ID", ASTID::new),
+      entry("If", ASTIf::new),
+      entry("IfElse", ASTIfElse::new),
+      entry("IsPenDown", ASTIsPenDown::new),
+      entry("IsShowing", ASTIsShowing::new),
+      entry("Left", ASTLeft::new),
+      entry("LessThan", ASTLessThan::new),
+      entry("MakeVariable", ASTMakeVariable::new),
+      entry("Minus", ASTMinus::new),
+      entry("NaturalLog", ASTNaturalLog::new),
+      entry("Not", ASTNot::new),
+      entry("NotEqual", ASTNotEqual::new),
+      entry("Or", ASTOr::new),
+      entry("PenDown", ASTPenDown::new),
+      entry("PenUp", ASTPenUp::new),
+      entry("Pi", ASTPi::new),
+      entry("Power", ASTPower::new),
+      entry("Product", ASTProduct::new),
+      entry("Quotient", ASTQuotient::new),
+      entry("Random", ASTRandom::new),
+      entry("Remainder", ASTRemainder::new),
+      entry("Repeat", ASTRepeat::new),
+      entry("Right", ASTRight::new),
+      entry("SetBackground", ASTSetBackground::new),
+      entry("SetHeading", ASTSetHeading::new),
+      entry("SetPalette", ASTSetPalette::new),
+      entry("SetPenColor", ASTSetPenColor::new),
+      entry("SetPenSize", ASTSetPenSize::new),
+      entry("SetPosition", ASTSetPosition::new),
+      entry("SetShape", ASTSetShape::new),
+      entry("SetTowards", ASTSetTowards::new),
+      entry("ShowTurtle", ASTShowTurtle::new),
+      entry("Sine", ASTSine::new),
+      entry("Sum", ASTSum::new),
+      entry("Tangent", ASTTangent::new),
+      entry("Tell", ASTTell::new),
+      entry("Turtles", ASTTurtles::new),
+      entry("XCoordinate", ASTXCoordinate::new),
+      entry("YCoordinate", ASTYCoordinate::new)
+  );
   private InfoBundle functionTable;
 
   /**
@@ -56,19 +114,15 @@ public class ASTCommandFactory {
    * @throws UnknownIdentifierException if a command is not found
    */
   public ASTNode getCommand(String command) throws UnknownIdentifierException {
-    try {
-      return (ASTNode) Class.forName(packagePath + classPrefix + command).getConstructor()
-          .newInstance();
-    } catch (InstantiationException | InvocationTargetException | NoSuchMethodException | IllegalAccessException e) {
-      e.printStackTrace();
-    } catch (ClassNotFoundException e) {
-      ASTFunctionCall foundFunc = functionTable.getCommand(command);
-      if (foundFunc == null) {
-        throw new UnknownIdentifierException(command);
-      }
-      return foundFunc.createReference();
+    Supplier<ASTNode> constructor = COMMANDS.get(command);
+    if (constructor != null) {
+      return constructor.get();
     }
 
-    throw new UnknownIdentifierException(command);
+    ASTFunctionCall foundFunc = functionTable.getCommand(command);
+    if (foundFunc == null) {
+      throw new UnknownIdentifierException(command);
+    }
+    return foundFunc.createReference();
   }
 }
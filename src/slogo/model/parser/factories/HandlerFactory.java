@@ -2,24 +2,30 @@ package slogo.model.parser.factories;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
 import slogo.records.ParserRecord;
 import slogo.model.parser.handlers.Handler;
 
 /**
  * The Handler factory is used to encapsulate the creation of the handlers.
  *
- * This class assumes that the handlers are in the same package as the handler class.
+ * This class assumes that the handlers are in the same package as the handler class, and that a
+ * handler does not keep any state between calls to handle other than what it gets from the parser
+ * record. Each type of handler is only created once per factory and then reused for every token of
+ * that type.
  *
- * This class depends on the java reflection, records, and handler package.
+ * This class depends on the java reflection, Java's util, records, and handler package.
  *
  * This class is used by instantiating it with a parser record. The buildHandler can then be used
- * to create a handler that can be invoked
+ * to get a handler that can be invoked
  *
  * @author Oliver Rodas
  */
 public class HandlerFactory {
   private static final String PACKAGE = Handler.class.getPackageName() + ".";
   private static final String SUFFIX = "Handler";
+  private final Map<String, Handler> handlers = new HashMap<>();
   private ParserRecord parserInfo;
 
   /**
@@ -32,12 +38,24 @@ public class HandlerFactory {
   }
 
   /**
-   * Build a handler of the specified type.
+   * Gets the handler of the specified type. The handler is created the first time its type is
+   * requested, and the same instance is returned afterwards.
    *
    * @param type the type of handler
    * @return the handler of the type
    */
   public Handler buildHandler(String type) {
+    Handler handler = handlers.get(type);
+    if (handler == null) {
+      handler = createHandler(type);
+      if (handler != null) {
+        handlers.put(type, handler);
+      }
+    }
+    return handler;
+  }
+
+  private Handler createHandler(String type) {
     Class clazz = null;
 
     try {
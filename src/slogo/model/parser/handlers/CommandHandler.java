@@ -8,8 +8,10 @@ import slogo.model.InfoBundle;
 import slogo.model.parser.factories.ASTCommandFactory;
 import slogo.model.parser.factories.ClassifierFactory;
 import slogo.model.parser.classifiers.CommandClassifier;
+import slogo.records.CommandSource;
 import slogo.records.ParserRecord;
 import slogo.model.parser.ParsingScope;
+import slogo.model.parser.TokenStream;
 
 /**
  * The type Command handler. It is a type of lookahead handler. It has the same notes as a handler,
@@ -26,9 +28,13 @@ public class CommandHandler extends LookAheadHandler {
   private CommandClassifier commandClassifier;
   private ASTCommandFactory commandFactory;
   private InfoBundle environmentInfo;
+  private TokenStream tokensLeft;
+  private String language;
 
   private static final String EXPECTED_NEXT = "Command";
   private static final String MAKE_USER_INSTRUCTION = "MakeUserInstruction";
+  // a definition ends with its parameter list and its body
+  private static final int DEFINITION_LISTS = 2;
 
   /**
    * Instantiates a new Command handler.
@@ -39,6 +45,8 @@ public class CommandHandler extends LookAheadHandler {
     super(parserInfo.tokensLeft());
     scopeStack = parserInfo.scopeStack();
     environmentInfo = parserInfo.environmentInfo();
+    tokensLeft = parserInfo.tokensLeft();
+    language = parserInfo.language();
     commandClassifier = ClassifierFactory.buildCommandClassifier(parserInfo.language());
     commandFactory = new ASTCommandFactory(environmentInfo);
   }
@@ -56,8 +64,12 @@ public class CommandHandler extends LookAheadHandler {
     ASTNode newCommand;
 
     if(commandName.equals(MAKE_USER_INSTRUCTION)) {
+      int start = tokensLeft.getOffset();
       String nextToken = assertNextIs(currentToken, EXPECTED_NEXT);
-      newCommand = new ASTMakeUserInstruction(nextToken, environmentInfo);
+      String text = tokensLeft.getSource().substring(start,
+          tokensLeft.getListEnd(DEFINITION_LISTS));
+      newCommand = new ASTMakeUserInstruction(nextToken, environmentInfo,
+          new CommandSource(language, text));
 
     } else {
       newCommand = commandFactory.getCommand(commandName);
@@ -17,7 +17,6 @@ import slogo.model.parser.ParsingScope;
  */
 public abstract class LiteralHandler implements Handler {
   private Stack<ParsingScope> scopeStack;
-  private ParsingScope currScope;
 
   /**
    * Instantiates a new Literal handler.
@@ -26,7 +25,6 @@ public abstract class LiteralHandler implements Handler {
    */
   public LiteralHandler(ParserRecord parserInfo) {
     scopeStack = parserInfo.scopeStack();
-    currScope = scopeStack.peek();
   }
 
   /**
@@ -35,7 +33,7 @@ public abstract class LiteralHandler implements Handler {
    * @param currentToken the current token
    */
   protected void assertScopeNeedsChild(String currentToken) {
-    if (scopeStack.size() == 1 && !currScope.isNextAChild())
+    if (scopeStack.size() == 1 && !scopeStack.peek().isNextAChild())
       throw new FloatingValueException(currentToken);
   }
 
@@ -45,6 +43,6 @@ public abstract class LiteralHandler implements Handler {
    * @param toAdd the node to add
    */
   protected void addNode(ASTNode toAdd) {
-    currScope.addNode(toAdd);
+    scopeStack.peek().addNode(toAdd);
   }
 }
@@ -1,34 +1,28 @@
 package slogo.model.parser.handlers;
 
-import java.util.List;
 import slogo.exceptions.InvalidTokenTypeException;
 import slogo.exceptions.NotEnoughTokensException;
-import slogo.model.parser.factories.ClassifierFactory;
-import slogo.model.parser.classifiers.SyntaxClassifier;
+import slogo.model.parser.TokenStream;
 
 /**
  * The type lookahead handler. It is a type of handler that expects a specific token type next. It
  * has the same notes as a handler, but is dependent on more classes
  * <p>
- * This class depends on the exceptions, factories, and classifier packages
+ * This class depends on the exceptions package and the TokenStream class
  *
  * @author Oliver Rodas
  * @see Handler
  */
 public abstract class LookAheadHandler implements Handler {
 
-  private List<String> tokensLeft;
-  private SyntaxClassifier syntaxClassifier =
-      ClassifierFactory.buildSyntaxClassifier();
-
-  private static final int LAST = 0;
+  private TokenStream tokensLeft;
 
   /**
    * Instantiates a new Look ahead handler.
    *
    * @param tokensLeft the tokens left
    */
-  public LookAheadHandler(List<String> tokensLeft) {
+  public LookAheadHandler(TokenStream tokensLeft) {
     this.tokensLeft = tokensLeft;
   }
 
@@ -43,8 +37,8 @@ public abstract class LookAheadHandler implements Handler {
     if (tokensLeft.isEmpty())
       throw new NotEnoughTokensException(currentToken, expectedType);
 
-    String nextToken = tokensLeft.remove(LAST);
-    String actualType = syntaxClassifier.getSymbol(nextToken);
+    String nextToken = tokensLeft.next();
+    String actualType = tokensLeft.getType();
     if (!actualType.equals(expectedType)) {
       throw new InvalidTokenTypeException
           (currentToken, expectedType, nextToken, actualType);
@@ -0,0 +1,10 @@
+package slogo.records;
+
+import java.io.Serializable;
+
+/**
+ * The text a user-defined command was defined with, and the language it is written in.
+ */
+public record CommandSource(String language, String text) implements Serializable {
+
+}
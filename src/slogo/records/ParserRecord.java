@@ -1,11 +1,10 @@
 package slogo.records;
 
-import java.util.List;
 import java.util.Stack;
 import slogo.model.InfoBundle;
 import slogo.model.parser.ParsingScope;
+import slogo.model.parser.TokenStream;
 
-public record ParserRecord(Stack<ParsingScope> scopeStack, List<String> tokensLeft,
-                           String language, InfoBundle environmentInfo,
-                           String currCommand) {
+public record ParserRecord(Stack<ParsingScope> scopeStack, TokenStream tokensLeft,
+                           String language, InfoBundle environmentInfo) {
 }
@@ -0,0 +1,8 @@
+package slogo.records;
+
+/**
+ * How long the last command took to parse and to run, and how many commands it ran.
+ */
+public record RunRecord(long parseNanos, long evalNanos, long commandsRun) {
+
+}
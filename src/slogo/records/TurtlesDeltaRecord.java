@@ -0,0 +1,11 @@
+package slogo.records;
+
+import java.util.List;
+
+/**
+ * The states turtles went through since the last update, in the order they should be shown. A
+ * turtle appears more than once only when it drew lines between its states.
+ */
+public record TurtlesDeltaRecord(List<TurtleRecord> changes) {
+
+}
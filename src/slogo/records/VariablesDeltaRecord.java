@@ -0,0 +1,10 @@
+package slogo.records;
+
+import java.util.List;
+
+/**
+ * The variables that were added or changed within the environment since the last update.
+ */
+public record VariablesDeltaRecord(List<DisplayVariable> changed) {
+
+}
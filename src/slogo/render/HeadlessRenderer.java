@@ -0,0 +1,184 @@
+package slogo.render;
+
+import java.util.Arrays;
+import slogo.model.Color;
+import slogo.model.PaletTable;
+import slogo.model.SegmentIndex;
+import slogo.model.SegmentLevels;
+import slogo.model.SegmentLog;
+import slogo.model.notifiers.EventHandler;
+import slogo.model.notifiers.EventType;
+import slogo.model.notifiers.ModelTracker;
+import slogo.model.notifiers.Subscription;
+import slogo.records.EnvironmentRecord;
+import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+
+/**
+ * Follows the events of a model and hands the lines its turtles draw to a {@link Renderer}, so a
+ * drawing can be made without JavaFX or a display.
+ * <p>
+ * This class assumes that it is subscribed before the first command runs, since a line is drawn
+ * from where a turtle was last seen, and turtles start at the origin. A line is drawn when a turtle
+ * moves with its pen down, like the turtle sandbox does, with the pen color and size of the last
+ * environment update. The background stays the one given until a command changes it. Only the last
+ * position of each turtle is kept.
+ * <p>
+ * This class depends on the records, the notifiers and the renderers
+ * <p>
+ * <pre>
+ *   TrackableEnvironment environment = EnvironmentFactory.createEnvironment();
+ *   try (Renderer renderer = new SvgRenderer(writer, 800, 600)) {
+ *     HeadlessRenderer.attach(environment.getTracker(), renderer);
+ *     environment.runCommand("repeat 4 [ fd 100 rt 90 ]");
+ *   }
+ * </pre>
+ * A drawing that already ran can be drawn from the lines its environment kept with
+ * {@link #render(SegmentLog, Renderer)}, or only the part of it in a rectangle with
+ * {@link #render(SegmentIndex, Renderer, double, double, double, double)}, or with fewer lines for
+ * a small image with {@link #render(SegmentLevels, Renderer, double)}.
+ */
+public class HeadlessRenderer implements EventHandler {
+
+  private static final Color DEFAULT_PEN = new Color(0, 0, 0);
+  private static final double DEFAULT_PEN_SIZE = 5;
+
+  private final Renderer renderer;
+  private double[] xs = new double[1];
+  private double[] ys = new double[1];
+  private Color penColor = DEFAULT_PEN;
+  private double penSize = DEFAULT_PEN_SIZE;
+  private int backgroundIdx = 0;
+
+  /**
+   * Create a handler that draws on a renderer
+   *
+   * @param renderer the renderer the lines are drawn on
+   */
+  public HeadlessRenderer(Renderer renderer) {
+    this.renderer = renderer;
+  }
+
+  /**
+   * Draw everything a model does from now on
+   *
+   * @param tracker  the tracker of the model
+   * @param renderer the renderer the lines are drawn on
+   * @return the subscription, to be cancelled once the drawing is done
+   */
+  public static Subscription attach(ModelTracker tracker, Renderer renderer) {
+    return tracker.getEventBus().subscribe(new HeadlessRenderer(renderer));
+  }
+
+  /**
+   * Draw the lines a model kept, so a drawing can be made again at another size after it ran
+   *
+   * @param segments the log of the lines
+   * @param renderer the renderer the lines are drawn on
+   */
+  public static void render(SegmentLog segments, Renderer renderer) {
+    Color[] pen = {DEFAULT_PEN};
+    int[] penRgb = {SegmentLog.toRgb(DEFAULT_PEN)};
+    segments.forEach(0, (x0, y0, x1, y1, rgb, width, turtle) -> {
+      if (rgb != penRgb[0]) {
+        penRgb[0] = rgb;
+        pen[0] = SegmentLog.toColor(rgb);
+      }
+      renderer.drawLine(x0, y0, x1, y1, pen[0], width);
+    });
+  }
+
+  /**
+   * Draw the lines a model kept that reach into a rectangle, such as the part of the drawing in
+   * sight, without going through the others
+   *
+   * @param index    the index over the lines
+   * @param renderer the renderer the lines are drawn on
+   */
+  public static void render(SegmentIndex index, Renderer renderer, double minX, double minY,
+      double maxX, double maxY) {
+    index.update();
+    SegmentLog segments = index.getSegments();
+    Color pen = DEFAULT_PEN;
+    int penRgb = SegmentLog.toRgb(DEFAULT_PEN);
+    for (long line : index.find(minX, minY, maxX, maxY)) {
+      int rgb = segments.getRgb(line);
+      if (rgb != penRgb) {
+        penRgb = rgb;
+        pen = SegmentLog.toColor(rgb);
+      }
+      renderer.drawLine(segments.getX0(line), segments.getY0(line), segments.getX1(line),
+          segments.getY1(line), pen, segments.getWidth(line));
+    }
+  }
+
+  /**
+   * Draw the lines a model kept at a scale, with the simplified lines of the level for that scale
+   * if it is zoomed out far enough to have one
+   *
+   * @param levels   the simplified lines
+   * @param renderer the renderer the lines are drawn on
+   * @param scale    the number of pixels per turtle step of the renderer
+   */
+  public static void render(SegmentLevels levels, Renderer renderer, double scale) {
+    int level = levels.levelFor(scale);
+    if (level < 0) {
+      render(levels.getSegments(), renderer);
+      return;
+    }
+    levels.update();
+    levels.forEach(level, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, (points, from, to, rgb, width) -> {
+          Color pen = SegmentLog.toColor(rgb);
+          for (int i = from; i + 1 < to; i++) {
+            renderer.drawLine(points[i * 2], points[i * 2 + 1], points[i * 2 + 2],
+                points[i * 2 + 3], pen, width);
+          }
+        });
+  }
+
+  @Override
+  public void onEvent(EventType type, Object record, long sequence, boolean endOfBatch) {
+    switch (type) {
+      case TURTLE_UPDATE -> move((TurtleRecord) record);
+      case TURTLE_DELTA -> {
+        for (TurtleRecord turtle : ((TurtlesDeltaRecord) record).changes()) {
+          move(turtle);
+        }
+      }
+      case ENV_UPDATE -> updateEnvironment((EnvironmentRecord) record);
+      case ENV_CLEAR -> renderer.clear();
+      default -> {
+      }
+    }
+  }
+
+  private void move(TurtleRecord turtle) {
+    int id = turtle.id();
+    if (id >= xs.length) {
+      int length = Math.max(id + 1, xs.length * 2);
+      xs = Arrays.copyOf(xs, length);
+      ys = Arrays.copyOf(ys, length);
+    }
+    double x = turtle.xCoord();
+    double y = turtle.yCoord();
+    if (turtle.penDown() && (x != xs[id] || y != ys[id])) {
+      renderer.drawLine(xs[id], ys[id], x, y, penColor, penSize);
+    }
+    xs[id] = x;
+    ys[id] = y;
+  }
+
+  private void updateEnvironment(EnvironmentRecord record) {
+    PaletTable palette = record.colors();
+    penSize = record.currPenSize();
+    if (palette == null) {
+      return;
+    }
+    penColor = palette.getColor(record.currPenColor());
+    if (record.currBGColor() != backgroundIdx) {
+      backgroundIdx = record.currBGColor();
+      renderer.setBackground(palette.getColor(backgroundIdx));
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package slogo.render;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.imageio.ImageIO;
+import slogo.model.Color;
+
+/**
+ * Rasterizes a drawing with Java2D and writes it as a PNG.
+ * <p>
+ * This class assumes that the size of the image is known before the first line. Lines are drawn
+ * onto the image as they come, so memory depends on the size of the image and not on the number of
+ * lines. The lines are drawn on a transparent image and the background is put behind them when the
+ * image is written, so the background can change at any time.
+ * <p>
+ * Antialiased lines are drawn one at a time, since Java2D spends far longer on one path of many
+ * crossing lines than on the same lines drawn apart. Without antialiasing, a run of lines with the
+ * same color and width is drawn as one path, which is several times faster again.
+ * <p>
+ * This class depends on Java2D and ImageIO, which both run without a display
+ * <p>
+ * <pre>
+ *   try (Renderer renderer = new PngRenderer(out, 800, 600)) {
+ *     HeadlessRenderer.attach(environment.getTracker(), renderer);
+ *     environment.runCommand("fd 50");
+ *   }
+ * </pre>
+ */
+public class PngRenderer implements Renderer {
+
+  private static final int MAX_RUN = 1024;
+
+  private final OutputStream out;
+  private final BufferedImage image;
+  private final Graphics2D graphics;
+  private final boolean antialias;
+  private final Line2D.Double line = new Line2D.Double();
+  private final Path2D.Float run = new Path2D.Float();
+  private int runLength = 0;
+  private Color runColor;
+  private double runWidth = -1;
+  private Color background = new Color(255, 255, 255);
+
+  /**
+   * Create a renderer that writes an image of a given size
+   *
+   * @param out    the stream the image is written to when the renderer is closed
+   * @param width  the width of the image in pixels
+   * @param height the height of the image in pixels
+   */
+  public PngRenderer(OutputStream out, int width, int height) {
+    this(out, width, height, true);
+  }
+
+  /**
+   * Create a renderer that writes an image of a given size
+   *
+   * @param out       the stream the image is written to when the renderer is closed
+   * @param width     the width of the image in pixels
+   * @param height    the height of the image in pixels
+   * @param antialias whether to smooth the edges of the lines
+   */
+  public PngRenderer(OutputStream out, int width, int height, boolean antialias) {
+    this.out = out;
+    this.antialias = antialias;
+    image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    graphics = image.createGraphics();
+    if (antialias) {
+      graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+          RenderingHints.VALUE_ANTIALIAS_ON);
+      graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL,
+          RenderingHints.VALUE_STROKE_PURE);
+    }
+    // turtle coordinates, with the origin in the middle and y pointing up
+    graphics.translate(width / 2.0, height / 2.0);
+    graphics.scale(1, -1);
+  }
+
+  @Override
+  public void drawLine(double x0, double y0, double x1, double y1, Color color, double width) {
+    if (!color.equals(runColor) || width != runWidth) {
+      drawRun();
+      runColor = color;
+      runWidth = width;
+      graphics.setColor(toAwt(color));
+      graphics.setStroke(
+          new BasicStroke((float) width, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER));
+    }
+    if (antialias) {
+      line.setLine(x0, y0, x1, y1);
+      graphics.draw(line);
+      return;
+    }
+    if (runLength == MAX_RUN) {
+      drawRun();
+    }
+    run.moveTo(x0, y0);
+    run.lineTo(x1, y1);
+    ++runLength;
+  }
+
+  @Override
+  public void setBackground(Color color) {
+    background = color;
+  }
+
+  @Override
+  public void clear() {
+    run.reset();
+    runLength = 0;
+    Graphics2D eraser = image.createGraphics();
+    eraser.setComposite(AlphaComposite.Clear);
+    eraser.fillRect(0, 0, image.getWidth(), image.getHeight());
+    eraser.dispose();
+  }
+
+  /**
+   * Get the image drawn so far, without its background
+   */
+  public BufferedImage getImage() {
+    drawRun();
+    return image;
+  }
+
+  @Override
+  public void close() throws IOException {
+    drawRun();
+    graphics.dispose();
+    Graphics2D behind = image.createGraphics();
+    behind.setComposite(AlphaComposite.DstOver);
+    behind.setColor(toAwt(background));
+    behind.fillRect(0, 0, image.getWidth(), image.getHeight());
+    behind.dispose();
+    try (out) {
+      ImageIO.write(image, "png", out);
+    }
+  }
+
+  private void drawRun() {
+    if (runLength == 0) {
+      return;
+    }
+    graphics.draw(run);
+    run.reset();
+    runLength = 0;
+  }
+
+  private static java.awt.Color toAwt(Color color) {
+    return new java.awt.Color(channel(color.r()), channel(color.g()), channel(color.b()));
+  }
+
+  private static int channel(double value) {
+    return (int) Math.max(0, Math.min(255, Math.round(value)));
+  }
+}
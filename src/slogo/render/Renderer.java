@@ -0,0 +1,47 @@
+package slogo.render;
+
+import java.io.Closeable;
+import java.io.IOException;
+import slogo.model.Color;
+
+/**
+ * Something the lines of a drawing can be rendered to without a display.
+ * <p>
+ * Coordinates are turtle coordinates: the origin is in the middle of the drawing and the
+ * y-coordinate points up. Lines are given one at a time as the turtles draw them, so a renderer
+ * never has to keep the whole drawing.
+ */
+public interface Renderer extends Closeable {
+
+  /**
+   * Draw a line
+   *
+   * @param x0    the x-coordinate the line starts at
+   * @param y0    the y-coordinate the line starts at
+   * @param x1    the x-coordinate the line ends at
+   * @param y1    the y-coordinate the line ends at
+   * @param color the color of the line, with components from 0 to 255
+   * @param width the width of the line
+   */
+  void drawLine(double x0, double y0, double x1, double y1, Color color, double width);
+
+  /**
+   * Set the color behind the lines
+   *
+   * @param color the color, with components from 0 to 255
+   */
+  void setBackground(Color color);
+
+  /**
+   * Remove every line drawn so far
+   */
+  void clear();
+
+  /**
+   * Finish the drawing and write it out
+   *
+   * @throws IOException if the drawing could not be written
+   */
+  @Override
+  void close() throws IOException;
+}
@@ -0,0 +1,152 @@
+package slogo.render;
+
+import java.io.IOException;
+import java.io.Writer;
+import slogo.model.Color;
+
+/**
+ * Streams a drawing out as an SVG document.
+ * <p>
+ * This class assumes that the size of the drawing is known before the first line. Every run of
+ * lines with the same color and width becomes one path, which is written as soon as the run ends,
+ * so nothing but the current run is kept in memory. A clear paints the background over everything
+ * written before it, since what was streamed out cannot be taken back. The background is the one set
+ * when the first line, clear or the end of the drawing is written.
+ * <p>
+ * Errors while writing are kept and thrown by {@link #close()}, like a PrintWriter keeps them, so
+ * the turtles can keep drawing without checking each line.
+ * <p>
+ * This class depends on java.io only
+ */
+public class SvgRenderer implements Renderer {
+
+  private static final int MAX_RUN = 1024;
+
+  private final Writer out;
+  private final int width;
+  private final int height;
+  private final StringBuilder run = new StringBuilder();
+  private int runLength = 0;
+  private Color runColor;
+  private double runWidth = -1;
+  private Color background = new Color(255, 255, 255);
+  private boolean started = false;
+  private IOException error;
+
+  /**
+   * Create a renderer that streams a drawing of a given size
+   *
+   * @param out    the writer the document is written to, closed with the renderer
+   * @param width  the width of the drawing
+   * @param height the height of the drawing
+   */
+  public SvgRenderer(Writer out, int width, int height) {
+    this.out = out;
+    this.width = width;
+    this.height = height;
+  }
+
+  @Override
+  public void drawLine(double x0, double y0, double x1, double y1, Color color, double width) {
+    if (!color.equals(runColor) || width != runWidth || runLength == MAX_RUN) {
+      writeRun();
+      runColor = color;
+      runWidth = width;
+    }
+    // y points down in SVG
+    run.append('M').append(format(x0)).append(' ').append(format(-y0))
+        .append('L').append(format(x1)).append(' ').append(format(-y1));
+    ++runLength;
+  }
+
+  @Override
+  public void setBackground(Color color) {
+    background = color;
+  }
+
+  @Override
+  public void clear() {
+    run.setLength(0);
+    runLength = 0;
+    if (started) {
+      writeBackground();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    writeRun();
+    start();
+    write("</svg>\n");
+    try {
+      out.close();
+    } catch (IOException e) {
+      if (error == null) {
+        error = e;
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    write(String.format(
+        "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" viewBox=\"%s %s %d %d\">\n",
+        width, height, format(-width / 2.0), format(-height / 2.0), width, height));
+    writeBackground();
+  }
+
+  private void writeBackground() {
+    write(String.format("<rect x=\"%s\" y=\"%s\" width=\"%d\" height=\"%d\" fill=\"%s\"/>\n",
+        format(-width / 2.0), format(-height / 2.0), width, height, toHex(background)));
+  }
+
+  private void writeRun() {
+    if (runLength == 0) {
+      return;
+    }
+    start();
+    write("<path fill=\"none\" stroke-linecap=\"square\" stroke=\"" + toHex(runColor)
+        + "\" stroke-width=\"" + format(runWidth) + "\" d=\"");
+    write(run);
+    write("\"/>\n");
+    run.setLength(0);
+    runLength = 0;
+  }
+
+  private void write(CharSequence text) {
+    if (error != null) {
+      return;
+    }
+    try {
+      out.append(text);
+    } catch (IOException e) {
+      error = e;
+    }
+  }
+
+  /**
+   * Write a coordinate with at most two decimals, which is finer than a pixel
+   */
+  private static String format(double value) {
+    long hundredths = Math.round(value * 100);
+    if (hundredths % 100 == 0) {
+      return Long.toString(hundredths / 100);
+    }
+    return Double.toString(hundredths / 100.0);
+  }
+
+  private static String toHex(Color color) {
+    return String.format("#%02X%02X%02X", channel(color.r()), channel(color.g()),
+        channel(color.b()));
+  }
+
+  private static int channel(double value) {
+    return (int) Math.max(0, Math.min(255, Math.round(value)));
+  }
+}
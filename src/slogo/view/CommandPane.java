@@ -23,6 +23,8 @@ public class CommandPane extends Pane {
   GridPane pane = new GridPane();
   private TextArea codeArea;
   private Button run;
+  private Button stop;
+  private Button pause;
   private Button uploadToRun;
   private Button uploadToTextArea;
   ResourceBundle resources;
@@ -42,9 +44,21 @@ public class CommandPane extends Pane {
     codeArea = new TextArea();
 
     run = new Button();
+    stop = new Button();
+    pause = new Button();
     uploadToRun = new Button();
     uploadToTextArea = new Button();
     run.setOnMouseClicked(e -> sendCodeArea());
+    stop.setOnMouseClicked(
+        e -> {
+          vcon.stopCommand();
+          pause.setText(resources.getString("pauseButton"));
+        });
+    pause.setOnMouseClicked(
+        e -> {
+          boolean paused = vcon.pauseCommand();
+          pause.setText(resources.getString(paused ? "resumeButton" : "pauseButton"));
+        });
     fileChooser
         .getExtensionFilters()
         .addAll(
@@ -93,7 +107,7 @@ public class CommandPane extends Pane {
           }
         });
 
-    vbox = new VBox(run, uploadToRun, uploadToTextArea);
+    vbox = new VBox(run, stop, pause, uploadToRun, uploadToTextArea);
     vbox.setSpacing(10);
 
     pane.add(codeArea, 0, 0);
@@ -109,6 +123,8 @@ public class CommandPane extends Pane {
 
   private void setChildrenIDs() {
     run.setId("runButton");
+    stop.setId("stopButton");
+    pause.setId("pauseButton");
     codeArea.setId("codeArea");
   }
 
@@ -121,6 +137,8 @@ public class CommandPane extends Pane {
   private void createDisplayText() {
     codeArea.setPromptText(resources.getString("userCommand"));
     run.setText(resources.getString("runButton"));
+    stop.setText(resources.getString("stopButton"));
+    pause.setText(resources.getString("pauseButton"));
     uploadToRun.setText(resources.getString("uploadFile"));
     uploadToTextArea.setText(resources.getString("uploadToText"));
   }
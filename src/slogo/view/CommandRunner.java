@@ -0,0 +1,91 @@
+package slogo.view;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/**
+ * Runs commands on a worker thread, so that the window keeps responding while a long command runs,
+ * and hands what the model sends back to the JavaFX application thread.
+ * <p>
+ * This class assumes that everything sent to the model goes through {@link #submit(Runnable)}, so
+ * that the model is only used by one thread at a time. Callbacks wrapped with {@link
+ * #onFxThread(Consumer)} are queued, and the queue is emptied by a single {@link
+ * Platform#runLater(Runnable)} however many callbacks were queued before it ran.
+ * <p>
+ * This class depends on JavaFX and Java's concurrent package
+ * <p>
+ * The model controller makes one runner and uses it for every workspace.
+ */
+public class CommandRunner {
+
+  private static final String THREAD_NAME = "slogo-interpreter";
+
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, THREAD_NAME);
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Queue<Runnable> fxQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+  private final Consumer<Runnable> fxExecutor;
+
+  /**
+   * Create a runner that hands callbacks to the JavaFX application thread
+   */
+  public CommandRunner() {
+    this(Platform::runLater);
+  }
+
+  /**
+   * Create a runner that hands callbacks to the given executor instead of the JavaFX application
+   * thread
+   */
+  CommandRunner(Consumer<Runnable> fxExecutor) {
+    this.fxExecutor = fxExecutor;
+  }
+
+  /**
+   * Run a task on the worker thread, after the tasks submitted before it
+   */
+  public void submit(Runnable task) {
+    worker.submit(task);
+  }
+
+  /**
+   * Run a task on the JavaFX application thread, after the tasks queued before it
+   */
+  public void runOnFxThread(Runnable task) {
+    fxQueue.add(task);
+    if (drainScheduled.compareAndSet(false, true)) {
+      fxExecutor.accept(this::drain);
+    }
+  }
+
+  /**
+   * Wrap a callback so that it always runs on the JavaFX application thread
+   */
+  public <T> Consumer<T> onFxThread(Consumer<T> callback) {
+    return value -> runOnFxThread(() -> callback.accept(value));
+  }
+
+  /**
+   * Wrap a callback so that it always runs on the JavaFX application thread
+   */
+  public Runnable onFxThread(Runnable callback) {
+    return () -> runOnFxThread(callback);
+  }
+
+  private void drain() {
+    // a task queued after this point schedules another drain
+    drainScheduled.set(false);
+    Runnable task;
+    while ((task = fxQueue.poll()) != null) {
+      task.run();
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package slogo.view;
 
 import com.jfoenix.controls.JFXListView;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import javafx.beans.property.ReadOnlyStringWrapper;
@@ -18,6 +19,7 @@ import slogo.model.notifiers.ModelTracker;
 import slogo.records.CommandsRecord;
 import slogo.records.DisplayCommand;
 import slogo.records.DisplayVariable;
+import slogo.records.VariablesDeltaRecord;
 import slogo.records.VariablesRecord;
 
 /** This class keeps track of the state of commands and variables within the model. */
@@ -141,9 +143,8 @@ public class EnvironmentPane extends GridPane {
             String variableName = variable.name();
             Optional<String> res = changeVarDialog.showAndWait();
             if (res.isPresent()) {
-              String value = res.get();
-              DisplayVariable dv = new DisplayVariable(variableName, value);
-              environment.requestVarUpdate(dv);
+              // the dialog only accepts numbers
+              viewController.changeVariable(variableName, Double.parseDouble(res.get()));
             }
           }
         });
@@ -174,6 +175,26 @@ public class EnvironmentPane extends GridPane {
     variablesTable.getItems().setAll(records.variables());
   }
 
+  /**
+   * Updates only the variables that changed, adding the ones that are new.
+   *
+   * @param delta - The variables that changed within the model.
+   */
+  public void updateVariables(VariablesDeltaRecord delta) {
+    List<DisplayVariable> items = variablesTable.getItems();
+    for (DisplayVariable variable : delta.changed()) {
+      int index = 0;
+      while (index < items.size() && !items.get(index).name().equals(variable.name())) {
+        index++;
+      }
+      if (index < items.size()) {
+        items.set(index, variable);
+      } else {
+        items.add(variable);
+      }
+    }
+  }
+
   /**
    * Synchronizes the current list of commands.
    *
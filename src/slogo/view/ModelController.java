@@ -1,10 +1,15 @@
 package slogo.view;
 
+import java.io.File;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import slogo.exceptions.CommandCancelledException;
 import slogo.model.TrackableEnvironment;
 import slogo.exceptions.ModelException;
+import slogo.records.DisplayVariable;
 /**
  * @author Joshua Pettima
  * @author Martha Aboagye
@@ -17,7 +22,10 @@ import slogo.exceptions.ModelException;
  * it calls the methods available from the trackable environment
  * object.  An example of how to use this class is below:
  * ModelController model = new ModelController();
- * model.sendCommand("Forward 50");
+ * model.sendCommand("Forward 50", executed -> {});
+ * Commands run on a worker thread, one at a time, so the
+ * window keeps responding while they run. They can be
+ * stopped or paused from the JavaFX application thread.
  *
  */
 
@@ -27,6 +35,8 @@ public class ModelController {
   private TrackableEnvironment env;
   private ResourceBundle exceptions;
   private ResourceBundle translation;
+  private CommandRunner runner = new CommandRunner();
+  private boolean paused = false;
 
   /**
    * This is the constryctor for the model controller class
@@ -52,34 +62,100 @@ public class ModelController {
    * @param env is a trackable environment object.
    */
   public void setModel(TrackableEnvironment env) {
+    if (paused && this.env != null) {
+      this.env.resume();
+      paused = false;
+    }
     this.env = env;
   }
 
   /**
    * This method sends the text the user
    * enters through the view to the model
-   * to parse and execute. If this method is called
-   * before a trackable environment is initialized,
-   * it throws an error.
+   * to parse and execute on the worker thread.
+   * If this method is called before a trackable
+   * environment is initialized, nothing is run.
    *
    * @param command
-   * @throws Exception
-   * @return Whether the command was successfully executed.
+   * @param onDone - Called on the JavaFX application
+   *               thread with whether the command was
+   *               successfully executed.
    */
-  public boolean sendCommand(String command) {
-    if (this.env != null) {
+  public void sendCommand(String command, Consumer<Boolean> onDone) {
+    TrackableEnvironment target = this.env;
+    if (target == null) {
+      onDone.accept(false);
+      return;
+    }
+    runner.submit(() -> {
       try {
-        env.runCommand(command);
-        return true;
+        target.runCommand(command);
+        runner.runOnFxThread(() -> onDone.accept(true));
+      } catch (CommandCancelledException e) {
+        runner.runOnFxThread(() -> onDone.accept(false));
       } catch(ModelException e) {
         System.out.println("Error: " + e.toString());
         String message = e.buildException(exceptions.getString(e.getMessage()));
-        vc.sendAlert("Error", message);
-        return false;
+        runner.runOnFxThread(() -> {
+          vc.sendAlert("Error", message);
+          onDone.accept(false);
+        });
+      } catch (RuntimeException e) {
+        // anything else would be lost in the worker, and the command would never finish
+        e.printStackTrace();
+        String message = String.valueOf(e.getMessage());
+        runner.runOnFxThread(() -> {
+          vc.sendAlert("Error", message);
+          onDone.accept(false);
+        });
       }
-    } else {
+    });
+  }
+
+  /**
+   * Stop the command that is running.
+   */
+  public void stopCommand() {
+    if (env != null) {
+      paused = false;
+      env.resume();
+      env.cancel();
+    }
+  }
+
+  /**
+   * Pause the command that is running,
+   * or let it continue if it is paused.
+   *
+   * @return Whether the command is now paused.
+   */
+  public boolean togglePause() {
+    if (env == null) {
       return false;
     }
+    paused = !paused;
+    if (paused) {
+      env.pause();
+    } else {
+      env.resume();
+    }
+    return paused;
+  }
+
+  /**
+   * Wrap a callback from the model so that it
+   * runs on the JavaFX application thread.
+   */
+  public <T> Consumer<T> onFxThread(Consumer<T> callback) {
+    return runner.onFxThread(callback);
+  }
+
+  /**
+   * Wrap a callback from the model so that it
+   * runs on the JavaFX application thread.
+   */
+  public Runnable onFxThread(Runnable callback) {
+    return runner.onFxThread(callback);
   }
 
   /**
@@ -88,7 +164,61 @@ public class ModelController {
    * @param language - The language to use
    */
   public void setLanguage(String language) {
-    env.setLanguage(language);
+    TrackableEnvironment target = env;
+    if (target != null) {
+      runner.submit(() -> target.setLanguage(language));
+    }
+  }
+
+  /**
+   * Save the environment to a file, once the
+   * commands sent before have run.
+   * @param file - The file to save to
+   */
+  public void saveEnvironment(File file) {
+    TrackableEnvironment target = env;
+    if (target != null) {
+      runner.submit(() -> target.save(file));
+    }
+  }
+
+  /**
+   * Load a saved environment from a file, once
+   * the commands sent before have run.
+   *
+   * @param file - The file to load
+   * @param onLoaded - Called on the JavaFX application
+   *                 thread with the number of lines
+   *                 there were before the file was loaded.
+   */
+  public void loadEnvironment(File file, LongConsumer onLoaded) {
+    TrackableEnvironment target = env;
+    if (target == null) {
+      return;
+    }
+    runner.submit(() -> {
+      long drawn = target.getSegments().size();
+      try {
+        target.load(file);
+      } catch (ModelException e) {
+        String message = e.buildException(exceptions.getString(e.getMessage()));
+        runner.runOnFxThread(() -> vc.sendAlert("Error", message));
+        return;
+      }
+      runner.runOnFxThread(() -> onLoaded.accept(drawn));
+    });
+  }
+
+  /**
+   * Set a variable in the environment, once
+   * the commands sent before have run.
+   */
+  public void setVariable(String name, double value) {
+    TrackableEnvironment target = env;
+    if (target != null) {
+      DisplayVariable variable = new DisplayVariable(name, Double.toString(value));
+      runner.submit(() -> target.getTracker().requestVarUpdate(variable));
+    }
   }
 
   /**
@@ -96,7 +226,8 @@ public class ModelController {
    * to the environment.
    */
   public void addTurtle() {
-    env.addTurtle();
+    TrackableEnvironment target = env;
+    runner.submit(target::addTurtle);
   }
 
   /**
@@ -106,6 +237,7 @@ public class ModelController {
   public void setCurrTurtle(int turtle) {
     List<Integer> activeTurtles = new ArrayList<>();
     activeTurtles.add(turtle);
-    env.setCurrTurtle(activeTurtles);
+    TrackableEnvironment target = env;
+    runner.submit(() -> target.setCurrTurtle(activeTurtles));
   }
 }
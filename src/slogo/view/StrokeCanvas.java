@@ -0,0 +1,398 @@
+package slogo.view;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import slogo.model.SegmentIndex;
+import slogo.model.SegmentLevels;
+import slogo.model.SegmentLog;
+
+/**
+ * Draws the lines left by the turtles onto tiles of canvases, instead of keeping a node for every
+ * line.
+ * <p>
+ * This class assumes that the turtle coordinates have their origin in the middle of the pane, with
+ * the y-coordinate pointing up. Lines are queued as they arrive and drawn once per frame, so a
+ * command that draws thousands of lines costs one pass over the tiles it touched. Tiles are made
+ * the first time a line reaches them, which keeps the drawing unbounded without one huge canvas.
+ * <p>
+ * Lines are only drawn on the tiles in sight, so they wait until the part of the canvas in sight is
+ * known. Tiles that leave the sight are dropped, and the tiles that come into sight are drawn from
+ * the lines the model's {@link SegmentIndex} finds around them, if the canvas has it as a source,
+ * or else from every line the canvas was given. So only what can be seen is ever drawn, and a line
+ * that goes far out of sight, or off to infinity, costs no more than the tiles in sight it crosses.
+ * <p>
+ * When the sandbox is zoomed out past one of the {@link SegmentLevels#SCALES}, every tile is
+ * dropped and drawn again at that scale from the simplified polylines of that level, on a canvas
+ * with as many pixels as the tile takes on screen. Zooming out then costs about as much as the
+ * pixels it shows, and not every line drawn. Lines are at least a pixel wide at those levels.
+ * <p>
+ * This class depends on JavaFX and the segment log, index and levels of the model
+ * <p>
+ * The turtle sandbox keeps one stroke canvas under its turtles, so zooming and panning the sandbox
+ * moves the lines with them.
+ */
+public class StrokeCanvas extends Pane {
+
+  private static final int TILE_SIZE = 512;
+  // lines are found by their ends, so wide lines just outside a tile still reach into it
+  private static final double TILE_MARGIN = 16;
+
+  private final Map<Long, Canvas> tiles = new HashMap<>();
+  private final Map<String, Color> colors = new HashMap<>();
+  private final Map<Integer, Color> rgbColors = new HashMap<>();
+  private static final int FULL_SCALE = -1;
+
+  private SegmentIndex source;
+  private SegmentLevels levels;
+  private int level = FULL_SCALE;
+  private int[] inSight;
+  // the tiles that have every line that reaches them drawn, null if none have
+  private int[] drawnSight;
+  // without a source, every line is kept to draw the tiles that come into sight
+  private List<Stroke> kept = new ArrayList<>();
+  private List<Stroke> pending = new ArrayList<>();
+  private boolean drawScheduled = false;
+  private final AnimationTimer frame = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      drawPending();
+    }
+  };
+
+  private record Stroke(double x0, double y0, double x1, double y1, Color color, double width) {
+
+  }
+
+  /**
+   * Create an empty stroke canvas
+   */
+  public StrokeCanvas() {
+    setMouseTransparent(true);
+  }
+
+  /**
+   * Queue a line to be drawn on the next frame
+   *
+   * @param x0    the x-coordinate the line starts at
+   * @param y0    the y-coordinate the line starts at
+   * @param x1    the x-coordinate the line ends at
+   * @param y1    the y-coordinate the line ends at
+   * @param color the color of the line, in any form CSS accepts
+   * @param width the width of the line
+   */
+  public void addStroke(double x0, double y0, double x1, double y1, String color, double width) {
+    Color paint = colors.computeIfAbsent(color, Color::web);
+    pending.add(new Stroke(x0, -y0, x1, -y1, paint, width));
+    if (!drawScheduled) {
+      drawScheduled = true;
+      frame.start();
+    }
+  }
+
+  /**
+   * Remove every line, including the ones not drawn yet. This drops the tiles instead of going
+   * through the lines.
+   */
+  public void clear() {
+    pending = new ArrayList<>();
+    kept = new ArrayList<>();
+    tiles.clear();
+    getChildren().clear();
+  }
+
+  /**
+   * Set where the lines of dropped tiles are found
+   *
+   * @param source the index over the lines the model kept
+   * @param levels the simplified lines, drawn when zoomed out
+   */
+  public void setSource(SegmentIndex source, SegmentLevels levels) {
+    this.source = source;
+    this.levels = levels;
+  }
+
+  /**
+   * Set how much the canvas is zoomed, drawing every tile again from the level for that zoom if it
+   * is not the level the tiles were drawn at
+   *
+   * @param scale the number of pixels per turtle step
+   */
+  public void setScale(double scale) {
+    if (levels == null || levels.levelFor(scale) == level) {
+      return;
+    }
+    level = levels.levelFor(scale);
+    tiles.clear();
+    getChildren().clear();
+    drawnSight = null;
+    if (inSight != null) {
+      restoreTiles();
+    }
+  }
+
+  /**
+   * Get the number of pixels per turtle step the tiles are drawn at
+   */
+  public double getResolution() {
+    return level == FULL_SCALE ? 1 : SegmentLevels.SCALES[level];
+  }
+
+  /**
+   * Set the part of the canvas in sight, dropping the tiles out of it and drawing the tiles that
+   * came into it
+   *
+   * @param bounds the part in sight, in the coordinates of this canvas
+   */
+  public void setViewport(Bounds bounds) {
+    if (getWidth() == 0 && getHeight() == 0) {
+      // not laid out yet, so where the tiles are is not known
+      return;
+    }
+    double centerX = getWidth() / 2;
+    double centerY = getHeight() / 2;
+    inSight = new int[]{
+        tileIndex(bounds.getMinX() - centerX), tileIndex(bounds.getMinY() - centerY),
+        tileIndex(bounds.getMaxX() - centerX), tileIndex(bounds.getMaxY() - centerY)};
+
+    Iterator<Canvas> entries = tiles.values().iterator();
+    while (entries.hasNext()) {
+      Canvas tile = entries.next();
+      int[] index = (int[]) tile.getUserData();
+      if (!isIn(inSight, index[0], index[1])) {
+        entries.remove();
+        getChildren().remove(tile);
+      }
+    }
+    restoreTiles();
+    if (!pending.isEmpty() && !drawScheduled) {
+      // lines that came before the sight was known
+      drawScheduled = true;
+      frame.start();
+    }
+  }
+
+  /**
+   * Find where a point of the scene is, in turtle coordinates
+   */
+  public Point2D sceneToTurtle(double sceneX, double sceneY) {
+    Point2D local = sceneToLocal(sceneX, sceneY);
+    return new Point2D(local.getX() - getWidth() / 2, getHeight() / 2 - local.getY());
+  }
+
+  private static boolean isIn(int[] area, int tileX, int tileY) {
+    return area != null && tileX >= area[0] && tileX <= area[2]
+        && tileY >= area[1] && tileY <= area[3];
+  }
+
+  /**
+   * Draw the tiles in sight that were not in sight before from every line found around them, or
+   * from the polylines of the level the tiles are drawn at
+   */
+  private void restoreTiles() {
+    Set<Long> restored = new HashSet<>();
+    int left = Integer.MAX_VALUE;
+    int top = Integer.MAX_VALUE;
+    int right = Integer.MIN_VALUE;
+    int bottom = Integer.MIN_VALUE;
+    for (int tileX = inSight[0]; tileX <= inSight[2]; ++tileX) {
+      for (int tileY = inSight[1]; tileY <= inSight[3]; ++tileY) {
+        if (!isIn(drawnSight, tileX, tileY)) {
+          restored.add(tileKey(tileX, tileY));
+          left = Math.min(left, tileX);
+          top = Math.min(top, tileY);
+          right = Math.max(right, tileX);
+          bottom = Math.max(bottom, tileY);
+        }
+      }
+    }
+    drawnSight = inSight;
+    if (restored.isEmpty()) {
+      return;
+    }
+
+    // the tiles are in canvas coordinates, where y points down
+    double minX = left * TILE_SIZE - TILE_MARGIN;
+    double minY = -(bottom + 1) * TILE_SIZE - TILE_MARGIN;
+    double maxX = (right + 1) * TILE_SIZE + TILE_MARGIN;
+    double maxY = -top * TILE_SIZE + TILE_MARGIN;
+    drawOnTiles(source == null ? kept : findStrokes(minX, minY, maxX, maxY), restored);
+  }
+
+  /**
+   * Find the lines the source has in a rectangle, at the level the tiles are drawn at
+   */
+  private List<Stroke> findStrokes(double minX, double minY, double maxX, double maxY) {
+    List<Stroke> strokes = new ArrayList<>();
+    if (level == FULL_SCALE) {
+      source.update();
+      SegmentLog segments = source.getSegments();
+      for (long line : source.find(minX, minY, maxX, maxY)) {
+        strokes.add(new Stroke(segments.getX0(line), -segments.getY0(line), segments.getX1(line),
+            -segments.getY1(line), colorOf(segments.getRgb(line)), segments.getWidth(line)));
+      }
+    } else {
+      levels.update();
+      levels.forEach(level, minX, minY, maxX, maxY, (points, from, to, rgb, width) -> {
+        Color color = colorOf(rgb);
+        for (int i = from; i + 1 < to; i++) {
+          strokes.add(new Stroke(points[i * 2], -points[i * 2 + 1], points[i * 2 + 2],
+              -points[i * 2 + 3], color, width));
+        }
+      });
+    }
+    return strokes;
+  }
+
+  private Color colorOf(int rgb) {
+    return rgbColors.computeIfAbsent(rgb,
+        key -> Color.rgb(key >> 16 & 0xFF, key >> 8 & 0xFF, key & 0xFF));
+  }
+
+  /**
+   * Get the number of lines waiting to be drawn
+   */
+  public int getPendingStrokes() {
+    return pending.size();
+  }
+
+  /**
+   * Get the number of tiles lines have been drawn on
+   */
+  public int getTileCount() {
+    return tiles.size();
+  }
+
+  /**
+   * Draw every queued line, one path per run of lines with the same color and width on each tile
+   */
+  void drawPending() {
+    frame.stop();
+    drawScheduled = false;
+    if (inSight == null) {
+      // which tiles the lines go on is not known yet
+      return;
+    }
+    List<Stroke> strokes = pending;
+    pending = new ArrayList<>();
+    if (source == null) {
+      kept.addAll(strokes);
+    }
+    drawOnTiles(strokes, null);
+  }
+
+  /**
+   * Draw lines on every tile in sight they reach, or only on some of the tiles in sight. Only the
+   * tiles in sight are gone through, however far out of sight a line goes.
+   *
+   * @param strokes the lines
+   * @param only    the keys of the tiles to draw on, or null for every tile in sight
+   */
+  private void drawOnTiles(List<Stroke> strokes, Set<Long> only) {
+    Map<Canvas, List<Stroke>> byTile = new LinkedHashMap<>();
+    for (Stroke stroke : strokes) {
+      double margin = stroke.width() / 2;
+      int left = Math.max(inSight[0], tileIndex(Math.min(stroke.x0(), stroke.x1()) - margin));
+      int right = Math.min(inSight[2], tileIndex(Math.max(stroke.x0(), stroke.x1()) + margin));
+      int top = Math.max(inSight[1], tileIndex(Math.min(stroke.y0(), stroke.y1()) - margin));
+      int bottom = Math.min(inSight[3], tileIndex(Math.max(stroke.y0(), stroke.y1()) + margin));
+      for (int tileX = left; tileX <= right; ++tileX) {
+        for (int tileY = top; tileY <= bottom; ++tileY) {
+          if (only != null && !only.contains(tileKey(tileX, tileY))) {
+            continue;
+          }
+          byTile.computeIfAbsent(getTile(tileX, tileY), tile -> new ArrayList<>()).add(stroke);
+        }
+      }
+    }
+
+    for (Map.Entry<Canvas, List<Stroke>> entry : byTile.entrySet()) {
+      drawOnTile(entry.getKey().getGraphicsContext2D(), entry.getValue());
+    }
+  }
+
+  private void drawOnTile(GraphicsContext gc, List<Stroke> strokes) {
+    double minWidth = level == FULL_SCALE ? 0 : 1 / getResolution();
+    Color color = null;
+    double width = -1;
+    gc.beginPath();
+    for (Stroke stroke : strokes) {
+      if (!stroke.color().equals(color) || stroke.width() != width) {
+        gc.stroke();
+        gc.beginPath();
+        color = stroke.color();
+        width = stroke.width();
+        gc.setStroke(color);
+        gc.setLineWidth(Math.max(width, minWidth));
+      }
+      gc.moveTo(stroke.x0(), stroke.y0());
+      gc.lineTo(stroke.x1(), stroke.y1());
+    }
+    gc.stroke();
+  }
+
+  /**
+   * Get the tile a coordinate is on. Coordinates too far out for an int share the outermost tiles,
+   * which stop short of the largest int so that going through tiles up to them ends.
+   */
+  private int tileIndex(double coordinate) {
+    return (int) Math.min(Math.floor(coordinate / TILE_SIZE), Integer.MAX_VALUE - 1);
+  }
+
+  private static long tileKey(int tileX, int tileY) {
+    return ((long) tileX << Integer.SIZE) | (tileY & 0xFFFFFFFFL);
+  }
+
+  private Canvas getTile(int tileX, int tileY) {
+    long key = tileKey(tileX, tileY);
+    Canvas tile = tiles.get(key);
+    if (tile == null) {
+      double resolution = getResolution();
+      tile = new Canvas(Math.ceil(TILE_SIZE * resolution), Math.ceil(TILE_SIZE * resolution));
+      // draw in turtle coordinates, the tile only sees its own part
+      tile.getGraphicsContext2D().scale(resolution, resolution);
+      tile.getGraphicsContext2D().translate(-tileX * TILE_SIZE, -tileY * TILE_SIZE);
+      // a tile drawn at a lower resolution still takes the place of a whole tile
+      tile.getTransforms().add(new Scale(1 / resolution, 1 / resolution));
+      tile.setUserData(new int[]{tileX, tileY});
+      tiles.put(key, tile);
+      getChildren().add(tile);
+      requestLayout();
+    }
+    return tile;
+  }
+
+  @Override
+  protected void layoutChildren() {
+    double centerX = getWidth() / 2;
+    double centerY = getHeight() / 2;
+    for (Canvas tile : tiles.values()) {
+      int[] index = (int[]) tile.getUserData();
+      tile.relocate(centerX + index[0] * TILE_SIZE, centerY + index[1] * TILE_SIZE);
+    }
+  }
+
+  @Override
+  protected double computePrefWidth(double height) {
+    // the lines should not make the sandbox grow
+    return 0;
+  }
+
+  @Override
+  protected double computePrefHeight(double width) {
+    return 0;
+  }
+}
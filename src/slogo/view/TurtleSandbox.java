@@ -11,6 +11,7 @@ import javafx.animation.ScaleTransition;
 import javafx.animation.TranslateTransition;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.HPos;
+import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.geometry.VPos;
 import javafx.scene.control.Button;
@@ -19,6 +20,7 @@ import javafx.scene.control.Spinner;
 import javafx.scene.control.SpinnerValueFactory.IntegerSpinnerValueFactory;
 import javafx.scene.control.Tooltip;
 import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -26,7 +28,6 @@ import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.RowConstraints;
 import javafx.scene.layout.StackPane;
-import javafx.scene.shape.Line;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.util.Duration;
@@ -34,9 +35,13 @@ import javax.imageio.ImageIO;
 import slogo.model.Color;
 import slogo.model.PaletTable;
 import slogo.model.Palette;
+import slogo.model.SegmentIndex;
+import slogo.model.SegmentLevels;
+import slogo.model.SegmentLog;
 import slogo.model.notifiers.ModelTracker;
 import slogo.records.EnvironmentRecord;
 import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
 
 /**
  * @author marthaaboagye
@@ -49,10 +54,11 @@ public class TurtleSandbox extends GridPane {
   public static final double MIN_ZOOM = .1;
   public static final double ZOOM_INTENSITY = .05;
   public static final int DEFAULT_SIZE = 300;
+  public static final double HIT_PIXELS = 4;
   private List<TurtleView> turtles;
   private List<Integer> activeTurtles;
   private int mainTurtle = 0;
-  private StackPane lines;
+  private StrokeCanvas lines;
   private StackPane sandbox;
   private HBox controls;
   private double dragX;
@@ -64,11 +70,13 @@ public class TurtleSandbox extends GridPane {
   private ModelTracker modelTracker;
   private Map<Integer, String> shapeIndex;
   private EnvironmentRecord lastRecord;
+  private SegmentIndex segmentIndex;
+  private Tooltip segmentTip;
 
   /** Constructor for TurtleSandbox. Intializes the pan class. */
   public TurtleSandbox(ViewController viewController, ModelTracker tracker) {
     this.turtles = new ArrayList<>();
-    this.lines = new StackPane();
+    this.lines = new StrokeCanvas();
     this.sandbox = new StackPane();
     this.viewController = viewController;
     this.controls = createControls();
@@ -113,6 +121,50 @@ public class TurtleSandbox extends GridPane {
     GridPane.setColumnIndex(controls, 0);
     setAlignment(Pos.CENTER);
     makeDraggable(sandbox);
+    this.segmentTip = new Tooltip();
+    setOnMouseClicked(this::showSegment);
+    // panning and zooming move the sandbox, resizing the window moves the lines in it
+    layoutBoundsProperty().addListener((obs, old, newValue) -> updateViewport());
+    sandbox.boundsInParentProperty().addListener((obs, old, newValue) -> updateViewport());
+    lines.layoutBoundsProperty().addListener((obs, old, newValue) -> updateViewport());
+    // zoomed out, the lines are drawn again with fewer lines and pixels
+    sandbox.scaleXProperty().addListener((obs, old, newValue) ->
+        lines.setScale(newValue.doubleValue()));
+  }
+
+  /**
+   * Uses the lines the model keeps to draw the tiles that come back into sight or that are drawn
+   * again when zooming out, and to tell which turtle and command drew a line that is clicked.
+   *
+   * @param segments - The log of the lines of the model.
+   */
+  public void setSegments(SegmentLog segments) {
+    segmentIndex = new SegmentIndex(segments);
+    lines.setSource(segmentIndex, new SegmentLevels(segments));
+    lines.setScale(sandbox.getScaleX());
+    updateViewport();
+  }
+
+  private void updateViewport() {
+    lines.setViewport(lines.sceneToLocal(localToScene(getLayoutBounds())));
+  }
+
+  private void showSegment(MouseEvent e) {
+    segmentTip.hide();
+    if (segmentIndex == null || !e.isStillSincePress()) {
+      return;
+    }
+    Point2D point = lines.sceneToTurtle(e.getSceneX(), e.getSceneY());
+    segmentIndex.update();
+    long line = segmentIndex.nearest(point.getX(), point.getY(), HIT_PIXELS / sandbox.getScaleX());
+    if (line < 0) {
+      return;
+    }
+    SegmentLog segments = segmentIndex.getSegments();
+    String command = segments.getCommand(line);
+    segmentTip.setText(command == null ? "Turtle " + segments.getTurtle(line)
+        : "Turtle " + segments.getTurtle(line) + ": " + command);
+    segmentTip.show(this, e.getScreenX(), e.getScreenY());
   }
 
   private void makeDraggable(Pane pane) {
@@ -219,6 +271,8 @@ public class TurtleSandbox extends GridPane {
   }
 
   private void saveImage() {
+    // lines still waiting for the next frame belong in the image
+    lines.drawPending();
     WritableImage wi = new WritableImage((int) sandbox.getWidth(), (int) sandbox.getHeight());
     snapshot(null, wi);
     File file = fileChooser.showSaveDialog(getScene().getWindow());
@@ -249,6 +303,8 @@ public class TurtleSandbox extends GridPane {
     turtle.setOnMouseClicked(
         e -> {
           setTurtle(turtles.indexOf(turtle), true);
+          // a click on a turtle is not a click on the lines under it
+          e.consume();
         });
     turtle.getStyleClass().add("turtle");
     setTurtle(turtles.size() - 1, notifyModel);
@@ -279,7 +335,25 @@ public class TurtleSandbox extends GridPane {
    * sandbox.
    */
   public void clearLines() {
-    lines.getChildren().clear();
+    lines.clear();
+  }
+
+  /**
+   * Draws lines the model kept, such as the ones of an environment that was just loaded.
+   *
+   * @param segments - The log of the lines.
+   * @param from - The index of the first line to draw.
+   */
+  public void drawSegments(SegmentLog segments, long from) {
+    int[] lastRgb = {-1};
+    String[] lastColor = {null};
+    segments.forEach(from, (x0, y0, x1, y1, rgb, width, turtle) -> {
+      if (rgb != lastRgb[0]) {
+        lastRgb[0] = rgb;
+        lastColor[0] = String.format("#%06X", rgb);
+      }
+      lines.addStroke(x0, y0, x1, y1, lastColor[0], width);
+    });
   }
 
   /**
@@ -318,6 +392,17 @@ public class TurtleSandbox extends GridPane {
     this.lastRecord = record;
   }
 
+  /**
+   * This method updates every turtle that changed while a command ran, in order.
+   *
+   * @param delta
+   */
+  public void updateTurtles(TurtlesDeltaRecord delta) {
+    for (TurtleRecord info : delta.changes()) {
+      updateTurtle(info);
+    }
+  }
+
   /**
    * This method updates turtles position after the user command is executed on the backend.
    *
@@ -326,7 +411,7 @@ public class TurtleSandbox extends GridPane {
   public void updateTurtle(TurtleRecord info) {
     int turtleID = info.id();
     mainTurtle = info.id();
-    if (turtleID >= turtles.size()) {
+    while (turtleID >= turtles.size()) {
       addTurtle(false);
     }
     TurtleView turtle = turtles.get(info.id());
@@ -334,22 +419,7 @@ public class TurtleSandbox extends GridPane {
     double ty = turtle.getCurrY();
     turtle.update(info);
     if (info.penDown() && (tx != info.xCoord() || ty != info.yCoord())) {
-      Line line = new Line();
-      line.setStyle("-fx-stroke:" + turtle.getPenColor());
-      line.setStrokeWidth(this.penThickness);
-      line.setTranslateX(1 * tx);
-      line.setTranslateY(-1 * info.yCoord());
-      if (tx != info.xCoord()) {
-        line.setTranslateX(1 * info.xCoord() / 2 + tx / 2);
-      }
-      if (ty != info.yCoord()) {
-        line.setTranslateY(-1 * info.yCoord() / 2 - ty / 2);
-      }
-      line.setStartX(-tx);
-      line.setStartY(ty);
-      line.setEndX(-info.xCoord());
-      line.setEndY(info.yCoord());
-      lines.getChildren().addAll(line);
+      lines.addStroke(tx, ty, info.xCoord(), info.yCoord(), turtle.getPenColor(), penThickness);
     }
   }
 }
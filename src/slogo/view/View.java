@@ -39,6 +39,8 @@ public class View {
 
   private static final int WIDTH = 1200;
   private static final int HEIGHT = 1000;
+  // how often a running command shows its progress
+  private static final long UPDATE_INTERVAL_MILLIS = 50;
 
   private FileChooser fileChooser;
   private ModelController modelCon;
@@ -166,6 +168,7 @@ public class View {
     TrackableEnvironment environment = EnvironmentFactory.createEnvironment();
     EnvironmentPane environmentPane = new EnvironmentPane(viewCon, environment.getTracker());
     TurtleSandbox turtleSandbox = new TurtleSandbox(viewCon, environment.getTracker());
+    turtleSandbox.setSegments(environment.getSegments());
     CommandPane commandPane = new CommandPane(viewCon);
     this.settings = mainSettings.node("" + workspaces.size());
     int workspaceID = workspaces.size();
@@ -176,12 +179,15 @@ public class View {
     settingsPane.getStyleClass().add("component-pane");
     helpPane.getStyleClass().add("component-pane");
 
+    // commands run on a worker thread, so what they send is handed back to the JavaFX thread
     ModelTracker tracker = environment.getTracker();
-    tracker.setOnTurtleUpdate(turtleSandbox::updateTurtle);
-    tracker.setOnVarUpdate(environmentPane::updateVariables);
-    tracker.setOnCommandUpdate(environmentPane::updateCommands);
-    tracker.setOnEnvUpdate(turtleSandbox::updateEnvironment);
-    tracker.setOnClear(turtleSandbox::clearLines);
+    tracker.setOnTurtleDelta(modelCon.onFxThread(turtleSandbox::updateTurtles));
+    tracker.setOnVarDelta(modelCon.onFxThread(environmentPane::updateVariables));
+    tracker.setOnCommandUpdate(modelCon.onFxThread(environmentPane::updateCommands));
+    tracker.setOnEnvUpdate(modelCon.onFxThread(turtleSandbox::updateEnvironment));
+    tracker.setOnClear(modelCon.onFxThread(turtleSandbox::clearLines));
+    environment.setTurtleUpdateInterval(UPDATE_INTERVAL_MILLIS);
+    environment.setVariableUpdateInterval(UPDATE_INTERVAL_MILLIS);
 
     workspaces.add(workspace);
     return workspace;
@@ -342,7 +348,7 @@ public class View {
      */
 
     public void changeVariable(String variable, double newValue) {
-      System.out.println(String.format("Change: %s to %.2f", variable, newValue));
+      modelCon.setVariable(variable, newValue);
     }
 
     /**
@@ -372,7 +378,7 @@ public class View {
     public void saveEnvironment() {
       File file = fileChooser.showSaveDialog(scene.getWindow());
       if (file != null) {
-        environment.save(file);
+        modelCon.saveEnvironment(file);
       }
     }
 
@@ -382,7 +388,10 @@ public class View {
     public void loadEnvironment() {
       File file = fileChooser.showOpenDialog(scene.getWindow());
       if (file != null) {
-        environment.load(file);
+        TrackableEnvironment target = environment;
+        TurtleSandbox sandbox = turtleSandbox;
+        modelCon.loadEnvironment(file,
+            drawn -> sandbox.drawSegments(target.getSegments(), drawn));
       }
     }
 
@@ -390,8 +399,16 @@ public class View {
       if (command.isBlank()) {
         return;
       }
-      boolean executed = modelCon.sendCommand(command);
-      environmentPane.addPreviousCommand(command, executed);
+      EnvironmentPane pane = environmentPane;
+      modelCon.sendCommand(command, executed -> pane.addPreviousCommand(command, executed));
+    }
+
+    public void stopCommand() {
+      modelCon.stopCommand();
+    }
+
+    public boolean pauseCommand() {
+      return modelCon.togglePause();
     }
   }
 }
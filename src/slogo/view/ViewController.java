@@ -60,6 +60,16 @@ public interface ViewController {
   /** send user command to model to parse. */
   void sendCommand(String command);
 
+  /** stop the command that is running. */
+  void stopCommand();
+
+  /**
+   * Pause the command that is running, or let it continue if it is paused.
+   *
+   * @return Whether the command is now paused.
+   */
+  boolean pauseCommand();
+
   /**
    * Add a turtle to the turtle sandbox
    */
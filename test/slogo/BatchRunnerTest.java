@@ -0,0 +1,79 @@
+package slogo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import slogo.BatchRunner.FileResult;
+
+class BatchRunnerTest {
+
+  @TempDir
+  Path dir;
+
+  private File write(String name, String program) throws IOException {
+    Path file = dir.resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, program);
+    return file.toFile();
+  }
+
+  @Test
+  void testCountsCommandsAndSegments() throws IOException {
+    FileResult result = new BatchRunner("English", 0)
+        .run(write("square.slogo", "repeat 4 [ fd 50 rt 90 ]\npu fd 10"));
+
+    assertNull(result.error());
+    assertEquals(4, result.segments());
+    // pu, fd, repeat and the 2 commands of its list 4 times
+    assertEquals(11, result.run().commandsRun());
+    assertTrue(result.run().evalNanos() > 0);
+  }
+
+  @Test
+  void testErrorsAreReported() throws IOException {
+    BatchRunner runner = new BatchRunner("English", 100);
+
+    assertNotNull(runner.run(write("bad.slogo", "fd nope")).error());
+    assertNotNull(runner.run(write("long.slogo", "repeat 1000 [ fd 1 ]")).error());
+  }
+
+  @Test
+  void testMaxCallDepth() throws IOException {
+    File program = write("deep.slogo",
+        "to down [ :n ] [ ifelse equal? :n 0 [ 0 ] [ sum 1 down difference :n 1 ] ]\ndown 50000");
+
+    assertNotNull(new BatchRunner("English", 0).run(program).error());
+    assertNull(new BatchRunner("English", 0, 100000).run(program).error());
+  }
+
+  @Test
+  void testLanguage() throws IOException {
+    FileResult result = new BatchRunner("French", 0).run(write("fr.slogo", "repete 3 [ dev 10 ]"));
+
+    assertNull(result.error());
+    assertEquals(3, result.segments());
+  }
+
+  @Test
+  void testFindAndRunInParallel() throws IOException, InterruptedException {
+    write("a.slogo", "fd 10");
+    write("sub/b.logo", "fd 10 fd 10");
+    write("notes.txt", "not a program");
+
+    List<File> files = BatchRunner.findPrograms(List.of(dir.toString()));
+    assertEquals(2, files.size());
+
+    List<FileResult> results = new BatchRunner("English", 0).runAll(files, 2);
+    assertEquals(1, results.get(0).segments());
+    assertEquals(2, results.get(1).segments());
+  }
+}
@@ -2,6 +2,8 @@ package slogo.model.ASTNodes;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
@@ -11,6 +13,8 @@ import java.util.Map;
 import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import slogo.exceptions.CallDepthExceededException;
+import slogo.exceptions.IncorrectParameterCountException;
 import slogo.model.TestBundle;
 import slogo.model.notifiers.Delegate;
 import slogo.model.Turtle;
@@ -391,4 +395,175 @@ public class ASTNodeTest {
     assertEquals(1, res, 1E-5);
     assertTurtleXY(0, -1);
   }
+
+  @Test
+  void testVariableSlots() {
+    parseAndEvaluateCommands("make :a 5 make :b sum :a 1");
+    int slotA = infoBundle.getVariableSlots().findSlot(":a");
+    int slotB = infoBundle.getVariableSlots().findSlot(":b");
+
+    assertTrue(infoBundle.isVariableDefined(slotA));
+    assertEquals(5, infoBundle.getVariable(slotA), 1E-5);
+    assertEquals(6, infoBundle.getVariable(slotB), 1E-5);
+
+    Map<String, Double> variables = new HashMap<>();
+    for (var entry : infoBundle.getVariables()) {
+      variables.put(entry.getKey(), entry.getValue().getValue());
+    }
+    assertEquals(Map.of(":a", 5.0, ":b", 6.0), variables);
+  }
+
+  @Test
+  void testVariablesInFunctionScope() {
+    parseAndEvaluateCommands("make :a 1 to f [ :x ] [ make :b sum :a :x ] f 2");
+    assertVariableLookUp(":a", 1);
+    assertNull(infoBundle.getVariable(":b"));
+    assertNull(infoBundle.getVariable(":x"));
+  }
+
+  @Test
+  void testEvaluateInAnotherBundle() {
+    ASTNode node = parser.parseCommand("repeat 3 [ make :a sum :a :repcount ]");
+    node.evaluate(infoBundle);
+
+    TestBundle other = new TestBundle(turtles, currTurtles,
+        new HashMap<>(Map.of(":a", new ASTNumberLiteral(10))), commandTable, new Delegate());
+    node.evaluate(other);
+
+    assertVariableLookUp(":a", 6);
+    assertEquals(16, other.getVariable(":a").getValue(), 1E-5);
+    assertEquals(3, other.getVariable(":repcount").getValue(), 1E-5);
+  }
+
+  @Test
+  void testArgumentsEvaluatedByCaller() {
+    double res = parseAndEvaluateCommands(
+        "make :a 1 make :b 2 to f [ :b :a ] [ difference :b :a ] f :a :b");
+    assertEquals(-1, res, 1E-5);
+    assertVariableLookUp(":a", 1);
+    assertVariableLookUp(":b", 2);
+  }
+
+  @Test
+  void testEnvironmentStateInsideFunction() {
+    double res = parseAndEvaluateCommands("setpc 3 to g [ ] [ pc ] g");
+    assertEquals(3, res, 1E-5);
+  }
+
+  @Test
+  void testCallDepthLimit() {
+    infoBundle.setMaxCallDepth(50);
+    parseAndEvaluateCommands(
+        "make :n 7 to down [ :n ] [ if greater? :n 0 [ sum 1 down difference :n 1 ] ]");
+
+    assertEquals(49, parseAndEvaluateCommands("down 49"), 1E-5);
+    assertThrows(CallDepthExceededException.class, () -> parseAndEvaluateCommands("down 50"));
+    assertEquals(0, infoBundle.getCallDepth());
+    assertVariableLookUp(":n", 7);
+  }
+
+  @Test
+  void testTailCallsUseOneFrame() {
+    infoBundle.setMaxCallDepth(10);
+    parseAndEvaluateCommands("to count [ :n :total ] "
+        + "[ ifelse greater? :n 0 [ count difference :n 1 sum :total :n ] [ :total ] ]");
+
+    assertEquals(50005000, parseAndEvaluateCommands("count 10000 0"), 1E-5);
+    assertEquals(0, infoBundle.getCallDepth());
+    assertNull(infoBundle.getVariable(":total"));
+  }
+
+  @Test
+  void testTailCallToOtherFunction() {
+    parseAndEvaluateCommands("to finish [ :n ] [ product :n 2 ] "
+        + "to loop [ :n ] [ ifelse equal? :n 0 [ finish 7 ] [ loop difference :n 1 ] ]");
+    infoBundle.setMaxCallDepth(10);
+
+    assertEquals(14, parseAndEvaluateCommands("loop 100000"), 1E-5);
+  }
+
+  @Test
+  void testTailCallSeesCallerVariables() {
+    parseAndEvaluateCommands("to gee [ ] [ :a ] to eff [ :a ] [ gee ] "
+        + "to aitch [ :a ] [ sum 0 gee ] to down [ :a :n ] "
+        + "[ ifelse greater? :n 0 [ make :b :n down sum :a 1 difference :n 1 ] [ sum :a :b ] ]");
+
+    assertEquals(5, parseAndEvaluateCommands("eff 5"), 1E-5);
+    assertEquals(6, parseAndEvaluateCommands("aitch 6"), 1E-5);
+    assertEquals(12, parseAndEvaluateCommands("down 10 1"), 1E-5);
+    assertNull(infoBundle.getVariable(":a"));
+    assertNull(infoBundle.getVariable(":b"));
+
+    infoBundle.setCompileThreshold(1);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(5, parseAndEvaluateCommands("eff 5"), 1E-5);
+    }
+  }
+
+  @Test
+  void testNestedDefinitionIsGlobal() {
+    parseAndEvaluateCommands("to outer [ :n ] [ to inner [ :m ] [ sum :m 1 ] inner :n ]");
+
+    // the inner command is defined with the outer one, not when the outer one runs
+    assertNotNull(infoBundle.getCommand("inner"));
+    assertEquals(6, parseAndEvaluateCommands("outer 5"), 1E-5);
+    // and frames do not take it back when the call returns
+    assertEquals(8, parseAndEvaluateCommands("inner 7"), 1E-5);
+    assertEquals(0, infoBundle.getCallDepth());
+  }
+
+  @Test
+  void testDeepRecursion() {
+    parseAndEvaluateCommands(
+        "to total [ :n ] [ ifelse equal? :n 0 [ 0 ] [ sum :n total difference :n 1 ] ]");
+
+    // a million nested calls, counting the last one that returns 0
+    infoBundle.setMaxCallDepth(1000000);
+    assertEquals(499999500000.0, parseAndEvaluateCommands("total 999999"), 1E-5);
+    assertEquals(0, infoBundle.getCallDepth());
+  }
+
+  @Test
+  void testCompiledMatchesTreeWalker() {
+    String[] programs = {
+        "make :s 0 repeat 100 [ make :s sum :s quotient product :repcount 3 sum :repcount 1 ] sum :s 0",
+        "make :s 0 for [ :i 1 20 0.5 ] [ make :s (sum :s :i 1 2) ] sum :s 0",
+        "make :s 0 dotimes [ :i 30 ] [ ifelse less? :i 10 [ make :s sum :s 1 ] [ make :s :i ] ] sum :s 0",
+        "to fib [ :n ] [ ifelse less? :n 2 [ :n ] [ sum fib difference :n 1 fib difference :n 2 ] ] "
+            + "fib 15",
+        "repeat 60 [ fd 1 rt 6 ] xcor",
+        "repeat 10 [ repeat 10 [ make :u sum :u :repcount ] ] sum :u 0",
+    };
+    for (String program : programs) {
+      setUp();
+      infoBundle.setCompileThreshold(0);
+      double expected = parseAndEvaluateCommands(program);
+
+      setUp();
+      infoBundle.setCompileThreshold(1);
+      assertEquals(expected, parseAndEvaluateCommands(program), 1E-9, program);
+    }
+  }
+
+  @Test
+  void testCompiledTailCallsUseOneFrame() {
+    infoBundle.setCompileThreshold(1);
+    infoBundle.setMaxCallDepth(10);
+    parseAndEvaluateCommands("to count [ :n :total ] "
+        + "[ ifelse greater? :n 0 [ count difference :n 1 sum :total :n ] [ :total ] ]");
+
+    assertEquals(50005000, parseAndEvaluateCommands("count 10000 0"), 1E-5);
+    assertEquals(0, infoBundle.getCallDepth());
+  }
+
+  @Test
+  void testCompiledFallsBackToTreeWalker() {
+    infoBundle.setCompileThreshold(1);
+    double res = parseAndEvaluateCommands("repeat 4 [ (fd 1 2) tell [ 0 ] (minus 1 2) ]");
+
+    assertEquals(-2, res, 1E-5);
+    assertTurtleXY(0, 12);
+    assertThrows(IncorrectParameterCountException.class,
+        () -> parseAndEvaluateCommands("repeat 4 [ (setxy 1 2 3) ]"));
+  }
 }
@@ -0,0 +1,103 @@
+package slogo.model.ASTNodes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import slogo.model.TestBundle;
+import slogo.model.Turtle;
+import slogo.model.notifiers.Delegate;
+import slogo.model.parser.Parser;
+import slogo.model.parser.ProgramParser;
+
+/**
+ * Test that the optimizer simplifies parsed trees without changing what they evaluate to
+ */
+public class ASTOptimizerTest {
+
+  private TestBundle infoBundle;
+  private Parser parser;
+
+  @BeforeEach
+  void setUp() {
+    Delegate delegate = new Delegate();
+    infoBundle = new TestBundle(
+        new ArrayList<>(List.of(new Turtle(0, delegate))),
+        new ArrayList<>(List.of(0)), new HashMap<>(),
+        new HashMap<>(), delegate);
+    parser = new ProgramParser("English", infoBundle);
+  }
+
+  void assertLiteral(double expected, ASTNode node) {
+    assertTrue(node instanceof ASTNumberLiteral, node.getClass().getSimpleName());
+    assertEquals(expected, ((ASTNumberLiteral) node).getValue(), 1E-9);
+  }
+
+  @Test
+  void testFoldConstants() {
+    ASTNode node = parser.parseCommand("fd sum 10 product 2 pi");
+
+    assertTrue(node instanceof ASTForward);
+    assertLiteral(10 + 2 * Math.PI, node.getChildAt(0));
+  }
+
+  @Test
+  void testKeepImpureNodes() {
+    ASTNode random = parser.parseCommand("fd random 10");
+    ASTNode variable = parser.parseCommand("fd sum :x product 2 3");
+    ASTNode turtle = parser.parseCommand("fd sum xcor 1");
+
+    assertTrue(random.getChildAt(0) instanceof ASTRandom);
+    assertTrue(variable.getChildAt(0) instanceof ASTSum);
+    assertLiteral(6, variable.getChildAt(0).getChildAt(1));
+    assertTrue(turtle.getChildAt(0) instanceof ASTSum);
+  }
+
+  @Test
+  void testRemoveDeadBranches() {
+    assertLiteral(0, parser.parseCommand("if less? 2 1 [ fd 10 ]"));
+    assertTrue(parser.parseCommand("ifelse 1 [ fd 10 ] [ bk 10 ]") instanceof ASTForward);
+    assertTrue(parser.parseCommand("ifelse 0 [ fd 10 ] [ bk 10 ]") instanceof ASTBackward);
+    assertTrue(parser.parseCommand("if :x [ fd 10 ]") instanceof ASTIf);
+  }
+
+  @Test
+  void testFlattenCompoundStatements() {
+    ASTNode node = parser.parseCommand("repeat 2 [ fd 1 if 1 [ rt 90 fd 2 ] [ ] ]");
+    ASTNode body = node.getChildAt(1);
+
+    assertEquals(4, body.getNumChildren());
+    assertTrue(body.getChildAt(1) instanceof ASTRight);
+    assertEquals(0, body.getChildAt(3).getNumChildren());
+  }
+
+  @Test
+  void testTurnOff() {
+    parser.setOptimizing(false);
+
+    assertTrue(parser.parseCommand("fd sum 1 2").getChildAt(0) instanceof ASTSum);
+  }
+
+  @Test
+  void testSameResults() {
+    String[] programs = {
+        "make :a sum 1 quotient 10 4",
+        "make :b ifelse greater? 3 2 [ sum 1 2 ] [ 7 ]",
+        "to f [ :n ] [ if 1 [ ifelse less? :n 1 [ 0 ] [ sum 2 f difference :n 1 ] ] ] f 10",
+        "repeat 3 [ fd product 2 5 if 0 [ bk 100 ] rt 90 ] xcor",
+        "make :c quotient 1 0",
+    };
+    for (String program : programs) {
+      setUp();
+      parser.setOptimizing(false);
+      double expected = parser.parseCommand(program).evaluate(infoBundle);
+
+      setUp();
+      assertEquals(expected, parser.parseCommand(program).evaluate(infoBundle), 1E-9, program);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package slogo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import slogo.exceptions.UnknownIdentifierException;
+import slogo.records.DisplayVariable;
+import slogo.records.EnvironmentRecord;
+import slogo.records.TurtleRecord;
+
+public class CommandJournalTest {
+
+  @TempDir
+  Path dir;
+  private File file;
+  private TrackableEnvironment env;
+
+  @BeforeEach
+  void setUp() {
+    file = dir.resolve("session.journal").toFile();
+    env = EnvironmentFactory.createEnvironment();
+  }
+
+  private Map<String, String> trackVariables(TrackableEnvironment environment) {
+    Map<String, String> variables = new HashMap<>();
+    environment.getTracker().setOnVarUpdate(record -> {
+      for (var variable : record.variables()) {
+        variables.put(variable.name(), variable.value());
+      }
+    });
+    return variables;
+  }
+
+  private List<TurtleRecord> trackTurtles(TrackableEnvironment environment) {
+    List<TurtleRecord> turtles = new ArrayList<>();
+    environment.getTracker().setOnTurtleUpdate(turtles::add);
+    return turtles;
+  }
+
+  @Test
+  void testRecover() {
+    env.startJournal(file, 0);
+    env.runCommand("to square [ :side ] [ repeat 4 [ fd :side rt 90 ] ]");
+    env.runCommand("make :size 20 square :size fd 30");
+    env.setLanguage("French");
+    env.runCommand("dev 5");
+    env.addTurtle();
+    env.getTracker().requestVarUpdate(new DisplayVariable(":size", "42"));
+    assertThrows(UnknownIdentifierException.class, () -> env.runCommand("nothing"));
+    env.stopJournal();
+
+    TrackableEnvironment recovered = EnvironmentFactory.createEnvironment();
+    Map<String, String> variables = trackVariables(recovered);
+    List<TurtleRecord> turtles = trackTurtles(recovered);
+    recovered.startJournal(file, 0);
+
+    assertEquals("42.0", variables.get(":size"));
+    TurtleRecord last = turtles.get(1);
+    assertEquals(0, last.id());
+    assertEquals(35, last.yCoord(), 1E-9);
+    // the language was journaled too
+    recovered.runCommand("dev 5 square 1");
+  }
+
+  @Test
+  void testRecoveredTurtlesDoNotDrawFromTheOrigin() {
+    env.startJournal(file, 0);
+    env.runCommand("fd 50 rt 90 fd 50");
+    env.stopJournal();
+
+    TrackableEnvironment recovered = EnvironmentFactory.createEnvironment();
+    List<TurtleRecord> turtles = trackTurtles(recovered);
+    recovered.startJournal(file, 0);
+
+    // only the state it ended in is sent, first with the pen up
+    assertEquals(2, turtles.size());
+    assertFalse(turtles.get(0).penDown());
+    assertTrue(turtles.get(1).penDown());
+    assertEquals(50, turtles.get(1).xCoord(), 1E-9);
+    assertEquals(50, turtles.get(1).yCoord(), 1E-9);
+  }
+
+  @Test
+  void testCheckpoints() throws IOException {
+    env.startJournal(file, 4);
+    env.runCommand("make :count 0 setpalette 3 10 20 30 setpc 3");
+    for (int i = 0; i < 10; i++) {
+      env.runCommand("make :count sum :count 1 fd 1");
+    }
+    env.stopJournal();
+
+    try (Stream<Path> files = Files.list(dir)) {
+      assertEquals(1, files.filter(path -> path.toString().endsWith(".checkpoint")).count());
+    }
+    try (CommandJournal journal = CommandJournal.open(file.toPath())) {
+      assertNotNull(journal.getCheckpoint());
+      assertEquals(3, journal.getEntriesSinceCheckpoint());
+    }
+
+    TrackableEnvironment recovered = EnvironmentFactory.createEnvironment();
+    Map<String, String> variables = trackVariables(recovered);
+    List<TurtleRecord> turtles = trackTurtles(recovered);
+    List<EnvironmentRecord> environments = new ArrayList<>();
+    recovered.getTracker().setOnEnvUpdate(environments::add);
+    recovered.startJournal(file, 4);
+
+    assertEquals("10.0", variables.get(":count"));
+    assertEquals(10, turtles.get(turtles.size() - 1).yCoord(), 1E-9);
+    EnvironmentRecord pen = environments.get(environments.size() - 1);
+    assertEquals(3, pen.currPenColor());
+    assertEquals(new Color(10, 20, 30), pen.colors().getColor(3));
+  }
+
+  @Test
+  void testRecoverAfterCrash() throws IOException {
+    env.startJournal(file, 0);
+    env.runCommand("fd 10");
+    env.runCommand("fd 20");
+    // the journal is never closed, so the file still has the mapped space after the entries
+
+    try (CommandJournal journal = CommandJournal.open(file.toPath())) {
+      assertNull(journal.getCheckpoint());
+      List<String> commands = new ArrayList<>();
+      assertEquals(2, journal.replay(new RecordingHandler(commands)));
+      assertEquals(List.of("fd 10", "fd 20"), commands);
+    }
+  }
+
+  @Test
+  void testRejectsOtherFiles() throws IOException {
+    Files.writeString(file.toPath(), "fd 50");
+    assertThrows(IOException.class, () -> CommandJournal.open(file.toPath()));
+  }
+
+  /**
+   * Keeps the commands of a journal without running them
+   */
+  private record RecordingHandler(List<String> commands) implements CommandJournal.Handler {
+
+    @Override
+    public void runCommand(String command) {
+      commands.add(command);
+    }
+
+    @Override
+    public void setLanguage(String language) {
+    }
+
+    @Override
+    public void addTurtle() {
+    }
+
+    @Override
+    public void setCurrTurtle(int turtle) {
+    }
+
+    @Override
+    public void setCurrTurtle(List<Integer> turtles) {
+    }
+
+    @Override
+    public void requestTurtleUpdate(TurtleRecord record) {
+    }
+
+    @Override
+    public void requestVarUpdate(DisplayVariable variable) {
+    }
+
+    @Override
+    public void requestEnvUpdate(EnvironmentRecord record) {
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package slogo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import slogo.records.CommandSource;
+import slogo.records.CommandsRecord;
+import slogo.records.TurtleRecord;
+
+public class EnvironmentSnapshotTest {
+
+  private static final String SQUARE = "to square [ :side ] [ repeat 4 [ fd :side rt 90 ] ]";
+  private static final String TWO_SQUARES = "to twosquares [ ] [ square 10 square 20 ]";
+
+  @TempDir
+  Path dir;
+  private TrackableEnvironment env;
+  private File file;
+
+  @BeforeEach
+  void setUp() {
+    env = EnvironmentFactory.createEnvironment();
+    file = dir.resolve("workspace.slogo").toFile();
+  }
+
+  @Test
+  void testRoundTrip() throws IOException {
+    env.runCommand("# a comment\n" + SQUARE + "\n" + TWO_SQUARES + " fd 30");
+    env.runCommand("make :x 3.5 make :name 7 pu rt 45 st");
+    env.addTurtle();
+    env.save(file);
+
+    EnvironmentSnapshot snapshot = EnvironmentSnapshot.read(file.toPath());
+    assertEquals(List.of(new CommandSource("English", SQUARE),
+        new CommandSource("English", TWO_SQUARES)), snapshot.getCommands());
+    assertEquals(2, snapshot.getVariableCount());
+    assertEquals(":x", snapshot.getVariableName(0));
+    assertEquals(3.5, snapshot.getVariableValue(0));
+    assertEquals(2, snapshot.getTurtleCount());
+    assertEquals(30, snapshot.getY(0), 1E-9);
+    assertEquals(45, snapshot.getRotation(0), 1E-9);
+    assertFalse(snapshot.isPenDown(0));
+    assertTrue(snapshot.isVisible(0));
+    assertTrue(snapshot.isPenDown(1));
+  }
+
+  @Test
+  void testCompressedIsSmaller() throws IOException {
+    for (char name = 'a'; name <= 'z'; name++) {
+      env.runCommand("to square" + name + " [ :side ] [ repeat 4 [ fd :side rt 90 ] ]");
+      env.runCommand("make :variable" + name + " " + (int) name);
+    }
+    File compressed = dir.resolve("compressed.slogo").toFile();
+    env.save(file);
+    env.save(compressed, true);
+
+    assertTrue(compressed.length() < file.length());
+    EnvironmentSnapshot plain = EnvironmentSnapshot.read(file.toPath());
+    EnvironmentSnapshot deflated = EnvironmentSnapshot.read(compressed.toPath());
+    assertEquals(plain.getCommands(), deflated.getCommands());
+    assertEquals(plain.getVariableValue(25), deflated.getVariableValue(25));
+  }
+
+  @Test
+  void testLoadSendsEachKindOnce() {
+    env.runCommand(SQUARE + " " + TWO_SQUARES + " make :a 1 make :b 2");
+    env.save(file);
+
+    TrackableEnvironment loaded = EnvironmentFactory.createEnvironment();
+    List<CommandsRecord> commandUpdates = new ArrayList<>();
+    Map<Integer, TurtleRecord> turtles = new HashMap<>();
+    int[] variableUpdates = {0};
+    loaded.getTracker().setOnCommandUpdate(commandUpdates::add);
+    loaded.getTracker().setOnVarUpdate(record -> variableUpdates[0]++);
+    loaded.getTracker().setOnTurtleUpdate(record -> turtles.put(record.id(), record));
+    loaded.load(file);
+
+    assertEquals(1, commandUpdates.size());
+    assertEquals(2, commandUpdates.get(0).commands().size());
+    assertEquals(1, variableUpdates[0]);
+    // only the turtle that was loaded changed
+    assertEquals(Set.of(1), turtles.keySet());
+
+    // the commands are parsed again, so the one calling the other still works
+    loaded.runCommand("twosquares");
+  }
+
+  @Test
+  void testCommandsKeepTheirLanguage() throws IOException {
+    env.setLanguage("French");
+    env.runCommand("fait pas [ ] [ dev 10 ]");
+    env.save(file);
+
+    assertEquals(List.of(new CommandSource("French", "fait pas [ ] [ dev 10 ]")),
+        EnvironmentSnapshot.read(file.toPath()).getCommands());
+    TrackableEnvironment loaded = EnvironmentFactory.createEnvironment();
+    loaded.load(file);
+    loaded.runCommand("pas");
+  }
+
+  @Test
+  void testRejectsOtherFiles() throws IOException {
+    Files.writeString(file.toPath(), "fd 50");
+    assertFalse(EnvironmentSnapshot.isSnapshot(file.toPath()));
+    assertThrows(IOException.class, () -> EnvironmentSnapshot.read(file.toPath()));
+
+    env.save(file);
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+    assertTrue(EnvironmentSnapshot.isSnapshot(file.toPath()));
+    assertThrows(IOException.class, () -> EnvironmentSnapshot.read(file.toPath()));
+  }
+}
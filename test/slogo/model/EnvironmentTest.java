@@ -1,22 +1,34 @@
 package slogo.model;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import slogo.exceptions.CommandCancelledException;
+import slogo.exceptions.NotASavedEnvironmentException;
+import slogo.exceptions.StepLimitExceededException;
 import slogo.model.ASTNodes.ASTNode;
 import slogo.model.notifiers.ModelTracker;
 import slogo.model.parser.ParserTest;
 import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+import slogo.records.VariablesDeltaRecord;
 
 public class EnvironmentTest {
 
@@ -88,6 +100,164 @@ public class EnvironmentTest {
     assertEquals(expected, commands.get("face"));
   }
 
+  @Test
+  void testLoadShippedEnvironment() {
+    env.load(new File(DIR + "basic.ser"));
+
+    assertTrue(commands.containsKey("square"));
+    assertTrue(commands.containsKey("face"));
+    // the two saved turtles are added after the one the environment starts with
+    assertEquals(List.of(1, 2), new ArrayList<>(turtles.keySet()));
+    assertEquals(50, turtles.get(2).xCoord(), 1E-9);
+    assertEquals(65, turtles.get(2).yCoord(), 1E-9);
+    assertEquals(135, turtles.get(2).rotation(), 1E-9);
+    assertEquals(0, env.getSegments().size());
+
+    env.runCommand("face");
+    assertTrue(env.getSegments().size() > 0);
+  }
+
+  @Test
+  void testSerializedFileIsNotLoaded() throws IOException {
+    File serialized = File.createTempFile("environment", ".ser");
+    serialized.deleteOnExit();
+    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(serialized))) {
+      out.writeObject(new ArrayList<>(List.of(1, 2, 3)));
+    }
+    env.runCommand("to square [ :distance ] [ repeat 4 [ fd :distance rt 90 ] ]");
+
+    assertThrows(NotASavedEnvironmentException.class, () -> env.load(serialized));
+    assertEquals(1, commands.size());
+    assertTrue(turtles.isEmpty());
+  }
+
+  @Test
+  void testVariableDeltas() {
+    List<VariablesDeltaRecord> deltas = new ArrayList<>();
+    tracker.setOnVarDelta(deltas::add);
+
+    env.runCommand("make :a 1 make :b 2 repeat 1000 [ make :a sum :a 1 ]");
+    assertEquals(1, deltas.size());
+    assertEquals(3, deltas.get(0).changed().size());
+    assertEquals("1001.0", variables.get(":a"));
+    assertEquals("1000.0", variables.get(":repcount"));
+
+    env.runCommand("make :b 5");
+    assertEquals(2, deltas.size());
+    assertEquals(1, deltas.get(1).changed().size());
+    assertEquals(":b", deltas.get(1).changed().get(0).name());
+    assertEquals("5.0", deltas.get(1).changed().get(0).value());
+
+    env.runCommand("fd 50");
+    assertEquals(2, deltas.size());
+  }
+
+  @Test
+  void testVariableUpdateInterval() {
+    // time moves a millisecond every time it is read, and the listener takes twenty
+    AtomicLong time = new AtomicLong();
+    long millisecond = TimeUnit.MILLISECONDS.toNanos(1);
+    ((Environment) env).setClock(() -> time.addAndGet(millisecond));
+    List<VariablesDeltaRecord> deltas = new ArrayList<>();
+    tracker.setOnVarDelta(record -> {
+      deltas.add(record);
+      time.addAndGet(20 * millisecond);
+    });
+    env.setVariableUpdateInterval(10);
+
+    env.runCommand("make :a 0 repeat 300 [ make :a sum :a 1 ]");
+    // changes are sent while the command runs, but the slow listener does not make each one flush
+    assertTrue(deltas.size() > 1);
+    assertTrue(deltas.size() < 100);
+    assertTrue(deltas.stream().flatMap(record -> record.changed().stream())
+        .anyMatch(variable -> variable.name().equals(":a") && !variable.value().equals("0.0")
+            && !variable.value().equals("300.0")));
+    assertEquals("300.0", variables.get(":a"));
+  }
+
+  @Test
+  void testTurtleDeltas() {
+    List<TurtlesDeltaRecord> deltas = new ArrayList<>();
+    tracker.setOnTurtleDelta(deltas::add);
+    StringBuilder ids = new StringBuilder();
+    for (int i = 0; i < 100; ++i) {
+      ids.append(i).append(' ');
+    }
+
+    env.runCommand("tell [ " + ids + "] fd 10 rt 90");
+    assertEquals(1, deltas.size());
+    assertTrue(deltas.get(0).changes().size() <= 200);
+    assertEquals(100, turtles.size());
+    assertEquals(90, turtles.get(99).rotation(), 1E-5);
+
+    env.runCommand("fd 10 setpc 2 fd 10");
+    assertEquals(3, deltas.size());
+  }
+
+  @Test
+  void testMaxTurtleUpdates() {
+    List<TurtlesDeltaRecord> deltas = new ArrayList<>();
+    tracker.setOnTurtleDelta(deltas::add);
+    env.setMaxTurtleUpdates(100);
+
+    env.runCommand("repeat 1000 [ rt 1 ]");
+    assertEquals(10, deltas.size());
+  }
+
+  @Test
+  void testMaxSteps() {
+    env.setMaxSteps(100);
+
+    assertThrows(StepLimitExceededException.class,
+        () -> env.runCommand("repeat 1000 [ fd 1 ]"));
+    assertTrue(turtles.get(0).yCoord() > 0);
+
+    env.runCommand("repeat 50 [ fd 1 ]");
+    env.setMaxSteps(0);
+    env.runCommand("repeat 1000 [ fd 1 ]");
+  }
+
+  @Test
+  void testCancelFromAnotherThread() throws InterruptedException {
+    List<RuntimeException> errors = new ArrayList<>();
+    // a stop asked for before the command starts is forgotten, so wait until it moves the turtle
+    CountDownLatch started = new CountDownLatch(1);
+    env.setMaxTurtleUpdates(1000);
+    tracker.setOnTurtleDelta(record -> started.countDown());
+    Thread worker = new Thread(() -> {
+      try {
+        env.runCommand("repeat 1000000000 [ fd 1 ]");
+      } catch (RuntimeException e) {
+        errors.add(e);
+      }
+    });
+    worker.start();
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    env.cancel();
+    worker.join(10000);
+
+    assertFalse(worker.isAlive());
+    assertEquals(1, errors.size());
+    assertTrue(errors.get(0) instanceof CommandCancelledException);
+    // a stop asked for while nothing runs does not stop the next command
+    env.cancel();
+    env.runCommand("fd 1");
+  }
+
+  @Test
+  void testPauseAndResume() throws InterruptedException {
+    env.pause();
+    Thread worker = new Thread(() -> env.runCommand("repeat 10 [ fd 1 ]"));
+    worker.start();
+    Thread.sleep(100);
+
+    assertTrue(worker.isAlive());
+    env.resume();
+    worker.join(10000);
+    assertFalse(worker.isAlive());
+    assertEquals(10, turtles.get(0).yCoord(), 1E-5);
+  }
+
   private static final String EXAMPLE_DIR = "data/examples/";
   void runFile(String toRun) {
     File program = new File(EXAMPLE_DIR + toRun);
@@ -0,0 +1,68 @@
+package slogo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import slogo.model.notifiers.ModelTracker;
+import slogo.records.TurtleRecord;
+
+/**
+ * Test that turtle commands applied in parallel leave the turtles in the same state, and send the
+ * same updates and record the same lines in the same order, as when they run one turtle at a time
+ */
+public class ParallelTurtlesTest {
+
+  private static final String PROGRAM = "askwith [ 1 ] [ setxy id product id 2 seth id ] "
+      + "repeat 4 [ fd 10 rt 45 pu bk 3 pd lt 10 ] "
+      + "tell [ 0 2 1 ] fd 5 tell [ 1 1 ] fd 7";
+
+  private record Run(List<TurtleRecord> updates, List<List<Double>> lines) {}
+
+  private Run run(int numTurtles, int parallelThreshold) {
+    TrackableEnvironment env = EnvironmentFactory.createEnvironment();
+    env.setParallelThreshold(parallelThreshold);
+    ModelTracker tracker = env.getTracker();
+    List<TurtleRecord> records = new ArrayList<>();
+    tracker.setOnTurtleUpdate(records::add);
+
+    env.runCommand("tell [ " + (numTurtles - 1) + " ]");
+    List<Integer> all = new ArrayList<>();
+    for (int i = 0; i < numTurtles; ++i) {
+      all.add(i);
+    }
+    env.setCurrTurtle(all);
+
+    records.clear();
+    env.runCommand(PROGRAM);
+
+    List<List<Double>> lines = new ArrayList<>();
+    env.getSegments().forEach(0, (x0, y0, x1, y1, rgb, width, turtle) ->
+        lines.add(List.of(x0, y0, x1, y1, (double) turtle)));
+    return new Run(records, lines);
+  }
+
+  private void assertSameAsSequential(int numTurtles) {
+    Run sequential = run(numTurtles, 0);
+    Run parallel = run(numTurtles, 1);
+
+    assertEquals(sequential.updates(), parallel.updates());
+    assertEquals(sequential.lines(), parallel.lines());
+  }
+
+  @Test
+  void testThousandTurtles() {
+    assertSameAsSequential(1000);
+  }
+
+  @Test
+  void testTenThousandTurtles() {
+    assertSameAsSequential(10000);
+  }
+
+  @Test
+  void testHundredThousandTurtles() {
+    assertSameAsSequential(100000);
+  }
+}
@@ -0,0 +1,127 @@
+package slogo.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SegmentIndexTest {
+
+  private SegmentLog segments;
+  private SegmentIndex index;
+
+  @BeforeEach
+  void setUp() {
+    segments = new SegmentLog();
+    index = new SegmentIndex(segments);
+  }
+
+  private long[] findAll(double minX, double minY, double maxX, double maxY) {
+    return LongStream.range(0, segments.size()).filter(line ->
+        Math.max(segments.getX0(line), segments.getX1(line)) >= minX
+            && Math.min(segments.getX0(line), segments.getX1(line)) <= maxX
+            && Math.max(segments.getY0(line), segments.getY1(line)) >= minY
+            && Math.min(segments.getY0(line), segments.getY1(line)) <= maxY).toArray();
+  }
+
+  @Test
+  void testFindMatchesEveryLine() {
+    Random random = new Random(23);
+    for (int i = 0; i < 5000; i++) {
+      double x = random.nextDouble() * 2000 - 1000;
+      double y = random.nextDouble() * 2000 - 1000;
+      // mostly short lines, like a turtle draws, and a few that cross the whole drawing
+      double length = i % 100 == 0 ? 3000 : random.nextDouble() * 80;
+      double angle = random.nextDouble() * Math.PI * 2;
+      segments.add(x, y, x + Math.cos(angle) * length, y + Math.sin(angle) * length, 0, 1, 0);
+      if (i == 2500) {
+        index.update();
+      }
+    }
+    index.update();
+    assertEquals(5000, index.size());
+
+    for (int i = 0; i < 50; i++) {
+      double x = random.nextDouble() * 2400 - 1200;
+      double y = random.nextDouble() * 2400 - 1200;
+      double size = random.nextDouble() * (i % 10 == 0 ? 2000 : 200);
+      assertArrayEquals(findAll(x, y, x + size, y + size), index.find(x, y, x + size, y + size));
+    }
+  }
+
+  @Test
+  void testFindsLinesOfEveryLength() {
+    Random random = new Random(24);
+    for (int i = 0; i < 3000; i++) {
+      double x = random.nextDouble() * 2000 - 1000;
+      double y = random.nextDouble() * 2000 - 1000;
+      // from a step to far past the coarsest grid
+      double length = Math.pow(10, random.nextDouble() * 14);
+      double angle = random.nextDouble() * Math.PI * 2;
+      segments.add(x, y, x + Math.cos(angle) * length, y + Math.sin(angle) * length, 0, 1, 0);
+    }
+    segments.add(0, 0, Double.POSITIVE_INFINITY, 0, 0, 1, 0);
+    segments.add(0, 0, 1e15, 0, 0, 1, 0);
+    index.update();
+
+    for (int i = 0; i < 50; i++) {
+      double x = random.nextDouble() * 2400 - 1200;
+      double y = random.nextDouble() * 2400 - 1200;
+      double size = random.nextDouble() * (i % 10 == 0 ? 1e6 : 200);
+      assertArrayEquals(findAll(x, y, x + size, y + size), index.find(x, y, x + size, y + size));
+    }
+    assertEquals(3001, index.nearest(1e12, 1, 2));
+  }
+
+  @Test
+  void testNearest() {
+    segments.add(0, 0, 100, 0, 0, 1, 0);
+    segments.add(50, -50, 50, 50, 0, 1, 1);
+    segments.add(200, 200, 300, 300, 0, 1, 2);
+    index.update();
+
+    assertEquals(0, index.nearest(20, 2, 3));
+    assertEquals(1, index.nearest(52, 30, 3));
+    // both cross here, and the one drawn last is on top
+    assertEquals(1, index.nearest(50, 0, 3));
+    assertEquals(2, index.nearest(251, 249, 3));
+    assertEquals(-1, index.nearest(20, 10, 3));
+  }
+
+  @Test
+  void testStartsOverAfterClear() {
+    segments.add(0, 0, 10, 10, 0, 1, 0);
+    index.update();
+    segments.clear();
+    segments.add(500, 500, 510, 510, 0, 1, 0);
+    segments.add(520, 520, 530, 530, 0, 1, 0);
+    index.update();
+
+    assertEquals(2, index.size());
+    assertEquals(0, index.find(-5, -5, 5, 5).length);
+    assertEquals(0, index.nearest(505, 505, 1));
+  }
+
+  @Test
+  void testTracesLinesToTheirCommand() {
+    TrackableEnvironment env = EnvironmentFactory.createEnvironment();
+    env.runCommand("fd 10 rt 90 fd 10");
+    env.runCommand("make :a 1");
+    env.runCommand("pu setxy 100 100 pd fd 20");
+    SegmentLog log = env.getSegments();
+    SegmentIndex traced = new SegmentIndex(log);
+    traced.update();
+
+    assertEquals("fd 10 rt 90 fd 10", log.getCommand(traced.nearest(5, 10, 1)));
+    assertEquals("pu setxy 100 100 pd fd 20", log.getCommand(traced.nearest(110, 100, 1)));
+    assertEquals(0, log.getTurtle(traced.nearest(110, 100, 1)));
+
+    env.runCommand("fd 5 cs fd 5");
+    assertEquals("fd 5 cs fd 5", log.getCommand(0));
+    assertNull(new SegmentLog().getCommand(0));
+  }
+}
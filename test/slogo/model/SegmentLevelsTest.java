@@ -0,0 +1,123 @@
+package slogo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SegmentLevelsTest {
+
+  private TrackableEnvironment env;
+  private SegmentLevels levels;
+
+  @BeforeEach
+  void setUp() {
+    env = EnvironmentFactory.createEnvironment();
+    levels = new SegmentLevels(env.getSegments());
+  }
+
+  private List<double[]> pointsOf(int level) {
+    List<double[]> points = new ArrayList<>();
+    levels.forEach(level, -1E9, -1E9, 1E9, 1E9, (all, from, to, rgb, width) -> {
+      for (int i = from; i < to; i++) {
+        points.add(new double[]{all[i * 2], all[i * 2 + 1]});
+      }
+    });
+    return points;
+  }
+
+  private static double distance(double x, double y, double x0, double y0, double x1, double y1) {
+    double dx = x1 - x0;
+    double dy = y1 - y0;
+    double t = Math.max(0, Math.min(1, ((x - x0) * dx + (y - y0) * dy) / (dx * dx + dy * dy)));
+    return Math.hypot(x - (x0 + t * dx), y - (y0 + t * dy));
+  }
+
+  @Test
+  void testLevelFor() {
+    assertEquals(-1, levels.levelFor(1));
+    assertEquals(-1, levels.levelFor(.55));
+    assertEquals(0, levels.levelFor(.5));
+    assertEquals(0, levels.levelFor(.3));
+    assertEquals(1, levels.levelFor(.25));
+    assertEquals(2, levels.levelFor(.1));
+  }
+
+  @Test
+  void testCollinearLinesBecomeOne() {
+    env.runCommand("repeat 100 [ fd 1 ]");
+    levels.update();
+
+    for (int level = 0; level < SegmentLevels.SCALES.length; level++) {
+      assertEquals(1, levels.getPolylineCount(level));
+      assertEquals(2, levels.getPointCount(level));
+    }
+  }
+
+  @Test
+  void testCircleStaysWithinHalfAPixel() {
+    env.runCommand("repeat 360 [ fd 2 rt 1 ]");
+    levels.update();
+    SegmentLog segments = env.getSegments();
+
+    int lastPoints = (int) segments.size() + 1;
+    double tolerance = 0;
+    for (int level = 0; level < SegmentLevels.SCALES.length; level++) {
+      // each level is made from the one before, so the errors of the levels add up
+      tolerance += .5 / SegmentLevels.SCALES[level];
+      List<double[]> points = pointsOf(level);
+      assertTrue(points.size() <= lastPoints);
+      lastPoints = points.size();
+      for (long line = 0; line < segments.size(); line++) {
+        double x = segments.getX1(line);
+        double y = segments.getY1(line);
+        double closest = Double.MAX_VALUE;
+        for (int i = 0; i + 1 < points.size(); i++) {
+          closest = Math.min(closest, distance(x, y, points.get(i)[0], points.get(i)[1],
+              points.get(i + 1)[0], points.get(i + 1)[1]));
+        }
+        assertTrue(closest <= tolerance + 1E-9);
+      }
+    }
+    // zoomed out all the way, the circle of 360 lines is drawn with a few
+    assertTrue(lastPoints < 20);
+  }
+
+  @Test
+  void testPolylinesEndWithThePen() {
+    env.runCommand("fd 10 rt 90 fd 10 pu fd 10 pd fd 10");
+    env.runCommand("setpalette 2 255 0 0 setpc 2 fd 10 setpensize 3 fd 10");
+    levels.update();
+
+    assertEquals(4, levels.getPolylineCount(0));
+    List<Integer> widths = new ArrayList<>();
+    levels.forEach(0, -1E9, -1E9, 1E9, 1E9, (all, from, to, rgb, width) ->
+        widths.add((int) width));
+    assertEquals(List.of(5, 5, 5, 3), widths);
+  }
+
+  @Test
+  void testTurtlesKeepTheirOwnPolylines() {
+    env.addTurtle();
+    env.runCommand("repeat 10 [ fd 1 ]");
+    levels.update();
+
+    assertEquals(2, levels.getPolylineCount(0));
+    assertEquals(4, levels.getPointCount(0));
+  }
+
+  @Test
+  void testUpdatesAndClear() {
+    env.runCommand("repeat 3000 [ fd 1 rt 1 ]");
+    levels.update();
+    assertTrue(levels.getPolylineCount(0) >= 3000 / SegmentLevels.MAX_POINTS);
+
+    env.runCommand("cs fd 10");
+    levels.update();
+    assertEquals(1, levels.getPolylineCount(2));
+    assertEquals(2, levels.getPointCount(2));
+  }
+}
@@ -0,0 +1,135 @@
+package slogo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SegmentLogTest {
+
+  @TempDir
+  Path dir;
+  private TrackableEnvironment env;
+
+  @BeforeEach
+  void setUp() {
+    env = EnvironmentFactory.createEnvironment();
+  }
+
+  private List<double[]> linesOf(SegmentLog log) {
+    List<double[]> lines = new ArrayList<>();
+    log.forEach(0, (x0, y0, x1, y1, rgb, width, turtle) ->
+        lines.add(new double[]{x0, y0, x1, y1, rgb, width, turtle}));
+    return lines;
+  }
+
+  @Test
+  void testRecordsPenDownMoves() {
+    env.runCommand("fd 10 pu fd 10 pd rt 90 fd 5 setxy 15 20");
+
+    List<double[]> lines = linesOf(env.getSegments());
+    assertEquals(3, lines.size());
+    double[] first = lines.get(0);
+    assertEquals(0, first[1]);
+    assertEquals(10, first[3]);
+    assertEquals(5, first[5]);
+    double[] turn = lines.get(1);
+    assertEquals(0, turn[0], 1E-9);
+    assertEquals(20, turn[1], 1E-9);
+    assertEquals(5, turn[2], 1E-9);
+
+    env.addTurtle();
+    env.setCurrTurtle(List.of(1));
+    env.runCommand("fd 10");
+    assertEquals(1, linesOf(env.getSegments()).get(3)[6]);
+  }
+
+  @Test
+  void testLinesKeepTheirColor() {
+    env.runCommand("setpalette 3 10 20 30 setpc 3 setpensize 2 fd 10");
+    env.runCommand("setpalette 3 200 200 200 fd 10");
+
+    List<double[]> lines = linesOf(env.getSegments());
+    assertEquals(0x0A141E, (int) lines.get(0)[4]);
+    assertEquals(2, lines.get(0)[5]);
+    assertEquals(0xC8C8C8, (int) lines.get(1)[4]);
+    assertEquals(new Color(10, 20, 30), SegmentLog.toColor((int) lines.get(0)[4]));
+  }
+
+  @Test
+  void testClearScreen() {
+    env.runCommand("fd 10 rt 90 fd 10 cs fd 5");
+    assertEquals(1, env.getSegments().size());
+  }
+
+  @Test
+  void testMappedAcrossChunks() throws IOException {
+    int count = 40000;
+    try (SegmentLog log = new SegmentLog(dir.resolve("lines.bin"))) {
+      for (int i = 0; i < count; i++) {
+        log.add(i, i, i + 1, i + 1, i, 1, i % 7);
+      }
+      assertEquals(count, log.size());
+      long[] checked = {0};
+      log.forEach(count - 100, (x0, y0, x1, y1, rgb, width, turtle) -> {
+        assertEquals(x0 + 1, x1);
+        assertEquals((int) x0, rgb);
+        assertEquals((int) x0 % 7, turtle);
+        checked[0]++;
+      });
+      assertEquals(100, checked[0]);
+
+      Path copy = dir.resolve("copy.bin");
+      try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        log.writeTo(channel, count);
+        SegmentLog read = new SegmentLog();
+        read.readFrom(channel.map(MapMode.READ_ONLY, 0, channel.size()), count);
+        assertEquals(count, read.size());
+        read.forEach(count - 1, (x0, y0, x1, y1, rgb, width, turtle) ->
+            assertEquals(count - 1, x0));
+      }
+    }
+  }
+
+  @Test
+  void testMapSegments() {
+    File file = dir.resolve("segments.bin").toFile();
+    env.runCommand("fd 10");
+    SegmentLog held = env.getSegments();
+    env.mapSegments(file);
+    env.runCommand("setpc 2 fd 10");
+
+    // whoever got the log before it was mapped sees the lines drawn after
+    assertEquals(2, held.size());
+    assertEquals(10, linesOf(held).get(1)[1], 1E-9);
+    assertTrue(file.length() >= 2 * SegmentLog.SEGMENT_BYTES);
+  }
+
+  @Test
+  void testSavedWithTheEnvironment() {
+    File file = dir.resolve("workspace.slogo").toFile();
+    env.runCommand("fd 10 rt 90 fd 10");
+    env.save(file, true);
+
+    TrackableEnvironment loaded = EnvironmentFactory.createEnvironment();
+    loaded.runCommand("fd 1");
+    loaded.load(file);
+
+    // the lines of the loaded turtle are drawn by the turtle it became
+    List<double[]> lines = linesOf(loaded.getSegments());
+    assertEquals(3, lines.size());
+    assertEquals(1, lines.get(2)[6]);
+    assertEquals(10, lines.get(2)[2], 1E-9);
+  }
+}
@@ -0,0 +1,94 @@
+package slogo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import slogo.model.notifiers.Delegate;
+import slogo.records.TurtleRecord;
+
+public class TurtleStoreTest {
+
+  private TurtleStore store;
+  private List<TurtleRecord> records;
+  private Delegate delegate;
+
+  @BeforeEach
+  void setUp() {
+    store = new TurtleStore();
+    records = new ArrayList<>();
+    delegate = new Delegate();
+    delegate.setOnTurtleUpdate(records::add);
+  }
+
+  @Test
+  void testAddKeepsState() {
+    Turtle turtle = new Turtle(3, delegate);
+    turtle.setPosition(10, 20);
+    turtle.setRotation(45);
+    turtle.setPenDown(false);
+    turtle.setVisible(false);
+
+    store.add(turtle);
+
+    assertSame(turtle, store.get(0));
+    assertEquals(3, turtle.getId());
+    assertEquals(10, turtle.getX(), 1E-9);
+    assertEquals(20, turtle.getY(), 1E-9);
+    assertEquals(45, turtle.getRotation(), 1E-9);
+    assertFalse(turtle.isPenDown());
+    assertFalse(turtle.isVisible());
+  }
+
+  @Test
+  void testTurtlesAreViews() {
+    for (int i = 0; i < 100; ++i) {
+      store.add(new Turtle(i, delegate));
+    }
+    for (int i = 0; i < 100; ++i) {
+      store.get(i).move(i);
+    }
+
+    assertEquals(100, store.size());
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(i, store.get(i).getId());
+      assertEquals(i, store.get(i).getY(), 1E-9);
+      assertTrue(store.get(i).isPenDown());
+    }
+    assertEquals(99, records.get(records.size() - 1).yCoord(), 1E-9);
+  }
+
+  @Test
+  void testSerialize() throws Exception {
+    for (int i = 0; i < 3; ++i) {
+      store.add(new Turtle(i, delegate));
+      store.get(i).setPosition(i, -i);
+    }
+    store.get(1).setVisible(false);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(store);
+    }
+    TurtleStore copy;
+    try (ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (TurtleStore) in.readObject();
+    }
+
+    assertEquals(3, copy.size());
+    assertEquals(2, copy.get(2).getX(), 1E-9);
+    assertEquals(-2, copy.get(2).getY(), 1E-9);
+    assertFalse(copy.get(1).isVisible());
+    assertEquals(1, copy.get(1).clone(5, delegate).getX(), 1E-9);
+  }
+}
@@ -1,6 +1,7 @@
 package slogo.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -53,6 +54,16 @@ public class TurtleTest {
     assertEquals(20.0, record.rotation());
   }
 
+  @Test
+  void testRotateHugeAngle() {
+    turtle.rotate(360E9 + 90);
+    assertEquals(90.0, turtle.getRotation(), 1E-3);
+    turtle.rotate(-720 - 180);
+    assertEquals(-90.0, turtle.getRotation(), 1E-3);
+    turtle.rotate(Double.POSITIVE_INFINITY);
+    assertTrue(Double.isNaN(turtle.getRotation()));
+  }
+
   void testRotateAndMoveHelper(double rotation, double delta, double x, double y) {
     turtle = new Turtle(0, delegate);
     turtle.rotate(rotation);
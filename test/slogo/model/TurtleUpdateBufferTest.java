@@ -0,0 +1,157 @@
+package slogo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import slogo.model.notifiers.Delegate;
+import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+
+public class TurtleUpdateBufferTest {
+
+  private Delegate delegate;
+  private TurtleUpdateBuffer buffer;
+  private List<TurtlesDeltaRecord> deltas;
+  private List<TurtleRecord> records;
+
+  @BeforeEach
+  void setUp() {
+    delegate = new Delegate();
+    buffer = new TurtleUpdateBuffer(delegate);
+    deltas = new ArrayList<>();
+    records = new ArrayList<>();
+    delegate.setOnTurtleDelta(deltas::add);
+    delegate.setOnTurtleUpdate(records::add);
+  }
+
+  /**
+   * Draw lines the way the view does, from the last state of a turtle to the next when the pen is
+   * down. Lines are grouped by turtle, since only the order within a turtle matters.
+   */
+  List<String> drawLines(List<TurtleRecord> states) {
+    List<String> lines = new ArrayList<>();
+    double[][] last = new double[8][2];
+    for (TurtleRecord state : states) {
+      double[] from = last[state.id()];
+      if (state.penDown() && (from[0] != state.xCoord() || from[1] != state.yCoord())) {
+        lines.add(String.format("%d: %.3f,%.3f -> %.3f,%.3f", state.id(),
+            from[0] + 0.0, from[1] + 0.0, state.xCoord() + 0.0, state.yCoord() + 0.0));
+      }
+      last[state.id()] = new double[]{state.xCoord(), state.yCoord()};
+    }
+    lines.sort(Comparator.comparing(line -> line.substring(0, line.indexOf(':'))));
+    return lines;
+  }
+
+  @Test
+  void testCoalesceUntilFlush() {
+    Turtle turtle = new Turtle(0, buffer);
+    turtle.setPenDown(false);
+    for (int i = 0; i < 100; ++i) {
+      turtle.move(1);
+      turtle.rotate(1);
+    }
+    assertTrue(deltas.isEmpty());
+
+    buffer.flushTurtleUpdates();
+    assertEquals(1, deltas.size());
+    assertEquals(1, deltas.get(0).changes().size());
+    assertEquals(100, deltas.get(0).changes().get(0).rotation(), 1E-5);
+    assertEquals(1, records.size());
+
+    buffer.flushTurtleUpdates();
+    assertEquals(1, deltas.size());
+  }
+
+  @Test
+  void testKeepCorners() {
+    Turtle turtle = new Turtle(0, buffer);
+    turtle.move(10);
+    turtle.rotate(90);
+    turtle.move(10);
+    turtle.setPenDown(false);
+    turtle.move(10);
+    turtle.setPenDown(true);
+    turtle.move(10);
+    buffer.flushTurtleUpdates();
+
+    assertEquals(List.of(
+        "0: 0.000,0.000 -> 0.000,10.000",
+        "0: 0.000,10.000 -> 10.000,10.000",
+        "0: 20.000,10.000 -> 30.000,10.000"), drawLines(records));
+  }
+
+  @Test
+  void testSameLinesAsUnbuffered() {
+    List<TurtleRecord> direct = new ArrayList<>();
+    List<Turtle> buffered = new ArrayList<>();
+    List<Turtle> unbuffered = new ArrayList<>();
+    for (int i = 0; i < 4; ++i) {
+      buffered.add(new Turtle(i, buffer));
+      unbuffered.add(new Turtle(i, direct::add));
+    }
+
+    Random random = new Random(7);
+    for (int step = 0; step < 2000; ++step) {
+      int id = random.nextInt(4);
+      int action = random.nextInt(5);
+      double amount = random.nextInt(3) * 10;
+      for (Turtle turtle : List.of(buffered.get(id), unbuffered.get(id))) {
+        switch (action) {
+          case 0 -> turtle.move(amount);
+          case 1 -> turtle.rotate(amount * 9);
+          case 2 -> turtle.setPenDown(!turtle.isPenDown());
+          case 3 -> turtle.setPosition(amount, -amount);
+          default -> turtle.setVisible(!turtle.isVisible());
+        }
+      }
+      if (random.nextInt(50) == 0) {
+        buffer.flushTurtleUpdates();
+      }
+    }
+    buffer.flushTurtleUpdates();
+
+    assertEquals(drawLines(direct), drawLines(records));
+    assertTrue(records.size() < direct.size());
+  }
+
+  @Test
+  void testMaxUpdates() {
+    buffer.setMaxUpdates(10);
+    Turtle turtle = new Turtle(0, buffer);
+    for (int i = 0; i < 25; ++i) {
+      turtle.rotate(1);
+    }
+
+    assertEquals(2, deltas.size());
+  }
+
+  @Test
+  void testIntervalCountsFromWhenTheTargetReturns() {
+    long millisecond = TimeUnit.MILLISECONDS.toNanos(1);
+    AtomicLong time = new AtomicLong();
+    buffer.setClock(() -> time.addAndGet(millisecond));
+    buffer.setInterval(10);
+    // the view takes longer to draw a delta than the interval
+    delegate.setOnTurtleDelta(delta -> {
+      deltas.add(delta);
+      time.addAndGet(20 * millisecond);
+    });
+    Turtle turtle = new Turtle(0, buffer);
+    for (int i = 0; i < 300; ++i) {
+      turtle.rotate(1);
+    }
+
+    // about one delta every ten updates, not one for each update
+    assertTrue(deltas.size() > 1);
+    assertTrue(deltas.size() < 60);
+  }
+}
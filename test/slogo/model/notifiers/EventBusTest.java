@@ -0,0 +1,211 @@
+package slogo.model.notifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import slogo.records.DisplayVariable;
+import slogo.records.TurtleRecord;
+import slogo.records.TurtlesDeltaRecord;
+import slogo.records.VariablesRecord;
+
+public class EventBusTest {
+
+  private EventBus bus;
+  private List<Runnable> pending;
+
+  @BeforeEach
+  void setUp() {
+    bus = new EventBus(8);
+    pending = new ArrayList<>();
+  }
+
+  private TurtleRecord turtle(int id, double x) {
+    return new TurtleRecord(id, x, 0, 0, true, true);
+  }
+
+  private void runPending() {
+    while (!pending.isEmpty()) {
+      pending.remove(0).run();
+    }
+  }
+
+  @Test
+  void testEverySubscriberGetsEveryEvent() {
+    List<Long> first = new ArrayList<>();
+    List<Long> second = new ArrayList<>();
+    bus.subscribe((type, record, sequence, end) -> first.add(sequence));
+    bus.subscribe((type, record, sequence, end) -> second.add(sequence));
+
+    for (int i = 0; i < 20; ++i) {
+      bus.publish(EventType.TURTLE_UPDATE, turtle(0, i));
+    }
+
+    assertEquals(20, first.size());
+    assertEquals(first, second);
+    assertEquals(19, bus.getCursor());
+  }
+
+  @Test
+  void testDrainInBatches() {
+    List<Boolean> ends = new ArrayList<>();
+    bus.subscribe((type, record, sequence, end) -> ends.add(end), pending::add,
+        Backpressure.DROP_OLDEST);
+
+    for (int i = 0; i < 5; ++i) {
+      bus.publish(EventType.ENV_CLEAR, null);
+    }
+    assertEquals(1, pending.size());
+    runPending();
+
+    assertEquals(List.of(false, false, false, false, true), ends);
+  }
+
+  @Test
+  void testDropOldest() {
+    List<Double> seen = new ArrayList<>();
+    Subscription subscription = bus.subscribe(
+        (type, record, sequence, end) -> seen.add(((TurtleRecord) record).xCoord()),
+        pending::add, Backpressure.DROP_OLDEST);
+
+    for (int i = 0; i < 20; ++i) {
+      bus.publish(EventType.TURTLE_UPDATE, turtle(0, i));
+    }
+    runPending();
+
+    assertEquals(8, seen.size());
+    assertEquals(12, seen.get(0), 1E-9);
+    assertEquals(12, subscription.getDropped());
+  }
+
+  @Test
+  void testCoalesceToLatestState() {
+    List<EventType> types = new ArrayList<>();
+    List<Object> records = new ArrayList<>();
+    Subscription subscription = bus.subscribe((type, record, sequence, end) -> {
+      types.add(type);
+      records.add(record);
+    }, pending::add, Backpressure.COALESCE);
+
+    VariablesRecord variables = new VariablesRecord(List.of(new DisplayVariable(":a", "1.0")));
+    bus.publish(EventType.VARIABLE_UPDATE, variables);
+    for (int i = 0; i < 20; ++i) {
+      bus.publish(EventType.TURTLE_UPDATE, turtle(i % 3, i));
+    }
+    runPending();
+
+    assertEquals(List.of(EventType.VARIABLE_UPDATE, EventType.VARIABLE_DELTA,
+        EventType.TURTLE_DELTA), types);
+    assertEquals(variables, records.get(0));
+    List<TurtleRecord> turtles = ((TurtlesDeltaRecord) records.get(2)).changes();
+    assertEquals(3, turtles.size());
+    for (TurtleRecord record : turtles) {
+      assertTrue(record.xCoord() >= 17);
+    }
+    assertEquals(21, subscription.getDropped());
+
+    bus.publish(EventType.ENV_CLEAR, null);
+    runPending();
+    assertEquals(EventType.ENV_CLEAR, types.get(types.size() - 1));
+  }
+
+  @Test
+  void testBlockWaitsForSlowSubscriber() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    List<Double> seen = new ArrayList<>();
+    Subscription subscription = bus.subscribe((type, record, sequence, end) -> {
+      seen.add(((TurtleRecord) record).xCoord());
+      LockSupport.parkNanos(100_000);
+    }, executor, Backpressure.BLOCK);
+
+    for (int i = 0; i < 100; ++i) {
+      bus.publish(EventType.TURTLE_UPDATE, turtle(0, i));
+    }
+    while (subscription.getSequence() < bus.getCursor()) {
+      Thread.sleep(1);
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(100, seen.size());
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(i, seen.get(i), 1E-9);
+    }
+    assertEquals(0, subscription.getDropped());
+  }
+
+  @Test
+  void testLaggingSubscribersSeeWholeEvents() throws InterruptedException {
+    // with a ring this small, readers are overwritten all the time
+    bus = new EventBus(2);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    List<String> errors = new CopyOnWriteArrayList<>();
+    // every event carries its own sequence number, and even numbers are sent as updates
+    Subscription dropping = bus.subscribe((type, record, sequence, end) -> {
+      TurtleRecord turtle = type == EventType.TURTLE_UPDATE ? (TurtleRecord) record
+          : ((TurtlesDeltaRecord) record).changes().get(0);
+      if (turtle.xCoord() != sequence || (sequence % 2 == 0) != (type == EventType.TURTLE_UPDATE)) {
+        errors.add(type + " " + turtle + " at " + sequence);
+      }
+      Thread.onSpinWait();
+    }, executor, Backpressure.DROP_OLDEST);
+    Subscription coalescing = bus.subscribe((type, record, sequence, end) -> {
+      if (type == EventType.TURTLE_UPDATE ? !(record instanceof TurtleRecord)
+          : !(record instanceof TurtlesDeltaRecord)) {
+        errors.add(type + " " + record + " at " + sequence);
+      }
+      Thread.onSpinWait();
+    }, executor, Backpressure.COALESCE);
+
+    for (int i = 0; i < 1_000_000; ++i) {
+      if (i % 2 == 0) {
+        bus.publish(EventType.TURTLE_UPDATE, turtle(0, i));
+      } else {
+        bus.publish(EventType.TURTLE_DELTA, new TurtlesDeltaRecord(List.of(turtle(0, i))));
+      }
+    }
+    while (dropping.getSequence() < bus.getCursor() || coalescing.getSequence() < bus.getCursor()) {
+      Thread.sleep(1);
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(List.of(), errors);
+    assertTrue(dropping.getDropped() > 0);
+  }
+
+  @Test
+  void testCancel() {
+    List<Long> seen = new ArrayList<>();
+    Subscription subscription = bus.subscribe((type, record, sequence, end) -> seen.add(sequence));
+    bus.publish(EventType.ENV_CLEAR, null);
+    subscription.cancel();
+    bus.publish(EventType.ENV_CLEAR, null);
+
+    assertEquals(1, seen.size());
+    assertFalse(subscription.isActive());
+  }
+
+  @Test
+  void testDelegateCallbacksUseBus() {
+    Delegate delegate = new Delegate();
+    List<TurtleRecord> fromCallback = new ArrayList<>();
+    List<EventType> fromBus = new ArrayList<>();
+    delegate.setOnTurtleUpdate(fromCallback::add);
+    delegate.getEventBus().subscribe((type, record, sequence, end) -> fromBus.add(type));
+
+    delegate.notifyTurtleDelta(new TurtlesDeltaRecord(List.of(turtle(0, 1), turtle(1, 2))));
+
+    assertEquals(2, fromCallback.size());
+    assertEquals(List.of(EventType.TURTLE_DELTA), fromBus);
+  }
+}
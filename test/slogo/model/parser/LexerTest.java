@@ -0,0 +1,81 @@
+package slogo.model.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import slogo.exceptions.InvalidSyntaxException;
+import slogo.model.parser.factories.ClassifierFactory;
+
+public class LexerTest {
+
+  private Lexer lexer;
+  private TokenStream tokens;
+
+  @BeforeEach
+  void setUp() {
+    lexer = new Lexer(ClassifierFactory.buildSyntaxClassifier());
+    tokens = new TokenStream();
+  }
+
+  void assertNextToken(String text, String type, int offset) {
+    assertEquals(text, tokens.next());
+    assertEquals(type, tokens.getType());
+    assertEquals(offset, tokens.getOffset());
+  }
+
+  @Test
+  void testTypesAndOffsets() {
+    lexer.tokenize("fd 50\n[ sum :x -2 ]", tokens);
+
+    assertNextToken("fd", "Command", 0);
+    assertNextToken("50", "Constant", 3);
+    assertNextToken("[", "ListStart", 6);
+    assertNextToken("sum", "Command", 8);
+    assertNextToken(":x", "Variable", 12);
+    assertNextToken("-2", "Constant", 15);
+    assertNextToken("]", "ListEnd", 18);
+    assertTrue(tokens.isEmpty());
+  }
+
+  @Test
+  void testBracketsSplitTokens() {
+    lexer.tokenize("(sum 1 2)[fd 1]", tokens);
+
+    String[] expected = {"(", "sum", "1", "2", ")", "[", "fd", "1", "]"};
+    assertEquals(expected.length, tokens.remaining());
+    for (String text : expected) {
+      assertEquals(text, tokens.next());
+    }
+  }
+
+  @Test
+  void testCommentsAndWhitespace() {
+    lexer.tokenize("\tback 200 # fd 100\r\n  fd#comment\n\t100\n", tokens);
+
+    String[] expected = {"back", "200", "fd", "100"};
+    assertEquals(expected.length, tokens.remaining());
+    for (String text : expected) {
+      assertEquals(text, tokens.next());
+    }
+  }
+
+  @Test
+  void testInvalidTokenOffset() {
+    InvalidSyntaxException e = assertThrows(InvalidSyntaxException.class,
+        () -> lexer.tokenize("fd 50 rt $90", tokens));
+    assertEquals(9, e.getOffset());
+  }
+
+  @Test
+  void testReuseStream() {
+    lexer.tokenize("fd 50 fd 50", tokens);
+    lexer.tokenize("rt 90", tokens);
+
+    assertEquals(2, tokens.remaining());
+    assertNextToken("rt", "Command", 0);
+    assertEquals(2, tokens.getEnd());
+  }
+}
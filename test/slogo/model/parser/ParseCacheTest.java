@@ -0,0 +1,110 @@
+package slogo.model.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import slogo.exceptions.UnknownIdentifierException;
+import slogo.model.ASTNodes.ASTNode;
+import slogo.model.TestBundle;
+import slogo.model.Turtle;
+import slogo.model.notifiers.Delegate;
+
+public class ParseCacheTest {
+
+  private Parser parser;
+  private ParseCache cache;
+  private TestBundle bundle;
+
+  @BeforeEach
+  void setUp() {
+    Delegate delegate = new Delegate();
+    bundle = new TestBundle(
+        new ArrayList<>(List.of(new Turtle(0, delegate))),
+        new ArrayList<>(List.of(0)), new HashMap<>(),
+        new HashMap<>(), delegate);
+    parser = new ProgramParser("English", bundle);
+    cache = parser.getCache();
+  }
+
+  @Test
+  void testNormalize() {
+    assertEquals("fd 50 rt 90", ParseCache.normalize("  fd   50\n\trt 90 \n"));
+    assertEquals("fd 50 rt 90", ParseCache.normalize("# a square\nfd 50 # forward\r\nrt 90"));
+    assertEquals("fd 50", ParseCache.normalize("fd#no space\n50"));
+    assertEquals("[fd 1]", ParseCache.normalize("[fd 1]"));
+  }
+
+  @Test
+  void testUnchangedProgramIsNotParsedAgain() {
+    ASTNode first = parser.parseCommand("repeat 4 [ fd 50 rt 90 ]");
+    ASTNode second = parser.parseCommand("# same square\nrepeat 4 [\n  fd 50\n  rt 90\n]");
+
+    assertSame(first, second);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    first.evaluate(bundle);
+    second.evaluate(bundle);
+    assertEquals(0, bundle.getMainTurtle().getY(), 1E-9);
+    assertEquals(0, bundle.getMainTurtle().getRotation(), 1E-9);
+  }
+
+  @Test
+  void testLanguageIsPartOfTheKey() {
+    ASTNode english = parser.parseCommand("fd 50");
+    parser.changeLanguage("French");
+    assertThrows(UnknownIdentifierException.class, () -> parser.parseCommand("fd 50"));
+    parser.changeLanguage("English");
+
+    assertSame(english, parser.parseCommand("fd 50"));
+  }
+
+  @Test
+  void testNewCommandMissesOlderTrees() {
+    ASTNode before = parser.parseCommand("fd 10");
+    ASTNode definition = parser.parseCommand("to step [ ] [ fd 10 ]");
+
+    assertNotSame(before, parser.parseCommand("fd 10"));
+    // the definition is in the table once it was parsed, so running it again hits
+    assertSame(definition, parser.parseCommand("to step [ ] [ fd 10 ]"));
+  }
+
+  @Test
+  void testLeastRecentlyUsedIsEvicted() {
+    cache.setMaxChars(12);
+    ASTNode forward = parser.parseCommand("fd 10");
+    parser.parseCommand("rt 90");
+    parser.parseCommand("fd 10");
+    parser.parseCommand("bk 5");
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictions());
+    assertSame(forward, parser.parseCommand("fd 10"));
+    parser.parseCommand("rt 90");
+    assertEquals(2, cache.getHits());
+  }
+
+  @Test
+  void testDisabled() {
+    cache.setMaxChars(0);
+    ASTNode first = parser.parseCommand("fd 10");
+
+    assertNotSame(first, parser.parseCommand("fd 10"));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getHits() + cache.getMisses());
+  }
+
+  @Test
+  void testOptimizingClears() {
+    ASTNode optimized = parser.parseCommand("fd sum 1 2");
+    parser.setOptimizing(false);
+
+    assertNotSame(optimized, parser.parseCommand("fd sum 1 2"));
+  }
+}
@@ -70,6 +70,8 @@ public class ParserTest {
     turtle = new Turtle(0, null);
 
     parser = new ProgramParser("English", infoBundle);
+    // these tests check the trees as they are parsed, before they are simplified
+    parser.setOptimizing(false);
     commandClassifier = ClassifierFactory.buildCommandClassifier("English");
   }
 
@@ -366,6 +368,26 @@ public class ParserTest {
     assertDoesNotThrow(() -> parser.parseCommand(TEST_STRING));
   }
 
+  @Test
+  void testReuseAfterError() {
+    assertThrows(UnmatchedBracketException.class, () -> parser.parseCommand("repeat 2 [ fd 50"));
+
+    ASTNode expected = new ASTForward();
+    expected.addChild(new ASTNumberLiteral(50));
+    assertNodeStructure(expected, parser.parseCommand("fd 50"));
+  }
+
+  @Test
+  void testChangeLanguage() {
+    parser.parseCommand("fd 50");
+    parser.changeLanguage("Spanish");
+
+    ASTNode expected = new ASTForward();
+    expected.addChild(new ASTNumberLiteral(50));
+    assertNodeStructure(expected, parser.parseCommand("avanzar 50"));
+    assertThrows(UnknownIdentifierException.class, () -> parser.parseCommand("fd 50"));
+  }
+
   public static void assertNodeStructure(ASTNode expected, ASTNode actual) {
     if (expected instanceof ASTNumberLiteral)
       assertDoubleEquals(Double.parseDouble(expected.getToken()), Double.parseDouble(actual.getToken()));
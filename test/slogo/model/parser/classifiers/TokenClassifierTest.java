@@ -0,0 +1,89 @@
+package slogo.model.parser.classifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import slogo.exceptions.UnknownIdentifierException;
+
+public class TokenClassifierTest {
+  private static final String RESOURCES_PACKAGE = "resources.";
+  private static final String LANGUAGES = "languages.";
+  private static final String UNKNOWN = "unknown";
+
+  private String[] bundles = new String[] {
+      "Syntax",
+      LANGUAGES + "Chinese", LANGUAGES + "English", LANGUAGES + "French",
+      LANGUAGES + "German", LANGUAGES + "Italian", LANGUAGES + "Portuguese",
+      LANGUAGES + "Russian", LANGUAGES + "Spanish", LANGUAGES + "Urdu"
+  };
+  private List<String> tokens;
+
+  @BeforeEach
+  void setUp() {
+    tokens = new ArrayList<>(List.of(
+        "50", "-2.5", "3.", ":x", ":X1", "[", "]", "(", ")", "#comment", "fd?", "a_b",
+        "+", "-", "*", "/", "%", "~", "?", "", "meh"));
+
+    for (String bundleName : bundles) {
+      ResourceBundle bundle = ResourceBundle.getBundle(RESOURCES_PACKAGE + bundleName);
+      for (String key : bundle.keySet()) {
+        for (String word : bundle.getString(key).split("\\|")) {
+          word = word.replace("\\", "");
+          tokens.add(word);
+          tokens.add(word.toUpperCase(Locale.ROOT));
+          tokens.add(word + "x");
+        }
+      }
+    }
+  }
+
+  String classify(TokenClassifier classifier, String token) {
+    try {
+      return classifier.getSymbol(token);
+    } catch (UnknownIdentifierException e) {
+      return UNKNOWN;
+    }
+  }
+
+  @Test
+  void testSameAsPatterns() {
+    for (String bundleName : bundles) {
+      TokenClassifier patterns = new TokenClassifier(false);
+      TokenClassifier words = new TokenClassifier(true);
+      patterns.addPatterns(bundleName);
+      words.addPatterns(bundleName);
+
+      for (String token : tokens) {
+        assertEquals(classify(patterns, token), classify(words, token),
+            bundleName + ": " + token);
+      }
+    }
+  }
+
+  @Test
+  void testChangePatterns() {
+    TokenClassifier classifier = new TokenClassifier();
+    classifier.addPatterns(LANGUAGES + "English");
+    assertEquals("Forward", classifier.getSymbol("FoRwArD"));
+
+    classifier.changePatterns(LANGUAGES + "Spanish");
+    assertEquals("Forward", classifier.getSymbol("Avanzar"));
+    assertThrows(UnknownIdentifierException.class, () -> classifier.getSymbol("forward"));
+  }
+
+  @Test
+  void testPatternBeforeWord() {
+    TokenClassifier classifier = new TokenClassifier();
+    classifier.addPatterns("Syntax");
+    classifier.addPatterns(LANGUAGES + "English");
+
+    assertEquals("Command", classifier.getSymbol("fd"));
+    assertEquals("ListStart", classifier.getSymbol("["));
+  }
+}
@@ -8,9 +8,13 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
 import java.util.ResourceBundle;
 import org.junit.jupiter.api.Test;
 import slogo.exceptions.UnknownIdentifierException;
+import slogo.model.ASTNodes.ASTFunctionCall;
+import slogo.model.ASTNodes.ASTFunctionReference;
+import slogo.model.ASTNodes.ASTNumberLiteral;
 import slogo.model.TestBundle;
 import slogo.model.parser.factories.ASTCommandFactory;
 
@@ -40,4 +44,15 @@ public class ASTCommandFactoryTest {
 
     assertThrows(UnknownIdentifierException.class, () -> commandFactory.getCommand(none));
   }
+
+  @Test
+  void testUserCommand() {
+    TestBundle bundle = new TestBundle();
+    bundle.setCommand("square",
+        new ASTFunctionCall("square", List.of(":x"), new ASTNumberLiteral(1)));
+    ASTCommandFactory commandFactory = new ASTCommandFactory(bundle);
+
+    assertTrue(commandFactory.getCommand("square") instanceof ASTFunctionReference);
+    assertThrows(UnknownIdentifierException.class, () -> commandFactory.getCommand("Node"));
+  }
 }
@@ -1,13 +1,15 @@
 package slogo.model.parser.handlers;
 
-import java.util.ArrayList;
-import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
 import java.util.Stack;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import slogo.model.InfoBundle;
 import slogo.model.TestBundle;
 import slogo.model.parser.ParsingScope;
+import slogo.model.parser.TokenStream;
 import slogo.model.parser.factories.HandlerFactory;
 import slogo.records.ParserRecord;
 
@@ -15,20 +17,19 @@ public class HandlerTest {
   private HandlerFactory handlerFactory;
   private ParserRecord parserRecord;
   private Stack<ParsingScope> scopeStack;
-  private List<String> tokensLeft;
+  private TokenStream tokensLeft;
   private static final String language = "English";
-  private String currCommand;
   private InfoBundle environmentInfo;
 
   void setUp() {
-    tokensLeft = new ArrayList<>();
+    tokensLeft = new TokenStream();
     scopeStack = new Stack<>();
     ParsingScope currScope = new ParsingScope();
     scopeStack.push(currScope);
     environmentInfo = new TestBundle();
 
     parserRecord = new ParserRecord(
-        scopeStack, tokensLeft, language, environmentInfo, currCommand);
+        scopeStack, tokensLeft, language, environmentInfo);
     handlerFactory = new HandlerFactory(parserRecord);
   }
 
@@ -37,4 +38,12 @@ public class HandlerTest {
     setUp();
     handlerFactory.buildHandler("GroupEnd");
   }
+
+  @Test
+  void testHandlersAreReused() {
+    setUp();
+    Handler handler = handlerFactory.buildHandler("Constant");
+    assertSame(handler, handlerFactory.buildHandler("Constant"));
+    assertNotSame(handler, handlerFactory.buildHandler("Variable"));
+  }
 }
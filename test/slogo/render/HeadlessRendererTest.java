@@ -0,0 +1,143 @@
+package slogo.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import slogo.model.EnvironmentFactory;
+import slogo.model.SegmentIndex;
+import slogo.model.SegmentLevels;
+import slogo.model.TrackableEnvironment;
+
+public class HeadlessRendererTest {
+
+  private static final int SIZE = 200;
+  private TrackableEnvironment env;
+
+  @BeforeEach
+  void setUp() {
+    env = EnvironmentFactory.createEnvironment();
+  }
+
+  private int count(String text, String part) {
+    return text.split(part, -1).length - 1;
+  }
+
+  @Test
+  void testSvgSquare() throws IOException {
+    StringWriter out = new StringWriter();
+    try (Renderer renderer = new SvgRenderer(out, SIZE, SIZE)) {
+      HeadlessRenderer.attach(env.getTracker(), renderer);
+      env.runCommand("repeat 4 [ fd 50 rt 90 ]");
+    }
+    String svg = out.toString();
+
+    assertTrue(svg.startsWith("<svg"));
+    assertTrue(svg.endsWith("</svg>\n"));
+    assertEquals(1, count(svg, "<path"));
+    assertEquals(4, count(svg, "L"));
+    assertTrue(svg.contains("M0 0L0 -50"));
+  }
+
+  @Test
+  void testSvgPenUpAndColors() throws IOException {
+    StringWriter out = new StringWriter();
+    try (Renderer renderer = new SvgRenderer(out, SIZE, SIZE)) {
+      HeadlessRenderer.attach(env.getTracker(), renderer);
+      env.runCommand("setpalette 1 255 0 0 fd 10 pu fd 10 pd setpc 1 fd 10");
+    }
+    String svg = out.toString();
+
+    assertEquals(2, count(svg, "<path"));
+    assertTrue(svg.contains("stroke=\"#000000\""));
+    assertTrue(svg.contains("stroke=\"#FF0000\""));
+    assertTrue(svg.contains("M0 -20L0 -30"));
+  }
+
+  @Test
+  void testSvgClearPaintsBackground() throws IOException {
+    StringWriter out = new StringWriter();
+    try (Renderer renderer = new SvgRenderer(out, SIZE, SIZE)) {
+      HeadlessRenderer.attach(env.getTracker(), renderer);
+      env.runCommand("setpalette 1 255 0 0 fd 10 setpc 1 fd 10");
+      env.runCommand("cs");
+      env.runCommand("fd 20");
+    }
+    String svg = out.toString();
+
+    assertEquals(2, count(svg, "<rect"));
+    assertEquals(2, count(svg, "<path"));
+    assertTrue(svg.indexOf("<rect", svg.indexOf("<path")) > 0);
+    assertTrue(svg.endsWith("d=\"M0 0L0 -20\"/>\n</svg>\n"));
+  }
+
+  @Test
+  void testRenderKeptLines() throws IOException {
+    env.runCommand("setpalette 1 255 0 0 fd 10 setpc 1 rt 90 fd 10");
+    StringWriter out = new StringWriter();
+    try (Renderer renderer = new SvgRenderer(out, SIZE, SIZE)) {
+      HeadlessRenderer.render(env.getSegments(), renderer);
+    }
+    String svg = out.toString();
+
+    assertEquals(2, count(svg, "<path"));
+    assertTrue(svg.contains("stroke=\"#FF0000\""));
+    assertTrue(svg.contains("M0 -10L10 -10"));
+  }
+
+  @Test
+  void testRenderOnlyInSight() throws IOException {
+    env.runCommand("fd 50 pu setxy 1000 1000 pd fd 50 pu setxy -20 -20 pd rt 90 fd 10");
+    StringWriter out = new StringWriter();
+    try (Renderer renderer = new SvgRenderer(out, SIZE, SIZE)) {
+      HeadlessRenderer.render(new SegmentIndex(env.getSegments()), renderer, -100, -100, 100, 100);
+    }
+    String svg = out.toString();
+
+    assertEquals(2, count(svg, "L"));
+    assertTrue(svg.contains("M0 0L0 -50"));
+    assertTrue(svg.contains("M-20 20L-10 20"));
+  }
+
+  @Test
+  void testRenderSimplifiedWhenSmall() throws IOException {
+    env.runCommand("repeat 360 [ fd 2 rt 1 ]");
+    SegmentLevels levels = new SegmentLevels(env.getSegments());
+    StringWriter full = new StringWriter();
+    try (Renderer renderer = new SvgRenderer(full, SIZE, SIZE)) {
+      HeadlessRenderer.render(levels, renderer, 1);
+    }
+    StringWriter small = new StringWriter();
+    try (Renderer renderer = new SvgRenderer(small, SIZE, SIZE)) {
+      HeadlessRenderer.render(levels, renderer, .1);
+    }
+
+    assertEquals(360, count(full.toString(), "L"));
+    assertTrue(count(small.toString(), "L") < 20);
+  }
+
+  @Test
+  void testPng() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PngRenderer renderer = new PngRenderer(out, SIZE, SIZE);
+    HeadlessRenderer.attach(env.getTracker(), renderer);
+    env.runCommand("setpalette 1 0 0 255 setbg 1 fd 50");
+
+    BufferedImage lines = renderer.getImage();
+    assertEquals(0xFF000000, lines.getRGB(SIZE / 2, SIZE / 2 - 25));
+    assertEquals(0, lines.getRGB(SIZE / 4, SIZE / 4));
+
+    renderer.close();
+    BufferedImage written = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(SIZE, written.getWidth());
+    assertEquals(0xFF000000, written.getRGB(SIZE / 2, SIZE / 2 - 25));
+    assertEquals(0xFF0000FF, written.getRGB(SIZE / 4, SIZE / 4));
+  }
+}
@@ -0,0 +1,64 @@
+package slogo.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for CommandRunner, with a list standing in for the JavaFX application thread
+ */
+public class CommandRunnerTest {
+
+  private List<Runnable> scheduled;
+  private CommandRunner runner;
+
+  @BeforeEach
+  void setUp() {
+    scheduled = new ArrayList<>();
+    runner = new CommandRunner(scheduled::add);
+  }
+
+  private void runScheduled() {
+    List<Runnable> toRun = new ArrayList<>(scheduled);
+    scheduled.clear();
+    toRun.forEach(Runnable::run);
+  }
+
+  @Test
+  void testBatchCallbacks() {
+    List<Integer> received = new ArrayList<>();
+    Consumer<Integer> callback = runner.onFxThread(received::add);
+    for (int i = 0; i < 100; ++i) {
+      callback.accept(i);
+    }
+
+    assertEquals(1, scheduled.size());
+    assertTrue(received.isEmpty());
+    runScheduled();
+    assertEquals(100, received.size());
+    assertEquals(99, received.get(99));
+
+    callback.accept(100);
+    assertEquals(1, scheduled.size());
+  }
+
+  @Test
+  void testRunOnWorker() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    List<String> threads = new ArrayList<>();
+    runner.submit(() -> {
+      threads.add(Thread.currentThread().getName());
+      done.countDown();
+    });
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertTrue(!threads.get(0).equals(Thread.currentThread().getName()));
+  }
+}